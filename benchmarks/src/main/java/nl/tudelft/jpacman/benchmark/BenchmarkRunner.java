@@ -0,0 +1,54 @@
+package nl.tudelft.jpacman.benchmark;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks selected on the command line, which takes the usual
+ * JMH options, and always reports the allocation rate next to the number of
+ * operations per second.
+ */
+public final class BenchmarkRunner {
+
+	private BenchmarkRunner() {
+	}
+
+	/**
+	 * Main execution method for the benchmarks.
+	 *
+	 * @param args
+	 *            The JMH command line options, for example a regular
+	 *            expression selecting benchmarks or <code>-p maze=board</code>.
+	 * @throws IOException
+	 *             If the help text cannot be printed.
+	 * @throws CommandLineOptionException
+	 *             If the options cannot be parsed.
+	 * @throws RunnerException
+	 *             If a benchmark fails.
+	 */
+	public static void main(String[] args) throws IOException,
+			CommandLineOptionException, RunnerException {
+		CommandLineOptions command = new CommandLineOptions(args);
+		if (command.shouldHelp()) {
+			command.showHelp();
+			return;
+		}
+		Options options = new OptionsBuilder()
+				.parent(command)
+				.addProfiler(GCProfiler.class)
+				.build();
+		Runner runner = new Runner(options);
+		if (command.shouldList()) {
+			runner.list();
+		} else {
+			runner.run();
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package nl.tudelft.jpacman.benchmark;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+import nl.tudelft.jpacman.level.LevelFactory;
+import nl.tudelft.jpacman.level.Player;
+import nl.tudelft.jpacman.level.PlayerFactory;
+import nl.tudelft.jpacman.npc.ghost.FlowField;
+import nl.tudelft.jpacman.npc.ghost.Ghost;
+import nl.tudelft.jpacman.npc.ghost.GhostFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of a single decision of each kind of ghost, with each
+ * of the navigation structures the {@link LevelFactory} can precompute.
+ * Before every decision the player is put on the next of a fixed set of
+ * squares, so the ghost has to plan towards a new target.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GhostBenchmark {
+
+	/**
+	 * The number of player positions cycled through, a power of two.
+	 */
+	private static final int POSITIONS = 256;
+
+	/**
+	 * The level to play: the bundled board or the size of a maze.
+	 */
+	@Param({Mazes.BUNDLED, "32", "64", "128", "256", "512", "1024"})
+	private String maze;
+
+	/**
+	 * The simple class name of the ghost that decides.
+	 */
+	@Param({"Blinky", "Pinky", "Inky", "Clyde"})
+	private String ghost;
+
+	/**
+	 * The navigation structure the ghosts use: <code>search</code> for
+	 * none, or <code>oracle</code>, <code>junctions</code>,
+	 * <code>wavefront</code> or <code>flowfield</code>.
+	 */
+	@Param({"search", "oracle", "junctions", "wavefront", "flowfield"})
+	private String navigation;
+
+	/**
+	 * The ghost that decides.
+	 */
+	private Ghost subject;
+
+	/**
+	 * The player being chased.
+	 */
+	private Player player;
+
+	/**
+	 * The flow field of the level, or <code>null</code> if there is none.
+	 */
+	private FlowField field;
+
+	/**
+	 * The squares the player is put on.
+	 */
+	private Square[] positions;
+
+	/**
+	 * The number of the next position.
+	 */
+	private int position;
+
+	/**
+	 * Creates the level, registers the player and picks its positions.
+	 *
+	 * @throws IOException
+	 *             If the bundled board cannot be read.
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		LevelFactory factory = new LevelFactory(Mazes.sprites(),
+				new GhostFactory(Mazes.sprites()))
+				.withDistanceOracle("oracle".equals(navigation))
+				.withJunctionGraph("junctions".equals(navigation))
+				.withWavefront("wavefront".equals(navigation))
+				.withFlowField("flowfield".equals(navigation));
+		nl.tudelft.jpacman.level.Level level = Mazes.load(maze, factory);
+		player = new PlayerFactory(Mazes.sprites()).createPacMan();
+		level.registerPlayer(player);
+		field = level.getFlowField();
+		Board board = level.getBoard();
+		for (Unit unit : board.unitsOf(Ghost.class)) {
+			if (unit.getClass().getSimpleName().equals(ghost)) {
+				subject = (Ghost) unit;
+			}
+		}
+		positions = Mazes.accessible(board, player, POSITIONS,
+				new Random(Mazes.SEED));
+	}
+
+	/**
+	 * Puts the player on its next position.
+	 */
+	@Setup(Level.Invocation)
+	public void movePlayer() {
+		player.occupy(positions[position++ & (POSITIONS - 1)]);
+		if (field != null) {
+			field.update(player);
+		}
+	}
+
+	/**
+	 * @return The next move of the ghost.
+	 */
+	@Benchmark
+	public Direction nextMove() {
+		return subject.nextMove();
+	}
+}
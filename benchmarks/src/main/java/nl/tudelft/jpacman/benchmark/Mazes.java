@@ -0,0 +1,242 @@
+package nl.tudelft.jpacman.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import nl.tudelft.jpacman.Launcher;
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.BoardFactory;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+import nl.tudelft.jpacman.level.Level;
+import nl.tudelft.jpacman.level.LevelFactory;
+import nl.tudelft.jpacman.level.MapParser;
+import nl.tudelft.jpacman.sprite.PacManSprites;
+
+/**
+ * The levels the benchmarks are run on: the board bundled with the game, or
+ * a synthetic square maze of a given size. Synthetic mazes are carved by a
+ * randomized depth first search, after which some walls are knocked down so
+ * there are several ways between most squares, as on a Pac-Man board. They
+ * hold a player start, four ghosts and a pellet on every eighth square.
+ * <p>
+ * All randomness is seeded, so every run of a benchmark sees the same mazes.
+ */
+final class Mazes {
+
+	/**
+	 * The name of the board bundled with the game.
+	 */
+	static final String BUNDLED = "board";
+
+	/**
+	 * The seed of all random choices.
+	 */
+	static final long SEED = 0x5eedL;
+
+	/**
+	 * The number of ghosts placed in a synthetic maze, one of every kind.
+	 */
+	private static final int GHOSTS = 4;
+
+	/**
+	 * One in this many walls between two corridors is knocked down.
+	 */
+	private static final int BRAIDING = 10;
+
+	/**
+	 * One in this many corridor squares holds a pellet.
+	 */
+	private static final int PELLETS = 8;
+
+	/**
+	 * The horizontal steps between neighbouring rooms, halved.
+	 */
+	private static final int[] DX = {0, 0, -1, 1};
+
+	/**
+	 * The vertical steps between neighbouring rooms, halved.
+	 */
+	private static final int[] DY = {-1, 1, 0, 0};
+
+	/**
+	 * The sprites shared by all levels.
+	 */
+	private static final PacManSprites SPRITES = new PacManSprites();
+
+	private Mazes() {
+	}
+
+	/**
+	 * @return The sprites units are created with.
+	 */
+	static PacManSprites sprites() {
+		return SPRITES;
+	}
+
+	/**
+	 * Creates a level.
+	 *
+	 * @param maze
+	 *            {@link #BUNDLED} for the board bundled with the game, or the
+	 *            width and height of a synthetic maze.
+	 * @param factory
+	 *            The factory creating the level and its units.
+	 * @return The new level.
+	 * @throws IOException
+	 *             If the bundled board cannot be read.
+	 */
+	static Level load(String maze, LevelFactory factory) throws IOException {
+		MapParser parser = new MapParser(factory, new BoardFactory(SPRITES));
+		if (BUNDLED.equals(maze)) {
+			try (InputStream in = Mazes.class
+					.getResourceAsStream(Launcher.DEFAULT_MAP)) {
+				return parser.parseMap(in);
+			}
+		}
+		return parser.parseMap(generate(Integer.parseInt(maze)));
+	}
+
+	/**
+	 * Picks random squares of a board a unit can occupy.
+	 *
+	 * @param board
+	 *            The board to pick from.
+	 * @param unit
+	 *            The unit that must be able to occupy the squares.
+	 * @param count
+	 *            The number of squares to pick.
+	 * @param random
+	 *            The source of the choices.
+	 * @return The squares, possibly with repetitions.
+	 */
+	static Square[] accessible(Board board, Unit unit, int count,
+			Random random) {
+		Square[] squares = new Square[count];
+		int found = 0;
+		while (found < count) {
+			Square square = board.squareAt(random.nextInt(board.getWidth()),
+					random.nextInt(board.getHeight()));
+			if (square.isAccessibleTo(unit)) {
+				squares[found++] = square;
+			}
+		}
+		return squares;
+	}
+
+	/**
+	 * Generates a synthetic maze.
+	 *
+	 * @param size
+	 *            The width and height of the maze.
+	 * @return The rows of the maze, top row first.
+	 */
+	static List<String> generate(int size) {
+		Random random = new Random(SEED + size);
+		char[][] map = new char[size][size];
+		for (char[] row : map) {
+			Arrays.fill(row, '#');
+		}
+		carve(map, random);
+		braid(map, random);
+		List<Integer> corridors = new ArrayList<>();
+		for (int y = 0; y < size; y++) {
+			for (int x = 0; x < size; x++) {
+				if (map[y][x] == ' ' && random.nextInt(PELLETS) == 0) {
+					map[y][x] = '.';
+				}
+				if (map[y][x] != '#') {
+					corridors.add(y * size + x);
+				}
+			}
+		}
+		Collections.shuffle(corridors, random);
+		int start = corridors.get(0);
+		map[start / size][start % size] = 'P';
+		for (int i = 1; i <= GHOSTS; i++) {
+			int square = corridors.get(i);
+			map[square / size][square % size] = 'G';
+		}
+		List<String> rows = new ArrayList<>(size);
+		for (char[] row : map) {
+			rows.add(new String(row));
+		}
+		return rows;
+	}
+
+	/**
+	 * Carves a perfect maze: the squares at odd coordinates are rooms, and
+	 * the walls between them are removed along a randomized depth first
+	 * search until all rooms are connected.
+	 */
+	private static void carve(char[][] map, Random random) {
+		int rooms = (map.length - 1) / 2;
+		int[] stack = new int[rooms * rooms];
+		int top = 0;
+		stack[top++] = 0;
+		map[1][1] = ' ';
+		int[] order = {0, 1, 2, 3};
+		while (top > 0) {
+			int room = stack[top - 1];
+			int x = 2 * (room % rooms) + 1;
+			int y = 2 * (room / rooms) + 1;
+			int next = unvisitedNeighbour(map, x, y, order, random);
+			if (next < 0) {
+				top--;
+			} else {
+				int dx = DX[next];
+				int dy = DY[next];
+				map[y + dy][x + dx] = ' ';
+				map[y + 2 * dy][x + 2 * dx] = ' ';
+				stack[top++] = room + dx + dy * rooms;
+			}
+		}
+	}
+
+	/**
+	 * @return The index in {@link #DX} and {@link #DY} of a random neighbour
+	 *         of a room that was not carved yet, or <code>-1</code> if there
+	 *         is none.
+	 */
+	private static int unvisitedNeighbour(char[][] map, int x, int y,
+			int[] order, Random random) {
+		for (int i = order.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int swap = order[i];
+			order[i] = order[j];
+			order[j] = swap;
+		}
+		int limit = map.length - 1;
+		for (int d : order) {
+			int nx = x + 2 * DX[d];
+			int ny = y + 2 * DY[d];
+			if (nx > 0 && ny > 0 && nx < limit && ny < limit
+					&& map[ny][nx] == '#') {
+				return d;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Knocks down random walls that separate two corridors, creating loops.
+	 */
+	private static void braid(char[][] map, Random random) {
+		int limit = map.length - 1;
+		for (int y = 1; y < limit; y++) {
+			for (int x = 1; x < limit; x++) {
+				boolean across = map[y][x - 1] == ' ' && map[y][x + 1] == ' ';
+				boolean down = map[y - 1][x] == ' ' && map[y + 1][x] == ' ';
+				if (map[y][x] == '#' && (x + y) % 2 == 1 && (across || down)
+						&& random.nextInt(BRAIDING) == 0) {
+					map[y][x] = ' ';
+				}
+			}
+		}
+	}
+}
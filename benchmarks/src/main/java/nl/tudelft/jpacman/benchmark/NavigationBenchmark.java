@@ -0,0 +1,131 @@
+package nl.tudelft.jpacman.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+import nl.tudelft.jpacman.level.LevelFactory;
+import nl.tudelft.jpacman.level.Pellet;
+import nl.tudelft.jpacman.npc.ghost.Ghost;
+import nl.tudelft.jpacman.npc.ghost.GhostFactory;
+import nl.tudelft.jpacman.npc.ghost.Navigation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of the searches in {@link Navigation}: shortest paths
+ * for a ghost between random squares, and the nearest pellet from a random
+ * square. Every invocation takes the next of a fixed set of routes, so with
+ * the path cache enabled the benchmark measures lookups of cached paths.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NavigationBenchmark {
+
+	/**
+	 * The number of routes cycled through, a power of two.
+	 */
+	private static final int ROUTES = 256;
+
+	/**
+	 * The level to search: the bundled board or the size of a maze.
+	 */
+	@Param({Mazes.BUNDLED, "32", "64", "128", "256", "512", "1024"})
+	private String maze;
+
+	/**
+	 * <code>true</code> iff shortest paths are cached between searches.
+	 */
+	@Param({"false", "true"})
+	private boolean pathCache;
+
+	/**
+	 * The unit searching for paths.
+	 */
+	private Unit traveller;
+
+	/**
+	 * The starts of the routes.
+	 */
+	private Square[] starts;
+
+	/**
+	 * The destinations of the routes.
+	 */
+	private Square[] destinations;
+
+	/**
+	 * The number of the next route.
+	 */
+	private int route;
+
+	/**
+	 * Creates the level and picks the routes.
+	 *
+	 * @throws IOException
+	 *             If the bundled board cannot be read.
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		LevelFactory factory = new LevelFactory(Mazes.sprites(),
+				new GhostFactory(Mazes.sprites()));
+		Board board = Mazes.load(maze, factory).getBoard();
+		traveller = board.unitsOf(Ghost.class).iterator().next();
+		Random random = new Random(Mazes.SEED);
+		starts = Mazes.accessible(board, traveller, ROUTES, random);
+		destinations = Mazes.accessible(board, traveller, ROUTES, random);
+		if (pathCache) {
+			Navigation.setPathCacheCapacity(
+					Navigation.DEFAULT_PATH_CACHE_CAPACITY);
+		} else {
+			Navigation.setPathCacheCapacity(0);
+		}
+	}
+
+	/**
+	 * Restores the default path cache.
+	 */
+	@TearDown
+	public void tearDown() {
+		Navigation.setPathCacheCapacity(Navigation.DEFAULT_PATH_CACHE_CAPACITY);
+	}
+
+	/**
+	 * @return The shortest path of the next route.
+	 */
+	@Benchmark
+	public List<Direction> shortestPath() {
+		int next = route++ & (ROUTES - 1);
+		return Navigation.shortestPath(starts[next], destinations[next],
+				traveller);
+	}
+
+	/**
+	 * @return The pellet nearest to the start of the next route.
+	 */
+	@Benchmark
+	public Unit findNearest() {
+		int next = route++ & (ROUTES - 1);
+		return Navigation.findNearest(Pellet.class, starts[next]);
+	}
+}
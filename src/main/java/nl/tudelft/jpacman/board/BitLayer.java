@@ -0,0 +1,155 @@
+package nl.tudelft.jpacman.board;
+
+/**
+ * One bit for every square of a {@link Board}, packed 64 squares to a word:
+ * the bit of the square at <code>x,y</code> is bit <code>y * width + x</code>.
+ * A layer answers questions about the whole board, such as how many squares
+ * hold a pellet or where the next one is, by counting and scanning words
+ * instead of visiting squares.
+ * <p>
+ * Layers are kept up to date by their board. Changes are made by one thread
+ * at a time, while reads may happen concurrently and see a change late.
+ */
+public final class BitLayer {
+
+	/**
+	 * The number of bits in a word, as a shift.
+	 */
+	private static final int WORD_SHIFT = 6;
+
+	/**
+	 * The number of columns of the board.
+	 */
+	private final int width;
+
+	/**
+	 * The number of rows of the board.
+	 */
+	private final int height;
+
+	/**
+	 * The bits of the squares, 64 to a word.
+	 */
+	private final long[] words;
+
+	/**
+	 * Creates a layer without any bits set, such as a layer of a board
+	 * without any units of a type.
+	 *
+	 * @param columns
+	 *            The number of columns of the board.
+	 * @param rows
+	 *            The number of rows of the board.
+	 */
+	public BitLayer(int columns, int rows) {
+		this.width = columns;
+		this.height = rows;
+		this.words = new long[(columns * rows + Long.SIZE - 1) >>> WORD_SHIFT];
+	}
+
+	/**
+	 * @return The number of columns of the board.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return The number of rows of the board.
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @param x
+	 *            The column of a square.
+	 * @param y
+	 *            The row of a square.
+	 * @return <code>true</code> iff the bit of the square is set.
+	 */
+	public boolean get(int x, int y) {
+		assert x >= 0 && x < width && y >= 0 && y < height;
+		return get(y * width + x);
+	}
+
+	/**
+	 * @param index
+	 *            The index of a square, <code>y * width + x</code>.
+	 * @return <code>true</code> iff the bit of the square is set.
+	 */
+	public boolean get(int index) {
+		return (words[index >>> WORD_SHIFT] & (1L << index)) != 0;
+	}
+
+	/**
+	 * @return The number of squares of which the bit is set.
+	 */
+	public int count() {
+		int count = 0;
+		for (long word : words) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	/**
+	 * Finds the first square at or after an index of which the bit is set.
+	 *
+	 * @param from
+	 *            The index to start at, <code>y * width + x</code>.
+	 * @return The index of the square, or <code>-1</code> if there is none.
+	 */
+	public int nextSet(int from) {
+		int w = from >>> WORD_SHIFT;
+		if (w >= words.length) {
+			return -1;
+		}
+		long word = words[w] & (-1L << from);
+		while (word == 0) {
+			w++;
+			if (w == words.length) {
+				return -1;
+			}
+			word = words[w];
+		}
+		return (w << WORD_SHIFT) + Long.numberOfTrailingZeros(word);
+	}
+
+	/**
+	 * @return The number of words of this layer.
+	 */
+	public int wordCount() {
+		return words.length;
+	}
+
+	/**
+	 * @param w
+	 *            The position of a word.
+	 * @return The bits of the squares <code>64 * w</code> up to
+	 *         <code>64 * (w + 1)</code>, the lowest bit first.
+	 */
+	public long word(int w) {
+		return words[w];
+	}
+
+	/**
+	 * Sets the bit of a square.
+	 *
+	 * @param index
+	 *            The index of the square.
+	 */
+	void set(int index) {
+		words[index >>> WORD_SHIFT] |= 1L << index;
+	}
+
+	/**
+	 * Clears the bit of a square.
+	 *
+	 * @param index
+	 *            The index of the square.
+	 */
+	void clear(int index) {
+		words[index >>> WORD_SHIFT] &= ~(1L << index);
+	}
+}
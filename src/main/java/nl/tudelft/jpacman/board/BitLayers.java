@@ -0,0 +1,188 @@
+package nl.tudelft.jpacman.board;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the {@link BitLayer}s of a {@link Board}: one of the squares occupied
+ * by each type of unit that has been asked for, kept up to date as units
+ * arrive and leave, and one of the squares accessible to each type of unit,
+ * recomputed when the layout of the board changes.
+ * <p>
+ * Changes are made by one thread at a time, while layers may be read
+ * concurrently.
+ */
+final class BitLayers {
+
+	/**
+	 * The board the layers are of.
+	 */
+	private final Board board;
+
+	/**
+	 * The squares occupied by every type of unit that has been asked for.
+	 */
+	private final Map<Class<?>, BitLayer> occupied = new ConcurrentHashMap<>();
+
+	/**
+	 * The squares accessible to every type of unit that has been asked for.
+	 */
+	private final Map<Class<?>, Accessible> accessible =
+			new ConcurrentHashMap<>();
+
+	/**
+	 * Creates the layers of a board.
+	 *
+	 * @param owner
+	 *            The board the layers are of.
+	 */
+	BitLayers(Board owner) {
+		this.board = owner;
+	}
+
+	/**
+	 * Sets the bit of a square in the layer of every type the unit that
+	 * occupied it has.
+	 *
+	 * @param unit
+	 *            The unit.
+	 * @param cell
+	 *            The position of the square of the board it occupied, as
+	 *            <code>y * width + x</code>.
+	 */
+	synchronized void occupied(Unit unit, int cell) {
+		for (Map.Entry<Class<?>, BitLayer> e : occupied.entrySet()) {
+			if (e.getKey().isInstance(unit)) {
+				e.getValue().set(cell);
+			}
+		}
+	}
+
+	/**
+	 * Clears the bit of a square in the layer of every type the unit that
+	 * left it has, unless another unit of that type is still there.
+	 *
+	 * @param unit
+	 *            The unit.
+	 * @param square
+	 *            The square of the board it left.
+	 */
+	synchronized void vacated(Unit unit, Square square) {
+		for (Map.Entry<Class<?>, BitLayer> e : occupied.entrySet()) {
+			Class<?> type = e.getKey();
+			if (type.isInstance(unit) && !holds(square, type)) {
+				e.getValue().clear(indexOf(square));
+			}
+		}
+	}
+
+	/**
+	 * Returns the layer of the squares occupied by a type of unit.
+	 *
+	 * @param type
+	 *            The type of unit.
+	 * @param units
+	 *            The units of that type on the board.
+	 * @return The live layer of the squares with a unit of that type.
+	 */
+	BitLayer occupiedBy(Class<? extends Unit> type, Set<Unit> units) {
+		BitLayer layer = occupied.get(type);
+		if (layer == null) {
+			layer = track(type, units);
+		}
+		return layer;
+	}
+
+	/**
+	 * @param type
+	 *            The type of unit.
+	 * @return The live layer of the squares with a unit of that type, or
+	 *         <code>null</code> if it has not been asked for yet.
+	 */
+	BitLayer tracked(Class<? extends Unit> type) {
+		return occupied.get(type);
+	}
+
+	/**
+	 * Returns the layer of the squares accessible to a unit, assuming units
+	 * of the same type are allowed on the same squares.
+	 *
+	 * @param unit
+	 *            The unit.
+	 * @return The layer of the squares accessible to the unit, valid as long
+	 *         as the topology version of the board does not change.
+	 */
+	BitLayer accessibleTo(Unit unit) {
+		long version = board.getTopologyVersion();
+		Accessible known = accessible.get(unit.getClass());
+		if (known == null || known.version != version) {
+			known = new Accessible(version, computeAccessible(unit));
+			accessible.put(unit.getClass(), known);
+		}
+		return known.layer;
+	}
+
+	private synchronized BitLayer track(Class<? extends Unit> type,
+			Set<Unit> units) {
+		BitLayer layer = occupied.get(type);
+		if (layer == null) {
+			layer = new BitLayer(board.getWidth(), board.getHeight());
+			for (Unit unit : units) {
+				Square square = unit.getSquare();
+				if (square != null && square.getBoard() == board) {
+					layer.set(indexOf(square));
+				}
+			}
+			board.markUnlisted(type, layer);
+			occupied.put(type, layer);
+		}
+		return layer;
+	}
+
+	private BitLayer computeAccessible(Unit unit) {
+		BitLayer layer = new BitLayer(board.getWidth(), board.getHeight());
+		for (int y = 0; y < board.getHeight(); y++) {
+			for (int x = 0; x < board.getWidth(); x++) {
+				if (board.isAccessible(x, y, unit)) {
+					layer.set(y * board.getWidth() + x);
+				}
+			}
+		}
+		return layer;
+	}
+
+	private int indexOf(Square square) {
+		return square.getY() * board.getWidth() + square.getX();
+	}
+
+	private static boolean holds(Square square, Class<?> type) {
+		for (int i = 0; i < square.occupantCount(); i++) {
+			if (type.isInstance(square.getOccupant(i))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * The squares accessible to a type of unit in one version of the layout.
+	 */
+	private static final class Accessible {
+
+		/**
+		 * The topology version of the board the layer was computed for.
+		 */
+		private final long version;
+
+		/**
+		 * The squares accessible to the type of unit.
+		 */
+		private final BitLayer layer;
+
+		Accessible(long topologyVersion, BitLayer squares) {
+			this.version = topologyVersion;
+			this.layer = squares;
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package nl.tudelft.jpacman.board;
 
-import static org.mockito.Mockito.mock;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A top-down view of a matrix of {@link Square}s.
@@ -41,10 +42,42 @@ public class Board {
 //	}
 
 	/**
-	 * The grid of squares with board[x][y] being the square at column x, row y.
+	 * The grid of squares with board[x][y] being the square at column x, row y,
+	 * or <code>null</code> if a subclass provides the squares.
 	 */
 	private final Square[][] board;
 
+	/**
+	 * The number of columns.
+	 */
+	private final int width;
+
+	/**
+	 * The number of rows.
+	 */
+	private final int height;
+
+	/**
+	 * The units on this board, by type.
+	 */
+	private final UnitRegistry units = new UnitRegistry();
+
+	/**
+	 * The number of times the accessibility of the squares of this board may
+	 * have changed.
+	 */
+	private final AtomicLong topologyVersion = new AtomicLong();
+
+	/**
+	 * The hash of the units on this board.
+	 */
+	private final StateHash stateHash;
+
+	/**
+	 * The bit layers of this board.
+	 */
+	private final BitLayers layers = new BitLayers(this);
+
 	/**
 	 * Creates a new board.
 	 * 
@@ -55,14 +88,46 @@ public class Board {
 	Board(Square[][] grid) {
 		assert grid != null;
 		this.board = grid;
+		this.width = grid.length;
+		this.height = grid[0].length;
 		assert invariant() : "Initial grid cannot contain null squares";
+		this.stateHash = new StateHash();
+		for (int x = 0; x < grid.length; x++) {
+			for (int y = 0; y < grid[x].length; y++) {
+				grid[x][y].place(this, x, y);
+				for (Unit occupant : grid[x][y].getOccupantView()) {
+					units.add(occupant);
+					toggleState(occupant, grid[x][y], occupant.getDirection());
+				}
+			}
+		}
 	}
 	
+	/**
+	 * Creates a new board without a grid, of which a subclass provides the
+	 * squares by overriding {@link #squareAt(int, int)}.
+	 * 
+	 * @param columns
+	 *            The number of columns.
+	 * @param rows
+	 *            The number of rows.
+	 */
+	Board(int columns, int rows) {
+		assert columns > 0 && rows > 0;
+		this.board = null;
+		this.width = columns;
+		this.height = rows;
+		this.stateHash = new StateHash();
+	}
+
 	/**
 	 * Whatever happens, the squares on the board can't be null.
 	 * @return false if any square on the board is null.
 	 */
 	protected final boolean invariant() {
+		if (board == null) {
+			return true;
+		}
 		for (Square[] row : board) {
 			for (Square square : row) {
 				if (square == null) {
@@ -79,7 +144,7 @@ public class Board {
 	 * @return The width of this board.
 	 */
 	public int getWidth() {
-		return board.length;
+		return width;
 	}
 
 	/**
@@ -88,7 +153,7 @@ public class Board {
 	 * @return The height of this board.
 	 */
 	public int getHeight() {
-		return board[0].length;
+		return height;
 	}
 
 	/**
@@ -119,4 +184,216 @@ public class Board {
 	public boolean withinBorders(int x, int y) {
 		return x >= 0 && x < getWidth() && y >= 0 && y < getHeight();
 	}
+
+	/**
+	 * Returns the units of the given type that are on this board.
+	 * 
+	 * @param type
+	 *            The type of unit to look up.
+	 * @return A live, unmodifiable view of the units of that type, in no
+	 *         particular order.
+	 */
+	public Set<Unit> unitsOf(Class<? extends Unit> type) {
+		return units.unitsOf(type);
+	}
+
+	/**
+	 * Counts the units of the given type that are on this board, including
+	 * those a subclass keeps without a unit object.
+	 * 
+	 * @param type
+	 *            The type of unit to count.
+	 * @return The number of units of that type.
+	 */
+	public int countUnits(Class<? extends Unit> type) {
+		return units.unitsOf(type).size();
+	}
+
+	/**
+	 * Returns the squares of this board occupied by units of the given type,
+	 * one bit a square. The layer is created the first time a type is asked
+	 * for and is kept up to date as units arrive and leave from then on.
+	 * 
+	 * @param type
+	 *            The type of unit to look up.
+	 * @return A live layer with the bits set of the squares with at least one
+	 *         unit of that type.
+	 */
+	public BitLayer layerOf(Class<? extends Unit> type) {
+		return layers.occupiedBy(type, units.unitsOf(type));
+	}
+
+	/**
+	 * @param type
+	 *            The type of unit to look up.
+	 * @return The layer of the squares occupied by that type, or
+	 *         <code>null</code> if it has not been asked for yet.
+	 */
+	BitLayer trackedLayerOf(Class<? extends Unit> type) {
+		return layers.tracked(type);
+	}
+
+	/**
+	 * Returns the squares of this board the given unit is allowed to occupy,
+	 * one bit a square. Units of the same type are assumed to be allowed on
+	 * the same squares, so all of them share a layer.
+	 * 
+	 * @param unit
+	 *            The unit to grant or deny access.
+	 * @return A layer with the bits set of the squares accessible to the
+	 *         unit, valid as long as the topology version does not change.
+	 */
+	public BitLayer accessibleTo(Unit unit) {
+		return layers.accessibleTo(unit);
+	}
+
+	/**
+	 * Determines whether a unit is allowed to occupy a square of this board.
+	 * 
+	 * @param x
+	 *            The column of the square.
+	 * @param y
+	 *            The row of the square.
+	 * @param unit
+	 *            The unit to grant or deny access.
+	 * @return <code>true</code> iff the unit is allowed to occupy the square.
+	 */
+	boolean isAccessible(int x, int y, Unit unit) {
+		return squareAt(x, y).isAccessibleTo(unit);
+	}
+
+	/**
+	 * Returns the version of the layout of this board. Anything derived from
+	 * which squares are accessible, such as cached paths, is only valid as
+	 * long as the version does not change.
+	 * 
+	 * @return The number of times the accessibility of the squares of this
+	 *         board may have changed.
+	 */
+	public long getTopologyVersion() {
+		return topologyVersion.get();
+	}
+
+	/**
+	 * Signals that the accessibility of one or more squares of this board may
+	 * have changed, invalidating everything derived from it.
+	 */
+	public void topologyChanged() {
+		topologyVersion.incrementAndGet();
+	}
+
+	/**
+	 * Returns a Zobrist hash of the state of the units on this board: which
+	 * types of unit are on which squares, facing which directions. The hash
+	 * is kept up to date as units move, turn, arrive and leave, and boards of
+	 * the same size have the same hash when their units are in the same
+	 * state.
+	 * 
+	 * @return The 64-bit hash of the units on this board.
+	 */
+	public long getStateHash() {
+		return stateHash.get();
+	}
+
+	/**
+	 * Toggles a unit on one of the squares of this board in or out of the
+	 * state hash.
+	 * 
+	 * @param unit
+	 *            The unit.
+	 * @param square
+	 *            The square of this board it is on.
+	 * @param direction
+	 *            The direction it faces.
+	 */
+	void toggleState(Unit unit, Square square, Direction direction) {
+		toggleState(unit, square.getY() * getWidth() + square.getX(),
+				direction);
+	}
+
+	/**
+	 * Toggles a unit on one of the squares of this board in or out of the
+	 * state hash.
+	 * 
+	 * @param unit
+	 *            The unit.
+	 * @param cell
+	 *            The position of the square it is on, as
+	 *            <code>y * width + x</code>.
+	 * @param direction
+	 *            The direction it faces.
+	 */
+	void toggleState(Unit unit, int cell, Direction direction) {
+		stateHash.toggle(unit, cell, direction);
+	}
+
+	/**
+	 * Updates the bit layers for a unit that occupied a square of this board.
+	 * 
+	 * @param unit
+	 *            The unit.
+	 * @param square
+	 *            The square it occupied.
+	 */
+	void squareOccupied(Unit unit, Square square) {
+		squareOccupied(unit, square.getY() * getWidth() + square.getX());
+	}
+
+	/**
+	 * Updates the bit layers for a unit that occupied a square of this board.
+	 * 
+	 * @param unit
+	 *            The unit.
+	 * @param cell
+	 *            The position of the square it occupied, as
+	 *            <code>y * width + x</code>.
+	 */
+	void squareOccupied(Unit unit, int cell) {
+		layers.occupied(unit, cell);
+	}
+
+	/**
+	 * Sets the bits of the squares with units of a type that a subclass keeps
+	 * without a unit object, when a layer of that type is first created.
+	 * 
+	 * @param type
+	 *            The type of unit.
+	 * @param layer
+	 *            The new layer of the squares occupied by that type.
+	 */
+	void markUnlisted(Class<? extends Unit> type, BitLayer layer) {
+		// Every unit of a plain board is listed.
+	}
+
+	/**
+	 * Updates the bit layers for a unit that left a square of this board.
+	 * 
+	 * @param unit
+	 *            The unit.
+	 * @param square
+	 *            The square it left.
+	 */
+	void squareVacated(Unit unit, Square square) {
+		layers.vacated(unit, square);
+	}
+
+	/**
+	 * Registers a unit that moved onto this board.
+	 * 
+	 * @param unit
+	 *            The unit that arrived.
+	 */
+	void unitEntered(Unit unit) {
+		units.add(unit);
+	}
+
+	/**
+	 * Deregisters a unit that left this board.
+	 * 
+	 * @param unit
+	 *            The unit that left.
+	 */
+	void unitLeft(Unit unit) {
+		units.remove(unit);
+	}
 }
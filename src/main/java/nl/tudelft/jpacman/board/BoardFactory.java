@@ -16,6 +16,16 @@ public class BoardFactory {
 	 */
 	private final PacManSprites sprites;
 
+	/**
+	 * Whether boards are created as {@link CompactBoard}s.
+	 */
+	private boolean compact;
+
+	/**
+	 * Whether boards are created as {@link ChunkedBoard}s.
+	 */
+	private boolean chunked;
+
 	/**
 	 * Creates a new BoardFactory that will create a board with the provided
 	 * background sprites.
@@ -27,6 +37,116 @@ public class BoardFactory {
 		this.sprites = spriteStore;
 	}
 
+	/**
+	 * Makes the parsers using this factory create {@link CompactBoard}s, which
+	 * keep their squares in flat arrays and only create square objects on
+	 * demand, instead of boards of square objects.
+	 * 
+	 * @param enabled
+	 *            <code>true</code> to create compact boards.
+	 * @return This factory.
+	 */
+	public BoardFactory withCompactBoards(boolean enabled) {
+		this.compact = enabled;
+		return this;
+	}
+
+	/**
+	 * @return <code>true</code> iff boards should be created with
+	 *         {@link #createCompactBoard(boolean[][])}.
+	 */
+	public boolean createsCompactBoards() {
+		return compact;
+	}
+
+	/**
+	 * Makes the parsers using this factory create {@link ChunkedBoard}s, which
+	 * only create the square objects of the parts of the board in use, instead
+	 * of boards of square objects. This takes precedence over
+	 * {@link #withCompactBoards(boolean)}.
+	 * 
+	 * @param enabled
+	 *            <code>true</code> to create chunked boards.
+	 * @return This factory.
+	 */
+	public BoardFactory withChunkedBoards(boolean enabled) {
+		this.chunked = enabled;
+		return this;
+	}
+
+	/**
+	 * @return <code>true</code> iff boards should be created with
+	 *         {@link #createChunkedBoard(boolean[][])}.
+	 */
+	public boolean createsChunkedBoards() {
+		return chunked;
+	}
+
+	/**
+	 * Creates a new compact board of ground and walls, connected around its
+	 * edges like a board created from a grid.
+	 * 
+	 * @param walls
+	 *            The layout of the board, in which walls[x][y] tells whether
+	 *            the square at position x,y is a wall.
+	 * @return A new board, without units on it.
+	 */
+	public CompactBoard createCompactBoard(boolean[][] walls) {
+		assert walls != null;
+		return new CompactBoard(new Square[] {createGround(), createWall()},
+				kindsOf(walls));
+	}
+
+	/**
+	 * Creates a new chunked board of ground and walls, with chunks of the
+	 * default size of which the default number is kept.
+	 * 
+	 * @param walls
+	 *            The layout of the board, in which walls[x][y] tells whether
+	 *            the square at position x,y is a wall.
+	 * @return A new board, without units on it.
+	 */
+	public ChunkedBoard createChunkedBoard(boolean[][] walls) {
+		return createChunkedBoard(walls, ChunkedBoard.DEFAULT_CHUNK_SIZE,
+				ChunkedBoard.DEFAULT_RESIDENT_CHUNKS);
+	}
+
+	/**
+	 * Creates a new chunked board of ground and walls, connected around its
+	 * edges like a board created from a grid.
+	 * 
+	 * @param walls
+	 *            The layout of the board, in which walls[x][y] tells whether
+	 *            the square at position x,y is a wall.
+	 * @param chunkSize
+	 *            The number of squares along each side of a chunk.
+	 * @param residentChunks
+	 *            The number of recently used chunks to keep.
+	 * @return A new board, without units on it.
+	 */
+	public ChunkedBoard createChunkedBoard(boolean[][] walls, int chunkSize,
+			int residentChunks) {
+		assert walls != null;
+		return new ChunkedBoard(new Square[] {createGround(), createWall()},
+				kindsOf(walls), chunkSize, residentChunks);
+	}
+
+	/**
+	 * Encodes a layout of walls as the kinds of squares of a board created
+	 * from prototypes, with ground as kind 0 and walls as kind 1.
+	 */
+	private static byte[][] kindsOf(boolean[][] walls) {
+		byte[][] kinds = new byte[walls.length][walls[0].length];
+		for (int x = 0; x < walls.length; x++) {
+			for (int y = 0; y < walls[x].length; y++) {
+				if (walls[x][y]) {
+					kinds[x][y] = 1;
+				}
+			}
+		}
+		return kinds;
+	}
+
 	/**
 	 * Creates a new board from a grid of cells and connects it.
 	 * 
@@ -0,0 +1,646 @@
+package nl.tudelft.jpacman.board;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.google.common.base.Supplier;
+
+import nl.tudelft.jpacman.sprite.Sprite;
+
+/**
+ * A {@link Board} for maps too large to hold a square object for every
+ * square. The board is cut into square chunks of a fixed size, which are
+ * encoded as one byte a square: the kind of the square, an index into a few
+ * prototype squares every square behaves like, and a bit telling whether a
+ * dormant unit is on it. The square objects of a chunk are only created when
+ * one of them is first asked for, and code that walks the board square by
+ * square can use the indices of the squares instead, as an
+ * {@link IndexedBoard}, and not create them at all.
+ * <p>
+ * Dormant units are units of one type, such as pellets, that the board keeps
+ * as a bit of the encoded chunk while their chunk is not in use. They are
+ * created when their chunk wakes up and are taken off their squares again
+ * when it is evicted. They are counted by {@link #countUnits(Class)} and
+ * {@link #layerOf(Class)} either way, but only listed by
+ * {@link #unitsOf(Class)} while their chunk is awake, and a dormant unit that
+ * is taken off and woken up again is a new object.
+ * <p>
+ * A limited number of recently used chunks is kept awake. When too many
+ * chunks are awake, the least recently used one without other units on it
+ * is evicted: its dormant units go back to their bits and the board lets go
+ * of it, so it is garbage collected once nobody holds on to any of its
+ * squares anymore. A chunk of which a square is still in use is taken back
+ * when asked for, so the same square is always the same object while it is
+ * in use. Cached paths hold on to their ends, and a square linked to
+ * explicitly is held on to by the board.
+ * <p>
+ * Looking up a square of an awake chunk takes no lock, and marks the chunk as
+ * used since the last chunk woke up, which is as precise as eviction needs.
+ * Waking a chunk and moving units on or off its squares take a lock.
+ * <p>
+ * Squares are linked to their neighbours around the edges of the board,
+ * also across the edges of chunks, which wakes the neighbouring chunk if
+ * need be. A square can be linked to another neighbour instead, which the
+ * board remembers by position, so the link outlives the square objects of
+ * the chunk and keeps the neighbour in use.
+ */
+public final class ChunkedBoard extends Board implements IndexedBoard {
+
+	/**
+	 * The default number of squares along each side of a chunk.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 32;
+
+	/**
+	 * The default number of recently used chunks kept.
+	 */
+	public static final int DEFAULT_RESIDENT_CHUNKS = 64;
+
+	/**
+	 * The bit of an encoded square that is set if a dormant unit is on it.
+	 */
+	private static final int DORMANT = 0x80;
+
+	/**
+	 * The bits of an encoded square that hold its kind.
+	 */
+	private static final int KIND = 0x7F;
+
+	/**
+	 * The square every kind of square behaves like, by kind.
+	 */
+	private final Square[] prototypes;
+
+	/**
+	 * The number of squares along each side of a chunk.
+	 */
+	private final int chunkSize;
+
+	/**
+	 * The number of chunks in a row of chunks.
+	 */
+	private final int chunkColumns;
+
+	/**
+	 * The encoded squares of every chunk, by chunk, with the square at
+	 * <code>x,y</code> within the chunk at <code>y * chunkSize + x</code>.
+	 * The {@link #DORMANT} bit is only set while the chunk is not awake.
+	 */
+	private final byte[][] encoded;
+
+	/**
+	 * The chunks that have square objects, by index. A chunk stays in here
+	 * while it is awake or while any of its squares is in use.
+	 */
+	private final AtomicReferenceArray<WeakReference<Chunk>> chunks;
+
+	/**
+	 * The neighbours squares were linked to instead of the neighbours by
+	 * their position, by the position and direction of the link.
+	 */
+	private final Map<Long, Square> links = new ConcurrentHashMap<>();
+
+	/**
+	 * The awake chunks. This is also the lock for waking and evicting chunks
+	 * and for everything to do with dormant units.
+	 */
+	private final List<Chunk> resident = new ArrayList<>();
+
+	/**
+	 * The number of chunks kept awake, unless more have other units on them.
+	 */
+	private final int residentLimit;
+
+	/**
+	 * The number of times a chunk woke up, which is the time a chunk takes as
+	 * the time it was last used.
+	 */
+	private volatile long clock;
+
+	/**
+	 * Creates the dormant units, or <code>null</code> if there are none.
+	 */
+	private Supplier<? extends Unit> dormantFactory;
+
+	/**
+	 * A unit as created by the {@link #dormantFactory}, which stands in for
+	 * the dormant units that are only bits.
+	 */
+	private Unit dormantPrototype;
+
+	/**
+	 * The number of dormant units that are only bits.
+	 */
+	private int dormant;
+
+	/**
+	 * The number of times a chunk got square objects.
+	 */
+	private final AtomicLong materializations = new AtomicLong();
+
+	/**
+	 * Creates a board of which every square behaves like one of a few
+	 * prototypes, linked to its neighbours around the edges of the board.
+	 *
+	 * @param kindPrototypes
+	 *            The square every kind of square behaves like, at most 128.
+	 * @param squareKinds
+	 *            The kind of every square, with <code>squareKinds[x][y]</code>
+	 *            the kind of the square at <code>x,y</code>.
+	 * @param size
+	 *            The number of squares along each side of a chunk.
+	 * @param residentChunks
+	 *            The number of recently used chunks to keep, at least one.
+	 */
+	ChunkedBoard(Square[] kindPrototypes, byte[][] squareKinds, int size,
+			int residentChunks) {
+		super(squareKinds.length, squareKinds[0].length);
+		assert kindPrototypes.length <= KIND + 1;
+		assert size > 0 && residentChunks > 0;
+		this.prototypes = kindPrototypes.clone();
+		this.chunkSize = size;
+		this.chunkColumns = (getWidth() + size - 1) / size;
+		int chunkRows = (getHeight() + size - 1) / size;
+		this.encoded = new byte[chunkColumns * chunkRows][size * size];
+		this.chunks = new AtomicReferenceArray<>(encoded.length);
+		this.residentLimit = residentChunks;
+		for (int x = 0; x < getWidth(); x++) {
+			for (int y = 0; y < getHeight(); y++) {
+				encoded[chunkOf(x, y)][offsetOf(x, y)] = squareKinds[x][y];
+			}
+		}
+	}
+
+	/**
+	 * Lets this board keep the units a factory creates as bits of the chunks
+	 * they are on while those chunks are not awake. The units are assumed to
+	 * keep facing the direction they were created with.
+	 *
+	 * @param factory
+	 *            Creates the dormant units, which are all of the same class.
+	 */
+	public void keepDormant(Supplier<? extends Unit> factory) {
+		synchronized (resident) {
+			assert dormantFactory == null;
+			dormantFactory = factory;
+			dormantPrototype = factory.get();
+		}
+	}
+
+	/**
+	 * Adds a dormant unit to a square, without creating it unless the chunk
+	 * of the square is awake.
+	 *
+	 * @param x
+	 *            The column of the square.
+	 * @param y
+	 *            The row of the square.
+	 */
+	public void addDormant(int x, int y) {
+		assert withinBorders(x, y);
+		synchronized (resident) {
+			assert dormantFactory != null;
+			byte[] data = encoded[chunkOf(x, y)];
+			int offset = offsetOf(x, y);
+			Chunk chunk = materialized(chunkOf(x, y));
+			if ((chunk != null && chunk.awake) || (data[offset] & DORMANT) != 0) {
+				dormantFactory.get().occupy(squareAt(x, y));
+				return;
+			}
+			data[offset] |= DORMANT;
+			dormant++;
+			int cell = y * getWidth() + x;
+			toggleState(dormantPrototype, cell, dormantPrototype.getDirection());
+			squareOccupied(dormantPrototype, cell);
+		}
+	}
+
+	@Override
+	public Square squareAt(int x, int y) {
+		assert withinBorders(x, y);
+		return chunkAt(chunkOf(x, y)).squares[offsetOf(x, y)];
+	}
+
+	@Override
+	boolean isAccessible(int x, int y, Unit unit) {
+		int kind = encoded[chunkOf(x, y)][offsetOf(x, y)] & KIND;
+		return prototypes[kind].isAccessibleTo(unit);
+	}
+
+	@Override
+	public int neighbourOf(int index, Direction direction) {
+		int x = index % getWidth();
+		int y = index / getWidth();
+		if (!links.isEmpty()) {
+			Square linked = links.get(linkOf(x, y, direction));
+			if (linked != null) {
+				if (linked.getBoard() != this) {
+					return ELSEWHERE;
+				}
+				return linked.getY() * getWidth() + linked.getX();
+			}
+		}
+		int nx = Math.floorMod(x + direction.getDeltaX(), getWidth());
+		int ny = Math.floorMod(y + direction.getDeltaY(), getHeight());
+		return ny * getWidth() + nx;
+	}
+
+	@Override
+	public boolean isAccessible(int index, Unit unit) {
+		return isAccessible(index % getWidth(), index / getWidth(), unit);
+	}
+
+	@Override
+	public int occupantCount(int index) {
+		int x = index % getWidth();
+		int y = index / getWidth();
+		int count = 0;
+		Chunk chunk = materialized(chunkOf(x, y));
+		if (chunk != null) {
+			count = chunk.squares[offsetOf(x, y)].occupantCount();
+			if (chunk.awake) {
+				return count;
+			}
+		}
+		if ((encoded[chunkOf(x, y)][offsetOf(x, y)] & DORMANT) != 0) {
+			count++;
+		}
+		return count;
+	}
+
+	@Override
+	public int countUnits(Class<? extends Unit> type) {
+		synchronized (resident) {
+			int count = super.countUnits(type);
+			if (dormantPrototype != null && type.isInstance(dormantPrototype)) {
+				count += dormant;
+			}
+			return count;
+		}
+	}
+
+	@Override
+	public BitLayer layerOf(Class<? extends Unit> type) {
+		BitLayer layer = trackedLayerOf(type);
+		if (layer != null) {
+			return layer;
+		}
+		synchronized (resident) {
+			return super.layerOf(type);
+		}
+	}
+
+	@Override
+	void markUnlisted(Class<? extends Unit> type, BitLayer layer) {
+		if (dormantPrototype == null || !type.isInstance(dormantPrototype)) {
+			return;
+		}
+		for (int chunk = 0; chunk < encoded.length; chunk++) {
+			int left = (chunk % chunkColumns) * chunkSize;
+			int top = (chunk / chunkColumns) * chunkSize;
+			for (int offset = 0; offset < encoded[chunk].length; offset++) {
+				if ((encoded[chunk][offset] & DORMANT) != 0) {
+					int x = left + offset % chunkSize;
+					int y = top + offset / chunkSize;
+					layer.set(y * getWidth() + x);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The number of squares along each side of a chunk.
+	 */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * @return The number of chunks, with or without square objects.
+	 */
+	public int chunkCount() {
+		return encoded.length;
+	}
+
+	/**
+	 * @return The number of chunks that are awake.
+	 */
+	public int residentChunks() {
+		synchronized (resident) {
+			return resident.size();
+		}
+	}
+
+	/**
+	 * @return The number of chunks that have square objects.
+	 */
+	public int materializedChunks() {
+		int count = 0;
+		for (int i = 0; i < chunks.length(); i++) {
+			if (materialized(i) != null) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return The number of times a chunk got square objects, the first
+	 *         time it was used or again after it was collected.
+	 */
+	public long getMaterializations() {
+		return materializations.get();
+	}
+
+	private int chunkOf(int x, int y) {
+		return (y / chunkSize) * chunkColumns + x / chunkSize;
+	}
+
+	private int offsetOf(int x, int y) {
+		return (y % chunkSize) * chunkSize + x % chunkSize;
+	}
+
+	private long linkOf(int x, int y, Direction direction) {
+		long cell = (long) y * getWidth() + x;
+		return cell * Direction.values().length + direction.ordinal();
+	}
+
+	/**
+	 * @return The chunk with an index if it has square objects, or
+	 *         <code>null</code> if it has none.
+	 */
+	private Chunk materialized(int index) {
+		WeakReference<Chunk> reference = chunks.get(index);
+		if (reference == null) {
+			return null;
+		}
+		return reference.get();
+	}
+
+	/**
+	 * Returns an awake chunk, waking it if need be, and marks it as used.
+	 */
+	private Chunk chunkAt(int index) {
+		Chunk chunk = materialized(index);
+		if (chunk == null || !chunk.awake) {
+			return wake(index);
+		}
+		long now = clock;
+		if (chunk.lastUsed != now) {
+			chunk.lastUsed = now;
+		}
+		return chunk;
+	}
+
+	/**
+	 * Wakes a chunk, creating its square objects if need be, after evicting
+	 * the least recently used chunk if too many are awake.
+	 */
+	private Chunk wake(int index) {
+		synchronized (resident) {
+			Chunk chunk = materialized(index);
+			if (chunk == null) {
+				chunk = new Chunk(index);
+				chunks.set(index, new WeakReference<>(chunk));
+				materializations.incrementAndGet();
+			}
+			if (!chunk.awake) {
+				evict();
+				chunk.wake();
+				resident.add(chunk);
+			}
+			long now = clock + 1;
+			clock = now;
+			chunk.lastUsed = now;
+			return chunk;
+		}
+	}
+
+	/**
+	 * Evicts the least recently used chunk without other units than dormant
+	 * ones on it, if there is no room for another awake chunk.
+	 */
+	private void evict() {
+		if (resident.size() < residentLimit) {
+			return;
+		}
+		Chunk victim = null;
+		for (Chunk chunk : resident) {
+			if (chunk.occupants == 0
+					&& (victim == null || chunk.lastUsed < victim.lastUsed)) {
+				victim = chunk;
+			}
+		}
+		if (victim != null) {
+			resident.remove(victim);
+			victim.sleep();
+		}
+	}
+
+	/**
+	 * @return <code>true</code> iff a unit can be kept as a bit.
+	 */
+	private boolean isDormant(Unit unit) {
+		return dormantPrototype != null
+				&& unit.getClass() == dormantPrototype.getClass()
+				&& unit.getDirection() == dormantPrototype.getDirection();
+	}
+
+	/**
+	 * The square objects of a chunk.
+	 */
+	private final class Chunk {
+
+		/**
+		 * The index of the chunk.
+		 */
+		private final int index;
+
+		/**
+		 * The squares of the chunk, with the square at <code>x,y</code> within
+		 * the chunk at <code>y * chunkSize + x</code>, or <code>null</code>
+		 * for positions beyond the edges of the board.
+		 */
+		private final Tile[] squares;
+
+		/**
+		 * Whether the chunk is awake, with its dormant units on its squares.
+		 */
+		private volatile boolean awake;
+
+		/**
+		 * The {@link ChunkedBoard#clock} when the chunk was last used.
+		 */
+		private volatile long lastUsed;
+
+		/**
+		 * The number of units on the squares of the chunk that cannot be kept
+		 * as bits.
+		 */
+		private int occupants;
+
+		/**
+		 * Creates the square objects of a chunk from its encoded form.
+		 *
+		 * @param chunkIndex
+		 *            The index of the chunk.
+		 */
+		Chunk(int chunkIndex) {
+			this.index = chunkIndex;
+			this.squares = new Tile[chunkSize * chunkSize];
+			int left = (chunkIndex % chunkColumns) * chunkSize;
+			int top = (chunkIndex / chunkColumns) * chunkSize;
+			int right = Math.min(left + chunkSize, getWidth());
+			int bottom = Math.min(top + chunkSize, getHeight());
+			for (int y = top; y < bottom; y++) {
+				for (int x = left; x < right; x++) {
+					int offset = offsetOf(x, y);
+					squares[offset] = new Tile(this, x, y,
+							(byte) (encoded[chunkIndex][offset] & KIND));
+				}
+			}
+		}
+
+		/**
+		 * Creates the dormant units of the chunk and puts them on their
+		 * squares.
+		 */
+		void wake() {
+			byte[] data = encoded[index];
+			for (int offset = 0; offset < data.length; offset++) {
+				if ((data[offset] & DORMANT) != 0) {
+					data[offset] &= KIND;
+					dormant--;
+					Unit unit = dormantFactory.get();
+					unit.settle(squares[offset]);
+					unitEntered(unit);
+				}
+			}
+			awake = true;
+		}
+
+		/**
+		 * Takes the dormant units off the squares of the chunk, keeping one
+		 * bit for each square with one on it.
+		 */
+		void sleep() {
+			awake = false;
+			byte[] data = encoded[index];
+			for (int offset = 0; offset < squares.length; offset++) {
+				Tile tile = squares[offset];
+				for (int i = occupantsOf(tile) - 1; i >= 0; i--) {
+					Unit unit = tile.getOccupant(i);
+					if (isDormant(unit) && (data[offset] & DORMANT) == 0) {
+						unit.unsettle();
+						unitLeft(unit);
+						data[offset] |= DORMANT;
+						dormant++;
+					}
+				}
+			}
+		}
+
+		private int occupantsOf(Tile tile) {
+			if (tile == null) {
+				return 0;
+			}
+			return tile.occupantCount();
+		}
+	}
+
+	/**
+	 * A square of a chunked board. It keeps its chunk alive, and its chunk
+	 * keeps it alive.
+	 */
+	private final class Tile extends Square {
+
+		/**
+		 * The chunk this square is in.
+		 */
+		private final Chunk chunk;
+
+		/**
+		 * The kind of this square.
+		 */
+		private final byte kind;
+
+		/**
+		 * Creates a square.
+		 *
+		 * @param owner
+		 *            The chunk of the square.
+		 * @param x
+		 *            The column of the square on the board.
+		 * @param y
+		 *            The row of the square on the board.
+		 * @param squareKind
+		 *            The kind of the square.
+		 */
+		Tile(Chunk owner, int x, int y, byte squareKind) {
+			this.chunk = owner;
+			this.kind = squareKind;
+			place(ChunkedBoard.this, x, y);
+		}
+
+		@Override
+		public Square getSquareAt(Direction direction) {
+			if (!links.isEmpty()) {
+				Square linked = links.get(linkOf(getX(), getY(), direction));
+				if (linked != null) {
+					return linked;
+				}
+			}
+			int x = Math.floorMod(getX() + direction.getDeltaX(), getWidth());
+			int y = Math.floorMod(getY() + direction.getDeltaY(), getHeight());
+			if (chunk.awake && x / chunkSize == getX() / chunkSize
+					&& y / chunkSize == getY() / chunkSize) {
+				return chunk.squares[offsetOf(x, y)];
+			}
+			return squareAt(x, y);
+		}
+
+		@Override
+		public void link(Square neighbour, Direction direction) {
+			links.put(linkOf(getX(), getY(), direction), neighbour);
+		}
+
+		@Override
+		void put(Unit occupant) {
+			synchronized (resident) {
+				if (!isDormant(occupant)) {
+					if (!chunk.awake) {
+						wake(chunk.index);
+					}
+					chunk.occupants++;
+				}
+				super.put(occupant);
+			}
+		}
+
+		@Override
+		boolean remove(Unit occupant) {
+			synchronized (resident) {
+				boolean removed = super.remove(occupant);
+				if (removed && !isDormant(occupant)) {
+					chunk.occupants--;
+				}
+				return removed;
+			}
+		}
+
+		@Override
+		public boolean isAccessibleTo(Unit unit) {
+			return prototypes[kind].isAccessibleTo(unit);
+		}
+
+		@Override
+		public Sprite getSprite() {
+			return prototypes[kind].getSprite();
+		}
+	}
+}
@@ -0,0 +1,224 @@
+package nl.tudelft.jpacman.board;
+
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.collect.MapMaker;
+
+import nl.tudelft.jpacman.sprite.Sprite;
+
+/**
+ * A {@link Board} that keeps its squares in flat arrays instead of as
+ * objects. Every square is an index, <code>y * width + x</code>, into an
+ * array of kinds, an array of the indices of its four neighbours and an array
+ * counting its occupants, which takes about twenty bytes per square.
+ * <p>
+ * {@link Square} objects are only created when they are asked for, as views
+ * of an index. A view lives as long as someone holds on to it, such as a unit
+ * occupying it, and asking for the same square meanwhile returns the same
+ * view, so squares can still be compared by identity. Views nobody holds on
+ * to are garbage collected and created anew when needed. Code that walks the
+ * board square by square can use the indices directly, as an
+ * {@link IndexedBoard}, and not create views at all.
+ * <p>
+ * The occupants of a square are kept by its view. A unit holds on to the
+ * square it occupies, so a view with occupants stays in use either way.
+ */
+public final class CompactBoard extends Board implements IndexedBoard {
+
+	/**
+	 * The number of neighbours of every square.
+	 */
+	private static final int WAYS = Direction.values().length;
+
+	/**
+	 * The square every kind of square behaves like, by kind.
+	 */
+	private final Square[] prototypes;
+
+	/**
+	 * The kind of every square, an index into {@link #prototypes}.
+	 */
+	private final byte[] kinds;
+
+	/**
+	 * The index of the neighbour of every square in every direction, at
+	 * <code>index * 4 + direction.ordinal()</code>.
+	 */
+	private final int[] neighbours;
+
+	/**
+	 * The number of units occupying every square.
+	 */
+	private final int[] occupancy;
+
+	/**
+	 * The views of the squares that are in use, by index.
+	 */
+	private final ConcurrentMap<Integer, Square> views = new MapMaker()
+			.weakValues().makeMap();
+
+	/**
+	 * Creates a board of which every square behaves like one of a few
+	 * prototypes, linked to its neighbours around the edges of the board.
+	 *
+	 * @param kindPrototypes
+	 *            The square every kind of square behaves like, at most 128.
+	 * @param squareKinds
+	 *            The kind of every square, with <code>squareKinds[x][y]</code>
+	 *            the kind of the square at <code>x,y</code>.
+	 */
+	CompactBoard(Square[] kindPrototypes, byte[][] squareKinds) {
+		super(squareKinds.length, squareKinds[0].length);
+		assert kindPrototypes.length <= Byte.MAX_VALUE + 1;
+		int width = getWidth();
+		int height = getHeight();
+		this.prototypes = kindPrototypes.clone();
+		this.kinds = new byte[width * height];
+		this.neighbours = new int[width * height * WAYS];
+		this.occupancy = new int[width * height];
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				int index = y * width + x;
+				kinds[index] = squareKinds[x][y];
+				for (Direction d : Direction.values()) {
+					int nx = (width + x + d.getDeltaX()) % width;
+					int ny = (height + y + d.getDeltaY()) % height;
+					neighbours[index * WAYS + d.ordinal()] = ny * width + nx;
+				}
+			}
+		}
+	}
+
+	@Override
+	public Square squareAt(int x, int y) {
+		assert withinBorders(x, y);
+		return squareAt(y * getWidth() + x);
+	}
+
+	/**
+	 * Returns the view of a square.
+	 *
+	 * @param index
+	 *            The index of the square, <code>y * width + x</code>.
+	 * @return The view of the square, the same as long as it is in use.
+	 */
+	public Square squareAt(int index) {
+		Square view = views.get(index);
+		if (view == null) {
+			Square created = new View(index);
+			view = views.putIfAbsent(index, created);
+			if (view == null) {
+				view = created;
+			}
+		}
+		return view;
+	}
+
+	/**
+	 * @param square
+	 *            A square of this board.
+	 * @return The index of the square, <code>y * width + x</code>.
+	 */
+	public int indexOf(Square square) {
+		assert square.getBoard() == this;
+		return square.getY() * getWidth() + square.getX();
+	}
+
+	@Override
+	public int neighbourOf(int index, Direction direction) {
+		return neighbours[index * WAYS + direction.ordinal()];
+	}
+
+	@Override
+	public boolean isAccessible(int index, Unit unit) {
+		return prototypes[kinds[index]].isAccessibleTo(unit);
+	}
+
+	@Override
+	boolean isAccessible(int x, int y, Unit unit) {
+		return isAccessible(y * getWidth() + x, unit);
+	}
+
+	@Override
+	public int occupantCount(int index) {
+		return occupancy[index];
+	}
+
+	/**
+	 * @return The number of squares of which a view is currently in use, or
+	 *         was until recently.
+	 */
+	public int viewCount() {
+		return views.size();
+	}
+
+	/**
+	 * A square of a compact board, created on demand. It keeps its own
+	 * occupants, which keep it alive, and looks everything else up in the
+	 * arrays of the board.
+	 */
+	private final class View extends Square {
+
+		/**
+		 * The index of the square.
+		 */
+		private final int index;
+
+		/**
+		 * Creates a view.
+		 *
+		 * @param position
+		 *            The index of the square.
+		 */
+		View(int position) {
+			this.index = position;
+			place(CompactBoard.this, position % getWidth(),
+					position / getWidth());
+		}
+
+		@Override
+		public Square getSquareAt(Direction direction) {
+			return squareAt(neighbourOf(index, direction));
+		}
+
+		/**
+		 * Links this square to another square of the same board.
+		 *
+		 * @throws IllegalArgumentException
+		 *             If the neighbour is not a square of this board.
+		 */
+		@Override
+		public void link(Square neighbour, Direction direction) {
+			if (neighbour.getBoard() != CompactBoard.this) {
+				throw new IllegalArgumentException(
+						"Squares of a compact board only link to each other.");
+			}
+			neighbours[index * WAYS + direction.ordinal()] = indexOf(neighbour);
+		}
+
+		@Override
+		public boolean isAccessibleTo(Unit unit) {
+			return isAccessible(index, unit);
+		}
+
+		@Override
+		public Sprite getSprite() {
+			return prototypes[kinds[index]].getSprite();
+		}
+
+		@Override
+		void put(Unit occupant) {
+			super.put(occupant);
+			occupancy[index]++;
+		}
+
+		@Override
+		boolean remove(Unit occupant) {
+			if (!super.remove(occupant)) {
+				return false;
+			}
+			occupancy[index]--;
+			return true;
+		}
+	}
+}
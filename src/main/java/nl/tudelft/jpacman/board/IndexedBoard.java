@@ -0,0 +1,42 @@
+package nl.tudelft.jpacman.board;
+
+/**
+ * A board that can be walked by the indices of its squares instead of as
+ * {@link Square} objects, for boards that only create square objects when
+ * they are asked for. The index of the square at <code>x,y</code> is
+ * <code>y * width + x</code>.
+ */
+public interface IndexedBoard {
+
+	/**
+	 * Marks a neighbour that is not a square of the board.
+	 */
+	int ELSEWHERE = -1;
+
+	/**
+	 * @param index
+	 *            The index of a square.
+	 * @param direction
+	 *            A direction.
+	 * @return The index of the neighbour of the square in that direction, or
+	 *         {@link #ELSEWHERE} if the neighbour is not a square of this
+	 *         board, in which case the square object knows it.
+	 */
+	int neighbourOf(int index, Direction direction);
+
+	/**
+	 * @param index
+	 *            The index of a square.
+	 * @param unit
+	 *            The unit to grant or deny access.
+	 * @return <code>true</code> iff the unit is allowed to occupy the square.
+	 */
+	boolean isAccessible(int index, Unit unit);
+
+	/**
+	 * @param index
+	 *            The index of a square.
+	 * @return The number of units occupying the square.
+	 */
+	int occupantCount(int index);
+}
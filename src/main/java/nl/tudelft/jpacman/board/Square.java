@@ -1,6 +1,7 @@
 package nl.tudelft.jpacman.board;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
@@ -18,21 +19,64 @@ import nl.tudelft.jpacman.sprite.Sprite;
 public abstract class Square {
 
 	/**
-	 * The units occupying this square, in order of appearance.
+	 * The number of extra occupants an overflowing square makes room for at a
+	 * time.
 	 */
-	private final List<Unit> occupants;
+	private static final int SPILL = 2;
 
 	/**
-	 * The collection of squares adjacent to this square.
+	 * The unit that occupied this square first, or <code>null</code>.
 	 */
-	private final Map<Direction, Square> neighbours;
+	private Unit first;
+
+	/**
+	 * The unit that occupied this square second, or <code>null</code>.
+	 */
+	private Unit second;
+
+	/**
+	 * The units that occupied this square after the first two, in order of
+	 * appearance, or <code>null</code> if there never were more than two.
+	 */
+	private Unit[] spilled;
+
+	/**
+	 * The number of units occupying this square.
+	 */
+	private int occupantCount;
+
+	/**
+	 * A read-only view of the occupants, or <code>null</code> until it is
+	 * asked for.
+	 */
+	private List<Unit> occupantView;
+
+	/**
+	 * The collection of squares adjacent to this square, or <code>null</code>
+	 * until the first one is linked.
+	 */
+	private Map<Direction, Square> neighbours;
+
+	/**
+	 * The board this square is on, or <code>null</code> if it is not on a
+	 * board (yet).
+	 */
+	private Board board;
+
+	/**
+	 * The column of this square on its board.
+	 */
+	private int x;
+
+	/**
+	 * The row of this square on its board.
+	 */
+	private int y;
 
 	/**
 	 * Creates a new, empty square.
 	 */
 	protected Square() {
-		this.occupants = new ArrayList<>();
-		this.neighbours = new EnumMap<>(Direction.class);
 		assert invariant();
 	}
 
@@ -44,6 +88,9 @@ public abstract class Square {
 	 * @return The adjacent square in the given direction.
 	 */
 	public Square getSquareAt(Direction direction) {
+		if (neighbours == null) {
+			return null;
+		}
 		return neighbours.get(direction);
 	}
 
@@ -57,10 +104,59 @@ public abstract class Square {
 	 *            The direction the new neighbour is in, as seen from this cell.
 	 */
 	public void link(Square neighbour, Direction direction) {
+		if (neighbours == null) {
+			neighbours = new EnumMap<>(Direction.class);
+		}
 		neighbours.put(direction, neighbour);
 		assert invariant();
 	}
 
+	/**
+	 * Places this square on a board.
+	 * 
+	 * @param owner
+	 *            The board this square is on.
+	 * @param column
+	 *            The <code>x</code> position (column) of this square.
+	 * @param row
+	 *            The <code>y</code> position (row) of this square.
+	 */
+	void place(Board owner, int column, int row) {
+		this.board = owner;
+		this.x = column;
+		this.y = row;
+	}
+
+	/**
+	 * Returns the board this square is on.
+	 * 
+	 * @return The board this square is on, or <code>null</code> if it is not
+	 *         on a board.
+	 */
+	public Board getBoard() {
+		return board;
+	}
+
+	/**
+	 * Returns the column of this square on its board.
+	 * 
+	 * @return The <code>x</code> position of this square, only meaningful if
+	 *         it is on a board.
+	 */
+	public int getX() {
+		return x;
+	}
+
+	/**
+	 * Returns the row of this square on its board.
+	 * 
+	 * @return The <code>y</code> position of this square, only meaningful if
+	 *         it is on a board.
+	 */
+	public int getY() {
+		return y;
+	}
+
 	/**
 	 * Returns an immutable list of units occupying this square, in the order in
 	 * which they occupied this square (i.e. oldest first.)
@@ -69,7 +165,60 @@ public abstract class Square {
 	 *         which they occupied this square (i.e. oldest first.)
 	 */
 	public List<Unit> getOccupants() {
-		return ImmutableList.copyOf(occupants);
+		switch (occupantCount) {
+			case 0:
+				return ImmutableList.of();
+			case 1:
+				return ImmutableList.of(first);
+			default:
+				return ImmutableList.copyOf(getOccupantView());
+		}
+	}
+
+	/**
+	 * Returns a read-only view of the units occupying this square, in the
+	 * order in which they occupied this square. Unlike
+	 * {@link #getOccupants()} this copies nothing, but the view changes along
+	 * with the square, so it must not be iterated over while units enter or
+	 * leave the square. Take a copy for that.
+	 * 
+	 * @return A live, unmodifiable list of the units occupying this square,
+	 *         oldest first.
+	 */
+	public List<Unit> getOccupantView() {
+		if (occupantView == null) {
+			occupantView = new OccupantView();
+		}
+		return occupantView;
+	}
+
+	/**
+	 * @return The number of units occupying this square.
+	 */
+	public int occupantCount() {
+		return occupantCount;
+	}
+
+	/**
+	 * Returns one of the units occupying this square, without copying them.
+	 * 
+	 * @param index
+	 *            The position of the unit in order of appearance, from
+	 *            <code>0</code> up to {@link #occupantCount()}.
+	 * @return The unit at that position.
+	 */
+	public Unit getOccupant(int index) {
+		if (index < 0 || index >= occupantCount) {
+			throw new IndexOutOfBoundsException(Integer.toString(index));
+		}
+		switch (index) {
+			case 0:
+				return first;
+			case 1:
+				return second;
+			default:
+				return spilled[index - 2];
+		}
 	}
 
 	/**
@@ -80,9 +229,33 @@ public abstract class Square {
 	 */
 	void put(Unit occupant) {
 		assert occupant != null;
-		assert !occupants.contains(occupant);
-		
-		occupants.add(occupant);
+		assert !getOccupantView().contains(occupant);
+
+		switch (occupantCount) {
+			case 0:
+				first = occupant;
+				break;
+			case 1:
+				second = occupant;
+				break;
+			default:
+				spill(occupant);
+				break;
+		}
+		occupantCount++;
+	}
+
+	/**
+	 * Stores an occupant after the first two, making room for it if need be.
+	 */
+	private void spill(Unit occupant) {
+		int index = occupantCount - 2;
+		if (spilled == null) {
+			spilled = new Unit[SPILL];
+		} else if (index == spilled.length) {
+			spilled = Arrays.copyOf(spilled, spilled.length + SPILL);
+		}
+		spilled[index] = occupant;
 	}
 
 	/**
@@ -90,10 +263,37 @@ public abstract class Square {
 	 * 
 	 * @param occupant
 	 *            The unit to be removed from this square.
+	 * @return <code>true</code> iff the unit was present.
 	 */
-	void remove(Unit occupant) {
+	boolean remove(Unit occupant) {
 		assert occupant != null;
-		occupants.remove(occupant);
+		int index = getOccupantView().indexOf(occupant);
+		if (index < 0) {
+			return false;
+		}
+		for (int i = index; i < occupantCount - 1; i++) {
+			setOccupant(i, getOccupant(i + 1));
+		}
+		occupantCount--;
+		setOccupant(occupantCount, null);
+		return true;
+	}
+
+	/**
+	 * Stores an occupant at a position, which has room for it.
+	 */
+	private void setOccupant(int index, Unit occupant) {
+		switch (index) {
+			case 0:
+				first = occupant;
+				break;
+			case 1:
+				second = occupant;
+				break;
+			default:
+				spilled[index - 2] = occupant;
+				break;
+		}
 	}
 
 	/**
@@ -104,7 +304,8 @@ public abstract class Square {
 	 *         square listed as the square they are currently occupying.
 	 */
 	protected final boolean invariant() {
-		for (Unit occupant : occupants) {
+		for (int i = 0; i < occupantCount; i++) {
+			Unit occupant = getOccupant(i);
 			if (occupant.getSquare() != this) {
 				return false;
 			}
@@ -128,4 +329,19 @@ public abstract class Square {
 	 */
 	public abstract Sprite getSprite();
 
+	/**
+	 * A live, read-only view of the occupants of this square.
+	 */
+	private final class OccupantView extends AbstractList<Unit> {
+
+		@Override
+		public Unit get(int index) {
+			return getOccupant(index);
+		}
+
+		@Override
+		public int size() {
+			return occupantCount;
+		}
+	}
 }
@@ -0,0 +1,93 @@
+package nl.tudelft.jpacman.board;
+
+/**
+ * A Zobrist hash of the units on a {@link Board}: the exclusive or of a
+ * pseudo-random key for every unit, given by the type of the unit, the square
+ * it is on and the direction it faces. Units entering, leaving, moving or turning
+ * toggle their keys in and out, so the hash is kept up to date in constant
+ * time and equal states have equal hashes regardless of how they came about.
+ * <p>
+ * The key of a unit is computed when it is needed, by mixing a fixed seed
+ * and the name of its type with its square and direction, so boards of the
+ * same size agree on the hash of the same state, also across runs, and no
+ * memory is spent on tables of keys. Changes are made by one thread at a
+ * time, while the hash may be read concurrently.
+ */
+final class StateHash {
+
+	/**
+	 * The seed all keys are computed from.
+	 */
+	private static final long SEED = 0x5eedL;
+
+	/**
+	 * The number of directions a unit can face.
+	 */
+	private static final int DIRECTIONS = Direction.values().length;
+
+	/**
+	 * The first multiplier of the SplitMix64 finalizer.
+	 */
+	private static final long MIX_FIRST = 0xbf58476d1ce4e5b9L;
+
+	/**
+	 * The second multiplier of the SplitMix64 finalizer.
+	 */
+	private static final long MIX_SECOND = 0x94d049bb133111ebL;
+
+	/**
+	 * The first shift of the SplitMix64 finalizer.
+	 */
+	private static final int SHIFT_FIRST = 30;
+
+	/**
+	 * The second shift of the SplitMix64 finalizer.
+	 */
+	private static final int SHIFT_SECOND = 27;
+
+	/**
+	 * The last shift of the SplitMix64 finalizer.
+	 */
+	private static final int SHIFT_THIRD = 31;
+
+	/**
+	 * The current hash.
+	 */
+	private volatile long hash;
+
+	/**
+	 * @return The current hash.
+	 */
+	long get() {
+		return hash;
+	}
+
+	/**
+	 * Toggles the key of a unit in or out of the hash.
+	 *
+	 * @param unit
+	 *            The unit.
+	 * @param cell
+	 *            The position of its square, as <code>y * width + x</code>.
+	 * @param direction
+	 *            The direction it faces.
+	 */
+	synchronized void toggle(Unit unit, int cell, Direction direction) {
+		int slot = cell * DIRECTIONS + direction.ordinal();
+		hash ^= mix64(mix64(seedOf(unit.getClass())) ^ slot);
+	}
+
+	private static long seedOf(Class<?> type) {
+		return SEED ^ type.getName().hashCode();
+	}
+
+	/**
+	 * Scrambles the bits of a value with the finalizer of SplitMix64, so
+	 * values that differ in a single bit give unrelated results.
+	 */
+	private static long mix64(long value) {
+		long z = (value ^ (value >>> SHIFT_FIRST)) * MIX_FIRST;
+		z = (z ^ (z >>> SHIFT_SECOND)) * MIX_SECOND;
+		return z ^ (z >>> SHIFT_THIRD);
+	}
+}
@@ -31,7 +31,13 @@ public abstract class Unit {
 	 * @param newDirection The new direction this unit is facing.
 	 */
 	public void setDirection(Direction newDirection) {
+		if (square != null) {
+			toggleState(square);
+		}
 		this.direction = newDirection;
+		if (square != null) {
+			toggleState(square);
+		}
 	}
 	
 	/**
@@ -63,11 +69,26 @@ public abstract class Unit {
 	public void occupy(Square target) {
 		assert target != null;
 		
+		Board from = null;
 		if (square != null) {
-			square.remove(this);
+			from = square.getBoard();
+			vacate(square);
 		}
 		square = target;
 		target.put(this);
+		Board to = target.getBoard();
+		if (to != null) {
+			to.toggleState(this, target, direction);
+			to.squareOccupied(this, target);
+		}
+		if (from != to) {
+			if (from != null) {
+				from.unitLeft(this);
+			}
+			if (to != null) {
+				to.unitEntered(this);
+			}
+		}
 		assert invariant();
 	}
 	
@@ -76,12 +97,69 @@ public abstract class Unit {
 	 */
 	public void leaveSquare() {
 		if (square != null) {
-			square.remove(this);
+			vacate(square);
+			Board from = square.getBoard();
+			if (from != null) {
+				from.unitLeft(this);
+			}
 			square = null;
 		}
 		assert invariant();
 	}
 
+	/**
+	 * Puts this unit on a square without telling the board of the square, for
+	 * a board that already accounts for the unit being there.
+	 * 
+	 * @param target
+	 *            The square to occupy, while this unit is not on a square.
+	 */
+	void settle(Square target) {
+		assert square == null;
+		square = target;
+		target.put(this);
+	}
+
+	/**
+	 * Takes this unit off its square without telling the board of the
+	 * square, for a board that keeps accounting for the unit being there.
+	 */
+	void unsettle() {
+		assert square != null;
+		square.remove(this);
+		square = null;
+	}
+
+	/**
+	 * Removes this unit from a square, and from the state hash and the bit
+	 * layers of the board of the square, if it is on a board.
+	 * 
+	 * @param on
+	 *            The square this unit leaves.
+	 */
+	private void vacate(Square on) {
+		on.remove(this);
+		Board board = on.getBoard();
+		if (board != null) {
+			board.toggleState(this, on, direction);
+			board.squareVacated(this, on);
+		}
+	}
+
+	/**
+	 * Toggles this unit on a square in or out of the state hash of the board
+	 * of the square, if it is on a board.
+	 * 
+	 * @param on
+	 *            The square this unit occupies or leaves.
+	 */
+	private void toggleState(Square on) {
+		Board board = on.getBoard();
+		if (board != null) {
+			board.toggleState(this, on, direction);
+		}
+	}
+
 	/**
 	 * Tests whether the square this unit is occupying has this unit listed as
 	 * one of its occupiers.
@@ -91,7 +169,7 @@ public abstract class Unit {
 	 *         not occupying any square.
 	 */
 	protected boolean invariant() {
-		return square == null || square.getOccupants().contains(this);
+		return square == null || square.getOccupantView().contains(this);
 	}
 
 	/**
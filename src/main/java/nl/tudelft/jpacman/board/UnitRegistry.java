@@ -0,0 +1,105 @@
+package nl.tudelft.jpacman.board;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of the units on a {@link Board}, grouped by the types units are
+ * looked up by. A group is created the first time a type is asked for and is
+ * kept up to date from then on, so finding all units of a type does not
+ * require a walk over the board.
+ * <p>
+ * Changes are made by one thread at a time, while lookups may happen
+ * concurrently and see the units of a group in any order.
+ */
+final class UnitRegistry {
+
+	/**
+	 * All units on the board.
+	 */
+	private final Set<Unit> units = newUnitSet();
+
+	/**
+	 * The units on the board by the types they have been looked up by.
+	 */
+	private final Map<Class<?>, Group> groups = new ConcurrentHashMap<>();
+
+	private static Set<Unit> newUnitSet() {
+		return Collections.newSetFromMap(new ConcurrentHashMap<Unit, Boolean>());
+	}
+
+	/**
+	 * Adds a unit that arrived on the board.
+	 *
+	 * @param unit
+	 *            The unit to add.
+	 */
+	synchronized void add(Unit unit) {
+		units.add(unit);
+		for (Map.Entry<Class<?>, Group> e : groups.entrySet()) {
+			if (e.getKey().isInstance(unit)) {
+				e.getValue().members.add(unit);
+			}
+		}
+	}
+
+	/**
+	 * Removes a unit that left the board.
+	 *
+	 * @param unit
+	 *            The unit to remove.
+	 */
+	synchronized void remove(Unit unit) {
+		units.remove(unit);
+		for (Group group : groups.values()) {
+			group.members.remove(unit);
+		}
+	}
+
+	/**
+	 * Returns the units of a type that are on the board.
+	 *
+	 * @param type
+	 *            The type of unit to look up.
+	 * @return A live, unmodifiable view of the units of that type.
+	 */
+	Set<Unit> unitsOf(Class<? extends Unit> type) {
+		Group group = groups.get(type);
+		if (group == null) {
+			group = track(type);
+		}
+		return group.view;
+	}
+
+	private synchronized Group track(Class<? extends Unit> type) {
+		Group group = groups.get(type);
+		if (group == null) {
+			group = new Group();
+			for (Unit unit : units) {
+				if (type.isInstance(unit)) {
+					group.members.add(unit);
+				}
+			}
+			groups.put(type, group);
+		}
+		return group;
+	}
+
+	/**
+	 * The units of a single type.
+	 */
+	private static final class Group {
+
+		/**
+		 * The units of the type.
+		 */
+		private final Set<Unit> members = newUnitSet();
+
+		/**
+		 * The read-only view handed out to lookups.
+		 */
+		private final Set<Unit> view = Collections.unmodifiableSet(members);
+	}
+}
@@ -0,0 +1,68 @@
+package nl.tudelft.jpacman.level;
+
+import java.util.concurrent.RecursiveAction;
+
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.npc.NPC;
+
+/**
+ * Asks a range of NPCs for their next move on a fork-join pool. The range is
+ * split in halves until every NPC decides in a task of its own, so the
+ * decisions of a tick are spread over all threads of the pool. NPCs only
+ * read the board while deciding; the moves are applied afterwards.
+ */
+final class DecisionTask extends RecursiveAction {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The NPCs that decide.
+	 */
+	private final NPC[] npcs;
+
+	/**
+	 * The decisions, at the same positions as the NPCs that made them.
+	 */
+	private final Direction[] moves;
+
+	/**
+	 * The position of the first NPC of the range.
+	 */
+	private final int from;
+
+	/**
+	 * The position just after the last NPC of the range.
+	 */
+	private final int to;
+
+	/**
+	 * Creates a new task.
+	 *
+	 * @param units
+	 *            The NPCs that decide.
+	 * @param decisions
+	 *            The array to store the next move of every NPC in, or
+	 *            <code>null</code> if it has none.
+	 * @param first
+	 *            The position of the first NPC of the range.
+	 * @param end
+	 *            The position just after the last NPC of the range.
+	 */
+	DecisionTask(NPC[] units, Direction[] decisions, int first, int end) {
+		this.npcs = units;
+		this.moves = decisions;
+		this.from = first;
+		this.to = end;
+	}
+
+	@Override
+	protected void compute() {
+		if (to - from == 1) {
+			moves[from] = npcs[from].nextMove();
+			return;
+		}
+		int middle = (from + to) >>> 1;
+		invokeAll(new DecisionTask(npcs, moves, from, middle),
+				new DecisionTask(npcs, moves, middle, to));
+	}
+}
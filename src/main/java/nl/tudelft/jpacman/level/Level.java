@@ -1,13 +1,14 @@
 package nl.tudelft.jpacman.level;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -16,6 +17,7 @@ import nl.tudelft.jpacman.board.Direction;
 import nl.tudelft.jpacman.board.Square;
 import nl.tudelft.jpacman.board.Unit;
 import nl.tudelft.jpacman.npc.NPC;
+import nl.tudelft.jpacman.npc.ghost.FlowField;
 
 /**
  * A level of Pac-Man. A level consists of the board with the players and the
@@ -26,6 +28,11 @@ import nl.tudelft.jpacman.npc.NPC;
 @SuppressWarnings("PMD.TooManyMethods")
 public class Level {
 
+	/**
+	 * The default time between two ticks in tick mode, in milliseconds.
+	 */
+	public static final long DEFAULT_TICK_LENGTH = 10L;
+
 	/**
 	 * The board of this level.
 	 */
@@ -43,7 +50,8 @@ public class Level {
 	private final Object startStopLock = new Object();
 
 	/**
-	 * The NPCs of this level and, if they are running, their schedules.
+	 * The NPCs of this level and, if they are running, their schedules. In
+	 * tick mode, moves are applied in the order of this map.
 	 */
 	private final Map<NPC, ScheduledExecutorService> npcs;
 
@@ -83,6 +91,28 @@ public class Level {
      */
 	private boolean frozen;
 
+	/**
+	 * The distances to the players shared by the ghosts, or
+	 * <code>null</code> if the ghosts search for the players themselves.
+	 */
+	private FlowField flowField;
+
+	/**
+	 * The pool NPCs decide on in tick mode, or <code>null</code> if every NPC
+	 * moves on a schedule of its own.
+	 */
+	private ForkJoinPool tickPool;
+
+	/**
+	 * The time between two ticks in tick mode, in milliseconds.
+	 */
+	private long tickLength = DEFAULT_TICK_LENGTH;
+
+	/**
+	 * The ticks of the running NPCs in tick mode, or <code>null</code>.
+	 */
+	private TickTask ticks;
+
 	/**
 	 * Creates a new level for the board.
 	 *
@@ -104,7 +134,7 @@ public class Level {
 		this.board = b;
 		this.inProgress = false;
 		this.frozen = false;
-		this.npcs = new HashMap<>();
+		this.npcs = new LinkedHashMap<>();
 		for (NPC g : ghosts) {
 			npcs.put(g, null);
 		}
@@ -155,6 +185,55 @@ public class Level {
 		p.occupy(square);
 		startSquareIndex++;
 		startSquareIndex %= startSquares.size();
+		if (flowField != null) {
+			flowField.update(p);
+		}
+	}
+
+	/**
+	 * Attaches a flow field that is kept up to date with the positions of the
+	 * players of this level, so the ghosts chasing them do not have to search
+	 * for them on every move.
+	 *
+	 * @param field
+	 *            The flow field to keep up to date.
+	 */
+	public void setFlowField(FlowField field) {
+		this.flowField = field;
+		if (field != null) {
+			for (Player p : players) {
+				field.update(p);
+			}
+		}
+	}
+
+	/**
+	 * Returns the flow field towards the players of this level.
+	 *
+	 * @return The flow field, or <code>null</code> if there is none.
+	 */
+	public FlowField getFlowField() {
+		return flowField;
+	}
+
+	/**
+	 * Switches the NPCs to tick mode, or back to moving on their own
+	 * schedules. In tick mode a single scheduler ticks at a fixed rate. On
+	 * every tick, all NPCs whose interval has passed decide on their next
+	 * move in parallel on the pool, while no moves are made, after which
+	 * their moves are applied one by one in the order the NPCs were given
+	 * to this level. Takes effect the next time the NPCs are started.
+	 *
+	 * @param pool
+	 *            The pool to decide on, or <code>null</code> to give every NPC
+	 *            a schedule of its own.
+	 * @param length
+	 *            The time between two ticks in milliseconds.
+	 */
+	public void setTickMode(ForkJoinPool pool, long length) {
+		assert length > 0;
+		this.tickPool = pool;
+		this.tickLength = length;
 	}
 
 	/**
@@ -166,6 +245,20 @@ public class Level {
 		return board;
 	}
 
+	/**
+	 * Returns a hash of the state of this level: where its players, ghosts
+	 * and remaining pellets are and which way they face. The hash is updated
+	 * in constant time on every move, so it can be used to recognise states
+	 * seen before, for example in transposition tables, or to check that two
+	 * engines running the same game have not diverged.
+	 *
+	 * @return The 64-bit Zobrist hash of this level.
+	 * @see Board#getStateHash()
+	 */
+	public long getStateHash() {
+		return board.getStateHash();
+	}
+
 	/**
 	 * Moves the unit into the given direction if possible and handles all
 	 * collisions.
@@ -191,6 +284,9 @@ public class Level {
 			if (destination.isAccessibleTo(unit)) {
 				List<Unit> occupants = destination.getOccupants();
 				unit.occupy(destination);
+				if (flowField != null && unit instanceof Player) {
+					flowField.update(unit);
+				}
 				for (Unit occupant : occupants) {
 					collisions.collide(unit, occupant);
 				}
@@ -252,6 +348,10 @@ public class Level {
 	 */
 	// TODO: change this to private and find a way to spy on this method
 	void startNPCs() {
+		if (tickPool != null) {
+			startTicks();
+			return;
+		}
 		for (final NPC npc : npcs.keySet()) {
 			ScheduledExecutorService service = Executors
 					.newSingleThreadScheduledExecutor();
@@ -261,12 +361,44 @@ public class Level {
 		}
 	}
 
+	/**
+	 * Starts ticking all NPCs from a single scheduler.
+	 */
+	private void startTicks() {
+		ScheduledExecutorService service = Executors
+				.newSingleThreadScheduledExecutor();
+		ticks = new TickTask(service, tickPool, System.currentTimeMillis());
+		for (NPC npc : npcs.keySet()) {
+			npcs.put(npc, service);
+		}
+		service.schedule(ticks, tickLength, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Runs a single tick of the NPCs started in tick mode, if any.
+	 *
+	 * @param now
+	 *            The current time in milliseconds.
+	 */
+	void tick(long now) {
+		TickTask task = ticks;
+		if (task != null) {
+			task.tick(now);
+		}
+	}
+
 	/**
 	 * Stops all NPC movement scheduling and interrupts any movements being
 	 * executed.
 	 */
 	// TODO: change this to private and find a way to spy on this method
 	void stopNPCs() {
+		TickTask task = ticks;
+		if (task != null) {
+			task.service.shutdownNow();
+			ticks = null;
+			return;
+		}
 		for (Entry<NPC, ScheduledExecutorService> e : npcs.entrySet()) {
 			e.getValue().shutdownNow();
 		}
@@ -320,17 +452,7 @@ public class Level {
 	 * @return The amount of pellets remaining on the board.
 	 */
 	public int remainingPellets() {
-		Board b = getBoard();
-		int pellets = 0;
-		for (int x = 0; x < b.getWidth(); x++) {
-			for (int y = 0; y < b.getHeight(); y++) {
-				for (Unit u : b.squareAt(x, y).getOccupants()) {
-					if (u instanceof Pellet) {
-						pellets++;
-					}
-				}
-			}
-		}
+		int pellets = getBoard().countUnits(Pellet.class);
 		assert pellets >= 0;
 		return pellets;
 	}
@@ -384,6 +506,112 @@ public class Level {
 	
 	}
 
+	/**
+	 * A task that moves all NPCs whose interval has passed in a single tick
+	 * and reschedules itself after it finished.
+	 */
+	private final class TickTask implements Runnable {
+
+		/**
+		 * The service executing the task.
+		 */
+		private final ScheduledExecutorService service;
+
+		/**
+		 * The pool the NPCs decide on.
+		 */
+		private final ForkJoinPool pool;
+
+		/**
+		 * The NPCs, in the order their moves are applied.
+		 */
+		private final NPC[] order;
+
+		/**
+		 * The time at which every NPC moves next, in milliseconds.
+		 */
+		private final long[] due;
+
+		/**
+		 * The NPCs moving in the current tick.
+		 */
+		private final NPC[] ready;
+
+		/**
+		 * The decisions of the NPCs moving in the current tick.
+		 */
+		private final Direction[] moves;
+
+		/**
+		 * Creates a new task, letting every NPC make its first move after
+		 * half its interval.
+		 *
+		 * @param s
+		 *            The service that executes the task.
+		 * @param p
+		 *            The pool the NPCs decide on.
+		 * @param now
+		 *            The current time in milliseconds.
+		 */
+		TickTask(ScheduledExecutorService s, ForkJoinPool p, long now) {
+			this.service = s;
+			this.pool = p;
+			this.order = npcs.keySet().toArray(new NPC[npcs.size()]);
+			this.due = new long[order.length];
+			this.ready = new NPC[order.length];
+			this.moves = new Direction[order.length];
+			for (int i = 0; i < order.length; i++) {
+				due[i] = now + order[i].getInterval() / 2;
+			}
+		}
+
+		/**
+		 * Runs a tick and schedules the next one, also if an NPC failed to
+		 * decide, unless the NPCs were stopped.
+		 */
+		@Override
+		public void run() {
+			try {
+				tick(System.currentTimeMillis());
+			} finally {
+				if (!service.isShutdown()) {
+					service.schedule(this, tickLength, TimeUnit.MILLISECONDS);
+				}
+			}
+		}
+
+		/**
+		 * Lets the NPCs whose interval has passed decide in parallel and
+		 * applies their moves in order. Like an NPC moving on its own, they
+		 * decide without the move lock, reading the board as it is, so the
+		 * player can move meanwhile. Only applying the moves takes the lock,
+		 * and a move that no longer fits the board is not made.
+		 *
+		 * @param now
+		 *            The current time in milliseconds.
+		 */
+		synchronized void tick(long now) {
+			int count = 0;
+			for (int i = 0; i < order.length; i++) {
+				if (due[i] <= now) {
+					ready[count++] = order[i];
+					due[i] = now + order[i].getInterval();
+				}
+			}
+			if (count == 0) {
+				return;
+			}
+			pool.invoke(new DecisionTask(ready, moves, 0, count));
+			synchronized (moveLock) {
+				for (int i = 0; i < count; i++) {
+					if (moves[i] != null) {
+						move(ready[i], moves[i]);
+					}
+				}
+			}
+		}
+	}
+
 	/**
 	 * An observer that will be notified when the level is won or lost.
 	 *
@@ -1,15 +1,28 @@
 package nl.tudelft.jpacman.level;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import nl.tudelft.jpacman.board.Board;
 import nl.tudelft.jpacman.board.Direction;
 import nl.tudelft.jpacman.board.Square;
 import nl.tudelft.jpacman.npc.NPC;
+import nl.tudelft.jpacman.npc.ghost.DecisionPoints;
+import nl.tudelft.jpacman.npc.ghost.DetailPolicy;
+import nl.tudelft.jpacman.npc.ghost.DistanceOracle;
+import nl.tudelft.jpacman.npc.ghost.FlowField;
 import nl.tudelft.jpacman.npc.ghost.Ghost;
 import nl.tudelft.jpacman.npc.ghost.GhostColor;
 import nl.tudelft.jpacman.npc.ghost.GhostFactory;
+import nl.tudelft.jpacman.npc.ghost.JunctionGraph;
+import nl.tudelft.jpacman.npc.ghost.MonteCarloGhost;
+import nl.tudelft.jpacman.npc.ghost.PatrolRoute;
+import nl.tudelft.jpacman.npc.ghost.ScatterSchedule;
+import nl.tudelft.jpacman.npc.ghost.SearchBudget;
+import nl.tudelft.jpacman.npc.ghost.Wavefront;
 import nl.tudelft.jpacman.sprite.PacManSprites;
 import nl.tudelft.jpacman.sprite.Sprite;
 
@@ -26,6 +39,12 @@ public class LevelFactory {
 	private static final int PINKY = 2;
 	private static final int CLYDE = 3;
 
+	/**
+	 * The colour of every ghost, by index.
+	 */
+	private static final GhostColor[] COLOURS = {GhostColor.RED,
+			GhostColor.CYAN, GhostColor.PINK, GhostColor.ORANGE};
+
 	/**
 	 * The default value of a pellet.
 	 */
@@ -46,6 +65,71 @@ public class LevelFactory {
 	 */
 	private final GhostFactory ghostFact;
 
+	/**
+	 * <code>true</code> iff the ghosts of new levels navigate with
+	 * precomputed distances.
+	 */
+	private boolean distanceOracle;
+
+	/**
+	 * <code>true</code> iff the ghosts of new levels search for paths over
+	 * the junctions of the board.
+	 */
+	private boolean junctionGraph;
+
+	/**
+	 * <code>true</code> iff the ghosts and flow fields of new levels search
+	 * with bit-parallel breadth first searches.
+	 */
+	private boolean wavefront;
+
+	/**
+	 * <code>true</code> iff the ghosts of new levels chase the players using a
+	 * shared flow field.
+	 */
+	private boolean flowField;
+
+	/**
+	 * <code>true</code> iff the ghosts of new levels only decide where to go
+	 * at the junctions of the board.
+	 */
+	private boolean decisionPoints;
+
+	/**
+	 * The limit on the path searches of the ghosts of new levels, or
+	 * <code>null</code> if their searches always run until they are done.
+	 */
+	private SearchBudget searchBudget;
+
+	/**
+	 * The effort the ghosts of new levels put into decisions far from the
+	 * players, or <code>null</code> if they always decide with full detail.
+	 */
+	private DetailPolicy detailPolicy;
+
+	/**
+	 * When the ghosts of new levels scatter to patrol their home corners, or
+	 * <code>null</code> if they always chase.
+	 */
+	private ScatterSchedule scatterSchedule;
+
+	/**
+	 * Whether new ghosts search for their moves instead of following the
+	 * rules of their colour.
+	 */
+	private boolean monteCarloGhosts;
+
+	/**
+	 * The pool the NPCs of new levels decide on in tick mode, or
+	 * <code>null</code> if every NPC moves on a schedule of its own.
+	 */
+	private ForkJoinPool tickPool;
+
+	/**
+	 * The time between two ticks of new levels in tick mode.
+	 */
+	private long tickLength = Level.DEFAULT_TICK_LENGTH;
+
 	/**
 	 * Creates a new level factory.
 	 * 
@@ -60,6 +144,162 @@ public class LevelFactory {
 		this.ghostFact = ghostFactory;
 	}
 
+	/**
+	 * Makes the ghosts of levels created from now on navigate with distances
+	 * that are precomputed once per board, instead of searching for a path on
+	 * every move. This trades memory and level creation time for cheaper
+	 * ghost moves.
+	 * 
+	 * @param enabled
+	 *            <code>true</code> to precompute the distances.
+	 * @return This factory.
+	 */
+	public LevelFactory withDistanceOracle(boolean enabled) {
+		this.distanceOracle = enabled;
+		return this;
+	}
+
+	/**
+	 * Makes the ghosts of levels created from now on search for paths over a
+	 * graph of the junctions of the board, in which every corridor is a single
+	 * edge, instead of over all of its squares. The graph is built once per
+	 * board and takes far less memory than precomputed distances, which take
+	 * precedence when both are enabled.
+	 * 
+	 * @param enabled
+	 *            <code>true</code> to compress the corridors of new boards.
+	 * @return This factory.
+	 */
+	public LevelFactory withJunctionGraph(boolean enabled) {
+		this.junctionGraph = enabled;
+		return this;
+	}
+
+	/**
+	 * Makes the ghosts and flow fields of levels created from now on search
+	 * with breadth first searches that deal with 64 squares at a time, which
+	 * pays off on very large, open boards. Precomputed distances and junction
+	 * graphs take precedence for the ghosts when they are enabled as well.
+	 * 
+	 * @param enabled
+	 *            <code>true</code> to pack new boards into bit masks.
+	 * @return This factory.
+	 */
+	public LevelFactory withWavefront(boolean enabled) {
+		this.wavefront = enabled;
+		return this;
+	}
+
+	/**
+	 * Makes the ghosts of levels created from now on chase the players by
+	 * following a flow field, which the level recomputes once whenever a
+	 * player moves, instead of each ghost searching for the players on every
+	 * move.
+	 * 
+	 * @param enabled
+	 *            <code>true</code> to share a flow field between the ghosts.
+	 * @return This factory.
+	 */
+	public LevelFactory withFlowField(boolean enabled) {
+		this.flowField = enabled;
+		return this;
+	}
+
+	/**
+	 * Makes the ghosts of levels created from now on only decide where to go
+	 * on squares with three or more exits, following the corridors between
+	 * them without searching for a path. They still decide anew when they
+	 * start chasing another unit or do not end up where they were heading.
+	 * 
+	 * @param enabled
+	 *            <code>true</code> to flag the junctions of new boards.
+	 * @return This factory.
+	 */
+	public LevelFactory withDecisionPoints(boolean enabled) {
+		this.decisionPoints = enabled;
+		return this;
+	}
+
+	/**
+	 * Limits the work of every path search the ghosts of levels created from
+	 * now on make without a precomputed structure, bounding the time a single
+	 * decision takes on very large boards. The budget keeps count of the
+	 * searches that ran out.
+	 * 
+	 * @param budget
+	 *            The limit on a single search, shared by all ghosts, or
+	 *            <code>null</code> to let searches run until they are done.
+	 * @return This factory.
+	 */
+	public LevelFactory withSearchBudget(SearchBudget budget) {
+		this.searchBudget = budget;
+		return this;
+	}
+
+	/**
+	 * Makes the ghosts of levels created from now on put less effort into
+	 * their decisions the farther they are from the player they chase.
+	 * 
+	 * @param policy
+	 *            The distances at which ghosts reduce their effort, shared by
+	 *            all ghosts, or <code>null</code> to always decide with full
+	 *            detail.
+	 * @return This factory.
+	 */
+	public LevelFactory withDetailPolicy(DetailPolicy policy) {
+		this.detailPolicy = policy;
+		return this;
+	}
+
+	/**
+	 * Makes the ghosts of levels created from now on scatter to patrol their
+	 * home corners now and then. The patrol loops are computed once per level
+	 * and replayed by the ghosts.
+	 * 
+	 * @param schedule
+	 *            When the ghosts scatter, for example
+	 *            {@link ScatterSchedule#ARCADE}, or <code>null</code> to
+	 *            always chase.
+	 * @return This factory.
+	 */
+	public LevelFactory withScatterSchedule(ScatterSchedule schedule) {
+		this.scatterSchedule = schedule;
+		return this;
+	}
+
+	/**
+	 * Makes the ghosts created from now on search for their moves with
+	 * {@link MonteCarloGhost Monte Carlo tree search}, in the colours of the
+	 * ghosts they replace.
+	 * 
+	 * @param enabled
+	 *            <code>true</code> to create searching ghosts,
+	 *            <code>false</code> to create the classic ghosts.
+	 * @return This factory.
+	 */
+	public LevelFactory withMonteCarloGhosts(boolean enabled) {
+		this.monteCarloGhosts = enabled;
+		return this;
+	}
+
+	/**
+	 * Makes the NPCs of levels created from now on move in ticks, deciding on
+	 * their moves in parallel on a pool instead of each on a thread of its
+	 * own. See {@link Level#setTickMode(ForkJoinPool, long)}.
+	 * 
+	 * @param pool
+	 *            The pool to decide on, or <code>null</code> to give every NPC
+	 *            a schedule of its own.
+	 * @param length
+	 *            The time between two ticks in milliseconds.
+	 * @return This factory.
+	 */
+	public LevelFactory withTickMode(ForkJoinPool pool, long length) {
+		this.tickPool = pool;
+		this.tickLength = length;
+		return this;
+	}
+
 	/**
 	 * Creates a new level from the provided data.
 	 * 
@@ -76,8 +316,106 @@ public class LevelFactory {
 
 		// We'll adopt the simple collision map for now.
 		CollisionMap collisionMap = new PlayerCollisions();
-		
-		return new Level(board, ghosts, startPositions, collisionMap);
+
+		Level level = new Level(board, ghosts, startPositions, collisionMap);
+		level.setTickMode(tickPool, tickLength);
+		List<Ghost> chasers = new ArrayList<>();
+		for (NPC npc : ghosts) {
+			if (npc instanceof Ghost) {
+				chasers.add((Ghost) npc);
+			}
+		}
+		if (!chasers.isEmpty()) {
+			attachNavigation(level, chasers);
+			attachPlanning(level.getBoard(), chasers);
+			attachPatrols(level.getBoard(), chasers);
+		}
+		return level;
+	}
+
+	/**
+	 * Precomputes the enabled navigation structures for the board of a new
+	 * level and hands them to its ghosts.
+	 * 
+	 * @param level
+	 *            The new level.
+	 * @param chasers
+	 *            The ghosts of the level, at least one.
+	 */
+	private void attachNavigation(Level level, List<Ghost> chasers) {
+		Board board = level.getBoard();
+		Ghost prototype = chasers.get(0);
+		DistanceOracle oracle = null;
+		if (distanceOracle) {
+			oracle = DistanceOracle.create(board, prototype);
+		}
+		JunctionGraph graph = null;
+		if (junctionGraph) {
+			graph = JunctionGraph.create(board, prototype);
+		}
+		Wavefront search = null;
+		if (wavefront) {
+			search = Wavefront.create(board, prototype);
+		}
+		FlowField field = null;
+		if (flowField) {
+			field = FlowField.create(board, prototype, search);
+			level.setFlowField(field);
+		}
+		for (Ghost g : chasers) {
+			g.setDistanceOracle(oracle);
+			g.setJunctionGraph(graph);
+			g.setWavefront(search);
+			g.setFlowField(field);
+		}
+	}
+
+	/**
+	 * Tells the ghosts of a new level when to plan and how much a plan may
+	 * cost: flags the junctions of its board if they only decide where to go
+	 * at junctions, and hands them the search budget and detail policy.
+	 * 
+	 * @param board
+	 *            The board of the new level.
+	 * @param chasers
+	 *            The ghosts of the level, at least one.
+	 */
+	private void attachPlanning(Board board, List<Ghost> chasers) {
+		DecisionPoints points = null;
+		if (decisionPoints) {
+			points = DecisionPoints.create(board, chasers.get(0));
+		}
+		for (Ghost g : chasers) {
+			g.setDecisionPoints(points);
+			g.setSearchBudget(searchBudget);
+			g.setDetailPolicy(detailPolicy);
+		}
+	}
+
+	/**
+	 * Computes the patrol loop of every home corner of the board of a new
+	 * level once, and hands each ghost the loop of its corner, if the ghosts
+	 * scatter.
+	 * 
+	 * @param board
+	 *            The board of the new level.
+	 * @param chasers
+	 *            The ghosts of the level.
+	 */
+	private void attachPatrols(Board board, List<Ghost> chasers) {
+		Map<PatrolRoute.Corner, PatrolRoute> routes = new EnumMap<>(
+				PatrolRoute.Corner.class);
+		for (Ghost g : chasers) {
+			PatrolRoute.Corner corner = g.getHomeCorner();
+			PatrolRoute route = null;
+			if (scatterSchedule != null && corner != null) {
+				if (!routes.containsKey(corner)) {
+					routes.put(corner, PatrolRoute.create(board, g, corner));
+				}
+				route = routes.get(corner);
+			}
+			g.setPatrol(route, scatterSchedule);
+		}
 	}
 
 	/**
@@ -88,6 +426,9 @@ public class LevelFactory {
 	NPC createGhost() {
 		ghostIndex++;
 		ghostIndex %= GHOSTS;
+		if (monteCarloGhosts) {
+			return ghostFact.createMonteCarloGhost(COLOURS[ghostIndex]);
+		}
 		switch (ghostIndex) {
 		case BLINKY:
 			return ghostFact.createBlinky();
@@ -7,9 +7,13 @@ import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.google.common.base.Supplier;
+
 import nl.tudelft.jpacman.PacmanConfigurationException;
 import nl.tudelft.jpacman.board.Board;
 import nl.tudelft.jpacman.board.BoardFactory;
+import nl.tudelft.jpacman.board.ChunkedBoard;
+import nl.tudelft.jpacman.board.CompactBoard;
 import nl.tudelft.jpacman.board.Square;
 import nl.tudelft.jpacman.npc.NPC;
 
@@ -61,6 +65,19 @@ public class MapParser {
 	 * @return The level as represented by this text.
 	 */
 	public Level parseMap(char[][] map) {
+		if (boardCreator.createsChunkedBoards()) {
+			ChunkedBoard board = boardCreator.createChunkedBoard(wallsOf(map));
+			board.keepDormant(new Supplier<Pellet>() {
+				@Override
+				public Pellet get() {
+					return levelCreator.createPellet();
+				}
+			});
+			return populate(map, board);
+		}
+		if (boardCreator.createsCompactBoards()) {
+			return populate(map, boardCreator.createCompactBoard(wallsOf(map)));
+		}
 		int width = map.length;
 		int height = map[0].length;
 
@@ -75,6 +92,63 @@ public class MapParser {
 		return levelCreator.createLevel(board, ghosts, startPositions);
 	}
 
+	/**
+	 * Finds the walls in the text representation of the board.
+	 */
+	private static boolean[][] wallsOf(char[][] map) {
+		boolean[][] walls = new boolean[map.length][map[0].length];
+		for (int x = 0; x < map.length; x++) {
+			for (int y = 0; y < map[x].length; y++) {
+				walls[x][y] = map[x][y] == '#';
+			}
+		}
+		return walls;
+	}
+
+	/**
+	 * Places the units of the text representation of the board on a
+	 * {@link CompactBoard} or {@link ChunkedBoard} with its layout, which
+	 * only creates the square objects that are asked for. A chunked board
+	 * keeps the pellets as dormant units.
+	 */
+	private Level populate(char[][] map, Board board) {
+		List<NPC> ghosts = new ArrayList<>();
+		List<Square> startPositions = new ArrayList<>();
+		for (int x = 0; x < map.length; x++) {
+			for (int y = 0; y < map[x].length; y++) {
+				populate(board, ghosts, startPositions, x, y, map[x][y]);
+			}
+		}
+		return levelCreator.createLevel(board, ghosts, startPositions);
+	}
+
+	private void populate(Board board, List<NPC> ghosts,
+			List<Square> startPositions, int x, int y, char c) {
+		switch (c) {
+		case ' ':
+		case '#':
+			break;
+		case '.':
+			if (board instanceof ChunkedBoard) {
+				((ChunkedBoard) board).addDormant(x, y);
+			} else {
+				levelCreator.createPellet().occupy(board.squareAt(x, y));
+			}
+			break;
+		case 'G':
+			NPC ghost = levelCreator.createGhost();
+			ghosts.add(ghost);
+			ghost.occupy(board.squareAt(x, y));
+			break;
+		case 'P':
+			startPositions.add(board.squareAt(x, y));
+			break;
+		default:
+			throw new PacmanConfigurationException("Invalid character at "
+					+ x + "," + y + ": " + c);
+		}
+	}
+
 	private void makeGrid(char[][] map, int width, int height,
 			Square[][] grid, List<NPC> ghosts, List<Square> startPositions) {
 		for (int x = 0; x < width; x++) {
@@ -1,10 +1,9 @@
 package nl.tudelft.jpacman.npc.ghost;
 
-import java.util.List;
 import java.util.Map;
 
 import nl.tudelft.jpacman.board.Direction;
-import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
 import nl.tudelft.jpacman.level.Player;
 import nl.tudelft.jpacman.sprite.Sprite;
 
@@ -62,6 +61,18 @@ public class Blinky extends Ghost {
 		super(spriteMap, MOVE_INTERVAL, INTERVAL_VARIATION);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * <p>
+	 * Blinky patrols the top-right corner of the maze.
+	 * </p>
+	 */
+	@Override
+	public PatrolRoute.Corner getHomeCorner() {
+		return PatrolRoute.Corner.NORTH_EAST;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * 
@@ -77,20 +88,24 @@ public class Blinky extends Ghost {
 	 */
 	@Override
 	public Direction nextMove() {
-		// TODO Blinky should patrol his corner every once in a while
+		Direction patrol = scatterMove();
+		if (patrol != null) {
+			return patrol;
+		}
 		// TODO Implement his actual behaviour instead of simply chasing.
-		Square target = Navigation.findNearest(Player.class, getSquare())
-				.getSquare();
-
-		if (target == null) {
+		Unit player = Navigation.findNearest(Player.class, getSquare());
+		if (player == null || player.getSquare() == null) {
 			return randomMove();
 		}
-		
-		List<Direction> path = Navigation.shortestPath(getSquare(), target,
-				this);
-		if (path != null && !path.isEmpty()) {
-			return path.get(0);
+		Direction keep = committedMove(player);
+		if (keep != null) {
+			return keep;
+		}
+
+		Direction step = stepTowards(player);
+		if (step != null) {
+			return commit(step, player);
 		}
-		return randomMove();
+		return commit(randomMove(), player);
 	}
 }
@@ -6,6 +6,7 @@ import java.util.Map;
 
 import nl.tudelft.jpacman.board.Direction;
 import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
 import nl.tudelft.jpacman.level.Player;
 import nl.tudelft.jpacman.sprite.Sprite;
 
@@ -78,6 +79,18 @@ public class Clyde extends Ghost {
 		super(spriteMap, MOVE_INTERVAL, INTERVAL_VARIATION);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * <p>
+	 * Clyde patrols the bottom-left corner of the maze.
+	 * </p>
+	 */
+	@Override
+	public PatrolRoute.Corner getHomeCorner() {
+		return PatrolRoute.Corner.SOUTH_WEST;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * 
@@ -91,27 +104,106 @@ public class Clyde extends Ghost {
 	 * in the bottom-left section of the maze.
 	 * </p>
 	 * <p>
-	 * <b>Implementation:</b> Lacking a patrol function so far, Clyde will just
-	 * move in the opposite direction when he gets within 8 cells of Pac-Man.
+	 * <b>Implementation:</b> Within 8 cells of Pac-Man, Clyde patrols his
+	 * home corner if he has a patrol route, and otherwise just moves in the
+	 * opposite direction. When his searches are limited by a budget, he
+	 * takes the distance from the same search as his step, and only goes by
+	 * the distance regardless of walls when that search runs out.
 	 * </p>
 	 */
 	@Override
 	public Direction nextMove() {
-		Square target = Navigation.findNearest(Player.class, getSquare())
-				.getSquare();
-		if (target == null) {
+		Direction patrol = scatterMove();
+		if (patrol != null) {
+			return patrol;
+		}
+		Unit player = Navigation.findNearest(Player.class, getSquare());
+		if (player == null || player.getSquare() == null) {
 			return randomMove();
 		}
+		Direction keep = committedMove(player);
+		if (keep != null) {
+			return keep;
+		}
+		return commit(decide(player), player);
+	}
+
+	/**
+	 * Decides where to go from the distance to Pac-Man.
+	 * 
+	 * @param player
+	 *            The player on the board.
+	 * @return The direction to move in.
+	 */
+	private Direction decide(Unit player) {
+		Square target = player.getSquare();
+		FlowField field = getFlowField(player);
+		if (field != null) {
+			return keepDistance(field.stepTowards(getSquare(), player),
+					field.distance(getSquare(), player));
+		}
+
+		Navigator navigator = getNavigator();
+		if (navigator != null) {
+			int[] length = new int[1];
+			Direction towards = navigator.firstStep(getSquare(), target, length);
+			return keepDistance(towards, length[0]);
+		}
 
-		List<Direction> path = Navigation.shortestPath(getSquare(), target,
-				this);
+		SearchBudget budget = getSearchBudget();
+		if (budget != null) {
+			return decideWithin(target, budget);
+		}
+
+		List<Direction> path = pathTo(target);
 		if (path != null && !path.isEmpty()) {
-			Direction d = path.get(0);
-			if (path.size() <= SHYNESS) {
-				return OPPOSITES.get(d);
-			}
-			return d;
+			return keepDistance(path.get(0), path.size());
 		}
 		return randomMove();
 	}
+
+	/**
+	 * Decides where to go from the distance to Pac-Man found by a single
+	 * search within a budget.
+	 * 
+	 * @param target
+	 *            The square of Pac-Man.
+	 * @param budget
+	 *            The limit on the work of the search.
+	 * @return The direction to move in.
+	 */
+	private Direction decideWithin(Square target, SearchBudget budget) {
+		Navigation.BudgetedPath path = Navigation.pathWithin(getSquare(),
+				target, this, budget);
+		int distance = path.length();
+		if (distance < 0) {
+			distance = Navigation.estimate(getSquare(), target);
+		}
+		return keepDistance(path.firstStep(), distance);
+	}
+
+	/**
+	 * Chases Pac-Man, unless Clyde is already within {@link #SHYNESS} cells,
+	 * in which case he patrols or backs off.
+	 * 
+	 * @param towards
+	 *            The first step towards Pac-Man, or <code>null</code> if there
+	 *            is none.
+	 * @param distance
+	 *            The number of steps to Pac-Man.
+	 * @return The direction to move in.
+	 */
+	private Direction keepDistance(Direction towards, int distance) {
+		if (towards == null) {
+			return randomMove();
+		}
+		if (distance <= SHYNESS) {
+			Direction patrol = patrolMove();
+			if (patrol != null) {
+				return patrol;
+			}
+			return OPPOSITES.get(towards);
+		}
+		return towards;
+	}
 }
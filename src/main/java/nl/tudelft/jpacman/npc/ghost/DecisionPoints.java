@@ -0,0 +1,97 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import java.util.BitSet;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+
+/**
+ * The squares of a {@link Board} where a ghost has a real choice to make:
+ * the accessible squares with three or more accessible neighbours.
+ * Everywhere else a ghost is in a corridor, where the only sensible moves are
+ * to go on, around a corner if need be, or to turn back at a dead end. Ghosts
+ * use these flags to keep going in the direction they decided on until they
+ * reach the next decision point, instead of searching for a path on every
+ * step.
+ * <p>
+ * The flags are computed once, for a representative traveller. Once the
+ * accessibility of the squares of the board may have changed, every square
+ * counts as a decision point.
+ */
+public final class DecisionPoints {
+
+	/**
+	 * The fewest accessible neighbours of a junction.
+	 */
+	private static final int JUNCTION = 3;
+
+	/**
+	 * The board the flags were computed for.
+	 */
+	private final Board board;
+
+	/**
+	 * The topology version of the board when the flags were computed.
+	 */
+	private final long version;
+
+	/**
+	 * The flag of the square at <code>x,y</code> at bit
+	 * <code>y * width + x</code>.
+	 */
+	private final BitSet flags;
+
+	private DecisionPoints(Board grid, Unit traveller) {
+		this.board = grid;
+		this.version = grid.getTopologyVersion();
+		this.flags = new BitSet(grid.getWidth() * grid.getHeight());
+		SquareGraph graph = SquareGraph.create(grid, traveller);
+		for (int i = 0; i < graph.size(); i++) {
+			int exits = graph.degree(i);
+			if (exits == 0 || exits >= JUNCTION) {
+				flags.set(graph.cellOf(i));
+			}
+		}
+	}
+
+	/**
+	 * Flags the decision points of a board.
+	 *
+	 * @param board
+	 *            The board to flag the squares of.
+	 * @param traveller
+	 *            A representative of the units that will use the flags.
+	 * @return The decision points of the board.
+	 */
+	public static DecisionPoints create(Board board, Unit traveller) {
+		assert board != null;
+		assert traveller != null;
+		return new DecisionPoints(board, traveller);
+	}
+
+	/**
+	 * Determines whether a unit has to decide where to go on a square, or
+	 * can follow the corridor it is in.
+	 *
+	 * @param square
+	 *            The square the unit is on.
+	 * @return <code>true</code> iff the square is a junction or shut in, is
+	 *         not on the board of these flags, or the board changed since
+	 *         the flags were computed.
+	 */
+	public boolean isDecisionPoint(Square square) {
+		if (square.getBoard() != board
+				|| board.getTopologyVersion() != version) {
+			return true;
+		}
+		return flags.get(square.getY() * board.getWidth() + square.getX());
+	}
+
+	/**
+	 * @return The number of decision points.
+	 */
+	int count() {
+		return flags.cardinality();
+	}
+}
@@ -0,0 +1,152 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import nl.tudelft.jpacman.board.Square;
+
+/**
+ * How much effort ghosts put into their decisions, depending on how far they
+ * are from the unit they chase. Ghosts near it decide with full navigation on
+ * every move. Ghosts at mid range only plan every few moves and keep going in
+ * the direction they planned in between. Far away ghosts wander the corridors
+ * at random without planning at all. This keeps the work spent on ghosts in
+ * proportion to what happens near the players, however many ghosts there are.
+ * <p>
+ * Distances are counted in steps regardless of walls. A policy counts the
+ * decisions made in every tier, and may be shared by any number of ghosts.
+ */
+public final class DetailPolicy {
+
+	/**
+	 * The level of detail of a decision.
+	 */
+	public enum Tier {
+
+		/**
+		 * Full navigation on every move.
+		 */
+		NEAR,
+
+		/**
+		 * Planning every few moves.
+		 */
+		MID,
+
+		/**
+		 * Wandering without planning.
+		 */
+		FAR
+	}
+
+	/**
+	 * The largest distance at which ghosts decide with full detail.
+	 */
+	private final int nearRadius;
+
+	/**
+	 * The largest distance at which ghosts still plan.
+	 */
+	private final int farRadius;
+
+	/**
+	 * The number of moves between two plans at mid range.
+	 */
+	private final int replanInterval;
+
+	/**
+	 * The number of decisions made in every tier, by ordinal.
+	 */
+	private final AtomicLongArray decisions = new AtomicLongArray(
+			Tier.values().length);
+
+	private DetailPolicy(int near, int far, int interval) {
+		this.nearRadius = near;
+		this.farRadius = far;
+		this.replanInterval = interval;
+	}
+
+	/**
+	 * Creates a policy.
+	 *
+	 * @param nearRadius
+	 *            The largest distance at which ghosts decide with full detail.
+	 * @param farRadius
+	 *            The largest distance at which ghosts still plan, at least
+	 *            the near radius.
+	 * @param replanInterval
+	 *            The number of moves between two plans at mid range, at least
+	 *            one.
+	 * @return The new policy.
+	 */
+	public static DetailPolicy of(int nearRadius, int farRadius,
+			int replanInterval) {
+		assert nearRadius >= 0;
+		assert farRadius >= nearRadius;
+		assert replanInterval > 0;
+		return new DetailPolicy(nearRadius, farRadius, replanInterval);
+	}
+
+	/**
+	 * @return The largest distance at which ghosts decide with full detail.
+	 */
+	public int getNearRadius() {
+		return nearRadius;
+	}
+
+	/**
+	 * @return The largest distance at which ghosts still plan.
+	 */
+	public int getFarRadius() {
+		return farRadius;
+	}
+
+	/**
+	 * @return The number of moves between two plans at mid range.
+	 */
+	public int getReplanInterval() {
+		return replanInterval;
+	}
+
+	/**
+	 * @param tier
+	 *            The tier to look up.
+	 * @return The number of decisions made in the tier.
+	 */
+	public long getDecisions(Tier tier) {
+		return decisions.get(tier.ordinal());
+	}
+
+	/**
+	 * Sets the numbers of decisions in every tier back to zero.
+	 */
+	public void resetStatistics() {
+		for (Tier tier : Tier.values()) {
+			decisions.set(tier.ordinal(), 0L);
+		}
+	}
+
+	/**
+	 * Determines the tier of a decision and counts it.
+	 *
+	 * @param from
+	 *            The square of the deciding ghost.
+	 * @param target
+	 *            The square of the unit it chases, or <code>null</code> if
+	 *            it is not on the board.
+	 * @return The tier of the decision. Decisions about squares that are not
+	 *         on the same board are made with full detail.
+	 */
+	Tier decide(Square from, Square target) {
+		Tier tier = Tier.NEAR;
+		if (target != null) {
+			int distance = Navigation.estimate(from, target);
+			if (distance > farRadius) {
+				tier = Tier.FAR;
+			} else if (distance > nearRadius) {
+				tier = Tier.MID;
+			}
+		}
+		decisions.incrementAndGet(tier.ordinal());
+		return tier;
+	}
+}
@@ -0,0 +1,222 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+
+/**
+ * Precomputed shortest path distances between all squares of a {@link Board}
+ * that are accessible to a ground-walking traveller. Answers "how far is B
+ * from A" and "which way should I go from A to get to B" in constant time,
+ * instead of running a new search with {@link Navigation} on every move.
+ * <p>
+ * The oracle assumes the accessibility of a square does not depend on which
+ * ground-walking unit asks and does not change during the game, and that
+ * squares are linked in both directions, as
+ * {@link nl.tudelft.jpacman.board.BoardFactory} does. Boards with at most
+ * {@link #MAX_DENSE_SQUARES} accessible squares are stored as a dense table
+ * with one <code>short</code> per pair of squares. Larger boards fall back to
+ * computing the distances towards a target the first time it is asked for,
+ * keeping the most recently used targets.
+ */
+public final class DistanceOracle implements Navigator {
+
+	/**
+	 * The largest number of accessible squares for which the full table is
+	 * computed up front.
+	 */
+	public static final int MAX_DENSE_SQUARES = 2048;
+
+	/**
+	 * The number of targets kept by the sparse fallback.
+	 */
+	private static final int SPARSE_ROWS = 256;
+
+	/**
+	 * Marks a pair of squares without a path between them.
+	 */
+	private static final int UNREACHABLE = SquareGraph.NONE;
+
+	/**
+	 * The accessible squares of the board.
+	 */
+	private final SquareGraph graph;
+
+	/**
+	 * The number of accessible squares.
+	 */
+	private final int size;
+
+	/**
+	 * The dense table with the distance from square <code>i</code> to square
+	 * <code>j</code> stored at <code>j * n + i</code>, or <code>null</code> if
+	 * this oracle uses the sparse fallback.
+	 */
+	private final short[] dense;
+
+	/**
+	 * The distances towards the most recently used targets, if this oracle
+	 * uses the sparse fallback.
+	 */
+	private final Map<Integer, int[]> sparse;
+
+	/**
+	 * Creates a new oracle and fills the dense table if the board is small
+	 * enough.
+	 *
+	 * @param squares
+	 *            The accessible squares of the board.
+	 */
+	private DistanceOracle(SquareGraph squares) {
+		this.graph = squares;
+		this.size = squares.size();
+		if (size <= MAX_DENSE_SQUARES) {
+			this.dense = computeDense();
+			this.sparse = null;
+		} else {
+			this.dense = null;
+			this.sparse = new LinkedHashMap<Integer, int[]>(SPARSE_ROWS,
+					0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(
+						Map.Entry<Integer, int[]> eldest) {
+					return size() > SPARSE_ROWS;
+				}
+			};
+		}
+	}
+
+	/**
+	 * Precomputes the distances between all squares of the board that are
+	 * accessible to the traveller.
+	 *
+	 * @param board
+	 *            The board to compute the distances for.
+	 * @param traveller
+	 *            A representative of the units that will consult the oracle.
+	 * @return A new oracle for the board.
+	 */
+	public static DistanceOracle create(Board board, Unit traveller) {
+		return new DistanceOracle(SquareGraph.create(board, traveller));
+	}
+
+	private short[] computeDense() {
+		short[] table = new short[size * size];
+		int[] row = new int[size];
+		int[] queue = new int[size];
+		for (int target = 0; target < size; target++) {
+			graph.flood(target, row, queue);
+			int offset = target * size;
+			for (int source = 0; source < size; source++) {
+				table[offset + source] = (short) row[source];
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * Returns the length of the shortest path between two squares.
+	 *
+	 * @param from
+	 *            The starting square.
+	 * @param to
+	 *            The destination.
+	 * @return The number of steps from <code>from</code> to <code>to</code>,
+	 *         or <code>-1</code> if either square is not accessible or there
+	 *         is no path between them.
+	 */
+	@Override
+	public int distance(Square from, Square to) {
+		int source = graph.indexOf(from);
+		int target = graph.indexOf(to);
+		if (source == UNREACHABLE || target == UNREACHABLE) {
+			return UNREACHABLE;
+		}
+		return distance(source, target);
+	}
+
+	private int distance(int source, int target) {
+		if (dense != null) {
+			return dense[target * size + source];
+		}
+		return sparseRow(target)[source];
+	}
+
+	private int[] sparseRow(int target) {
+		synchronized (sparse) {
+			int[] row = sparse.get(target);
+			if (row == null) {
+				row = new int[size];
+				graph.flood(target, row, new int[size]);
+				sparse.put(target, row);
+			}
+			return row;
+		}
+	}
+
+	/**
+	 * Returns the first step of a shortest path between two squares.
+	 *
+	 * @param from
+	 *            The starting square.
+	 * @param to
+	 *            The destination.
+	 * @return The direction of the first step from <code>from</code> towards
+	 *         <code>to</code>, or <code>null</code> if the squares are the
+	 *         same or there is no path between them.
+	 */
+	@Override
+	public Direction firstStep(Square from, Square to) {
+		int source = graph.indexOf(from);
+		int target = graph.indexOf(to);
+		if (source == UNREACHABLE || target == UNREACHABLE) {
+			return null;
+		}
+		return firstStep(source, target, distance(source, target));
+	}
+
+	@Override
+	public Direction firstStep(Square from, Square to, int[] length) {
+		length[0] = UNREACHABLE;
+		int source = graph.indexOf(from);
+		int target = graph.indexOf(to);
+		if (source == UNREACHABLE || target == UNREACHABLE) {
+			return null;
+		}
+		length[0] = distance(source, target);
+		return firstStep(source, target, length[0]);
+	}
+
+	private Direction firstStep(int source, int target, int remaining) {
+		if (remaining <= 0) {
+			return null;
+		}
+		for (int d = 0; d < SquareGraph.WAYS; d++) {
+			int next = graph.neighbour(source, d);
+			if (next != UNREACHABLE
+					&& distance(next, target) == remaining - 1) {
+				return SearchContext.DIRECTIONS[d];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Determines whether the square is known to this oracle.
+	 *
+	 * @param square
+	 *            The square to look up.
+	 * @return <code>true</code> iff the square is accessible on the board
+	 *         this oracle was computed for.
+	 */
+	@Override
+	public boolean covers(Square square) {
+		return graph.indexOf(square) != UNREACHABLE;
+	}
+}
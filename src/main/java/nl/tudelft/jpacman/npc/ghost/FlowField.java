@@ -0,0 +1,542 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+
+/**
+ * The distance of every square of a {@link Board} to each of the units that
+ * are being chased, typically the players. The distances are brought up to
+ * date whenever such a unit moves, after which every ghost chasing it can
+ * look up its next step without a search of its own.
+ * <p>
+ * When a unit steps onto a neighbouring square, the distance of every square
+ * changes by at most one: the squares whose shortest paths now run through
+ * the new square get one step closer, some squares next to those stay where
+ * they are, and all others get one step further away. Distances are
+ * therefore stored relative to an offset. A step raises the offset, which
+ * moves every square away at once, and only the squares that got closer or
+ * stayed put are rewritten. If those are more than a quarter of the board,
+ * the distances are computed from scratch with a breadth first search.
+ * <p>
+ * Every tracked unit has two distance maps: the one ghosts read from, and a
+ * spare one the next update is computed in before the two are swapped. A map
+ * a ghost is reading is therefore only rewritten if two updates pass during
+ * the read. Ghosts read without a lock and check afterwards whether that
+ * happened, and if so read the new map again while holding off updates. Like
+ * {@link DistanceOracle}, a flow field assumes accessibility does not change
+ * during the game and that squares are linked in both directions.
+ */
+public final class FlowField {
+
+	/**
+	 * The inverse of the part of the squares an update may rewrite before it
+	 * falls back to computing the distances from scratch.
+	 */
+	static final int REPAIR_FRACTION = 4;
+
+	/**
+	 * The stored distance of squares that cannot reach the target.
+	 */
+	private static final int UNREACHABLE = Integer.MIN_VALUE;
+
+	/**
+	 * The accessible squares of the board.
+	 */
+	private final SquareGraph graph;
+
+	/**
+	 * Scratch space for the searches.
+	 */
+	private final int[] queue;
+
+	/**
+	 * The bit-parallel search the distances are computed with, or
+	 * <code>null</code> to search the squares one by one.
+	 */
+	private final Wavefront wavefront;
+
+	/**
+	 * The distance of every square of the board as computed by the
+	 * {@link #wavefront}, or <code>null</code> if there is none.
+	 */
+	private final int[] cells;
+
+	/**
+	 * The generation in which every square was last rewritten by a repair.
+	 */
+	private final int[] marks;
+
+	/**
+	 * The generation of the current repair.
+	 */
+	private int generation;
+
+	/**
+	 * The most squares a repair may rewrite.
+	 */
+	private final int repairLimit;
+
+	/**
+	 * The number of updates that repaired the distances.
+	 */
+	private long repairs;
+
+	/**
+	 * The number of updates that computed the distances from scratch.
+	 */
+	private long rebuilds;
+
+	/**
+	 * The distance maps of the tracked units.
+	 */
+	private final Map<Unit, Distances> fields = new ConcurrentHashMap<>();
+
+	private FlowField(SquareGraph squares, Wavefront search, int boardSize) {
+		this.graph = squares;
+		this.queue = new int[squares.size()];
+		this.marks = new int[squares.size()];
+		this.repairLimit = squares.size() / REPAIR_FRACTION;
+		this.wavefront = search;
+		if (search == null) {
+			this.cells = null;
+		} else {
+			this.cells = new int[boardSize];
+		}
+	}
+
+	/**
+	 * Creates a new flow field for the board, without any tracked units.
+	 *
+	 * @param board
+	 *            The board the chase takes place on.
+	 * @param traveller
+	 *            A representative of the units that will consult the field.
+	 * @return A new flow field for the board.
+	 */
+	public static FlowField create(Board board, Unit traveller) {
+		return create(board, traveller, null);
+	}
+
+	/**
+	 * Creates a new flow field for the board that computes its distances
+	 * with a bit-parallel search, without any tracked units.
+	 *
+	 * @param board
+	 *            The board the chase takes place on.
+	 * @param traveller
+	 *            A representative of the units that will consult the field.
+	 * @param wavefront
+	 *            The wavefront search of the board for the same kind of
+	 *            traveller, or <code>null</code> to search the squares one by
+	 *            one.
+	 * @return A new flow field for the board.
+	 */
+	public static FlowField create(Board board, Unit traveller,
+			Wavefront wavefront) {
+		return new FlowField(SquareGraph.create(board, traveller), wavefront,
+				board.getWidth() * board.getHeight());
+	}
+
+	/**
+	 * Brings the distances to a unit up to date, starting to track it if it
+	 * was not tracked before. Does nothing if the unit did not move since the
+	 * last update.
+	 *
+	 * @param target
+	 *            The unit that is being chased.
+	 */
+	public synchronized void update(Unit target) {
+		Distances field = fields.get(target);
+		if (field == null) {
+			field = new Distances(graph.size());
+			fields.put(target, field);
+		}
+		Square square = target.getSquare();
+		if (field.source == square && square != null) {
+			return;
+		}
+		Layer layer = field.spare;
+		long stamp = layer.lock.writeLock();
+		try {
+			field.catchUp();
+			compute(field, square);
+		} finally {
+			layer.lock.unlockWrite(stamp);
+		}
+		field.spare = field.current;
+		field.current = layer;
+		field.source = square;
+	}
+
+	/**
+	 * Computes the distances to the new square of the target in the spare
+	 * map, which is equal to the current one.
+	 */
+	private void compute(Distances field, Square square) {
+		int index = graph.indexOf(square);
+		if (isStep(graph.indexOf(field.source), index) && repair(field, index)) {
+			repairs++;
+		} else {
+			rebuild(field, square, index);
+			rebuilds++;
+		}
+	}
+
+	/**
+	 * @return <code>true</code> iff both squares are accessible neighbours.
+	 */
+	private boolean isStep(int from, int to) {
+		if (from == SquareGraph.NONE || to == SquareGraph.NONE) {
+			return false;
+		}
+		for (int d = 0; d < SquareGraph.WAYS; d++) {
+			if (graph.neighbour(from, d) == to) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Computes the distances to a square from scratch in the spare map.
+	 */
+	private void rebuild(Distances field, Square square, int index) {
+		int[] values = field.spare.values;
+		if (index == SquareGraph.NONE) {
+			Arrays.fill(values, SquareGraph.NONE);
+		} else if (wavefront == null) {
+			graph.flood(index, values, queue);
+		} else {
+			wavefront.flood(square, cells);
+			for (int i = 0; i < values.length; i++) {
+				values[i] = cells[graph.cellOf(i)];
+			}
+		}
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] == SquareGraph.NONE) {
+				values[i] = UNREACHABLE;
+			}
+		}
+		field.spare.offset = 0;
+		field.changes = 0;
+		field.stale = true;
+	}
+
+	/**
+	 * Repairs the distances in the spare map after the target stepped onto a
+	 * neighbouring square. The squares that get closer are those reached from
+	 * the new square by only moving away from the old one. The squares that
+	 * stay put are reached from those by a step that keeps the old distance,
+	 * followed by steps that move away from the old square.
+	 *
+	 * @param field
+	 *            The distances to repair, with a spare map equal to the
+	 *            current one.
+	 * @param index
+	 *            The index of the new square of the target.
+	 * @return <code>true</code> iff the distances were repaired,
+	 *         <code>false</code> if too many squares changed.
+	 */
+	private boolean repair(Distances field, int index) {
+		int[] values = field.current.values;
+		int[] changed = field.changed;
+		int count = begin(changed, index);
+		for (int i = 0; i < count; i++) {
+			count = spread(values, changed, i, count, 1);
+		}
+		int closer = count;
+		for (int i = 0; i < closer && count >= 0; i++) {
+			count = spread(values, changed, i, count, 0);
+		}
+		for (int i = closer; i < count; i++) {
+			count = spread(values, changed, i, count, 1);
+		}
+		if (count < 0) {
+			return false;
+		}
+		int[] repaired = field.spare.values;
+		for (int i = 0; i < closer; i++) {
+			repaired[changed[i]] = values[changed[i]] - 2;
+		}
+		for (int i = closer; i < count; i++) {
+			repaired[changed[i]] = values[changed[i]] - 1;
+		}
+		field.spare.offset = field.current.offset + 1;
+		field.changes = count;
+		field.stale = false;
+		return true;
+	}
+
+	/**
+	 * Adds the neighbours of a changed square that were not changed yet and
+	 * whose stored distance exceeds that of the square by a given amount.
+	 *
+	 * @return The new number of changed squares, or <code>-1</code> if it
+	 *         would exceed the repair limit.
+	 */
+	private int spread(int[] values, int[] changed, int position, int count,
+			int rise) {
+		int square = changed[position];
+		int size = count;
+		for (int d = 0; d < SquareGraph.WAYS; d++) {
+			int next = graph.neighbour(square, d);
+			if (next != SquareGraph.NONE && marks[next] != generation
+					&& values[next] == values[square] + rise) {
+				if (size == repairLimit) {
+					return SquareGraph.NONE;
+				}
+				marks[next] = generation;
+				changed[size++] = next;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Starts a new repair with only the new square of the target changed.
+	 *
+	 * @return The number of changed squares.
+	 */
+	private int begin(int[] changed, int index) {
+		generation++;
+		if (generation == 0) {
+			Arrays.fill(marks, 0);
+			generation = 1;
+		}
+		changed[0] = index;
+		marks[index] = generation;
+		return 1;
+	}
+
+	/**
+	 * Determines whether this field can guide a unit from a square to the
+	 * target.
+	 *
+	 * @param from
+	 *            The square to start from.
+	 * @param target
+	 *            The unit that is being chased.
+	 * @return <code>true</code> iff the target is tracked and the square is
+	 *         accessible.
+	 */
+	public boolean covers(Square from, Unit target) {
+		return fields.containsKey(target)
+				&& graph.indexOf(from) != SquareGraph.NONE;
+	}
+
+	/**
+	 * Returns the direction of the neighbour that is closest to the target.
+	 *
+	 * @param from
+	 *            The square to start from.
+	 * @param target
+	 *            The unit that is being chased.
+	 * @return The first step of a shortest path towards the target, or
+	 *         <code>null</code> if there is none.
+	 */
+	public Direction stepTowards(Square from, Unit target) {
+		int step = read(from, target, true, null);
+		if (step == SquareGraph.NONE) {
+			return null;
+		}
+		return SearchContext.DIRECTIONS[step];
+	}
+
+	/**
+	 * Returns the number of steps between a square and the target.
+	 *
+	 * @param from
+	 *            The square to start from.
+	 * @param target
+	 *            The unit that is being chased.
+	 * @return The length of the shortest path to the target, or
+	 *         <code>-1</code> if there is none.
+	 */
+	public int distance(Square from, Unit target) {
+		return read(from, target, false, null);
+	}
+
+	/**
+	 * Looks up the first step from a square towards the target, or the
+	 * number of steps to it, in the current distance map. If the map was
+	 * rewritten while it was read, the map that is current then is read
+	 * again while updates are held off.
+	 *
+	 * @param from
+	 *            The square to start from.
+	 * @param target
+	 *            The unit that is being chased.
+	 * @param step
+	 *            <code>true</code> to look up the first step,
+	 *            <code>false</code> to look up the number of steps.
+	 * @param meanwhile
+	 *            What to run after reading the map and before checking
+	 *            whether it was rewritten, or <code>null</code>.
+	 * @return The ordinal of the direction of the first step or the number
+	 *         of steps, or {@link SquareGraph#NONE} if there is none.
+	 */
+	int read(Square from, Unit target, boolean step, Runnable meanwhile) {
+		Distances field = fields.get(target);
+		int index = graph.indexOf(from);
+		if (field == null || index == SquareGraph.NONE) {
+			return SquareGraph.NONE;
+		}
+		Layer layer = field.current;
+		long stamp = layer.lock.tryOptimisticRead();
+		int result = lookUp(layer, index, step);
+		if (meanwhile != null) {
+			meanwhile.run();
+		}
+		if (layer.lock.validate(stamp)) {
+			return result;
+		}
+		layer = field.current;
+		stamp = layer.lock.readLock();
+		try {
+			return lookUp(layer, index, step);
+		} finally {
+			layer.lock.unlockRead(stamp);
+		}
+	}
+
+	private int lookUp(Layer layer, int index, boolean step) {
+		int remaining = layer.values[index];
+		if (remaining == UNREACHABLE) {
+			return SquareGraph.NONE;
+		}
+		if (!step) {
+			return remaining + layer.offset;
+		}
+		if (remaining + layer.offset <= 0) {
+			return SquareGraph.NONE;
+		}
+		for (int d = 0; d < SquareGraph.WAYS; d++) {
+			int next = graph.neighbour(index, d);
+			if (next != SquareGraph.NONE && layer.values[next] == remaining - 1) {
+				return d;
+			}
+		}
+		return SquareGraph.NONE;
+	}
+
+	/**
+	 * @return The number of updates that repaired the distances.
+	 */
+	synchronized long repairs() {
+		return repairs;
+	}
+
+	/**
+	 * @return The number of updates that computed the distances from
+	 *         scratch.
+	 */
+	synchronized long rebuilds() {
+		return rebuilds;
+	}
+
+	/**
+	 * A distance map, storing the distance of every square minus an offset.
+	 */
+	private static final class Layer {
+
+		/**
+		 * The distance of every square minus the offset, or
+		 * {@link FlowField#UNREACHABLE} for squares that cannot reach the
+		 * target.
+		 */
+		private final int[] values;
+
+		/**
+		 * The amount to add to every stored distance.
+		 */
+		private int offset;
+
+		/**
+		 * Held for writing while an update rewrites the map.
+		 */
+		private final StampedLock lock = new StampedLock();
+
+		/**
+		 * Creates a new map in which nothing can reach the target.
+		 *
+		 * @param size
+		 *            The number of accessible squares.
+		 */
+		Layer(int size) {
+			this.values = new int[size];
+			Arrays.fill(values, UNREACHABLE);
+		}
+	}
+
+	/**
+	 * The distance maps towards a single tracked unit.
+	 */
+	private static final class Distances {
+
+		/**
+		 * The distances ghosts read from.
+		 */
+		private volatile Layer current;
+
+		/**
+		 * The distances the next update is computed in.
+		 */
+		private Layer spare;
+
+		/**
+		 * The square the current distances were computed from.
+		 */
+		private Square source;
+
+		/**
+		 * The squares rewritten by the last repair.
+		 */
+		private final int[] changed;
+
+		/**
+		 * The number of squares rewritten by the last repair.
+		 */
+		private int changes;
+
+		/**
+		 * <code>true</code> iff the last update computed the distances from
+		 * scratch, so the spare map differs from the current one everywhere.
+		 */
+		private boolean stale;
+
+		/**
+		 * Creates new distance maps in which nothing can reach the target.
+		 *
+		 * @param size
+		 *            The number of accessible squares.
+		 */
+		Distances(int size) {
+			this.current = new Layer(size);
+			this.spare = new Layer(size);
+			this.changed = new int[size];
+		}
+
+		/**
+		 * Makes the spare map equal to the current one by copying what the
+		 * last update changed.
+		 */
+		void catchUp() {
+			if (stale) {
+				System.arraycopy(current.values, 0, spare.values, 0,
+						spare.values.length);
+			} else {
+				for (int i = 0; i < changes; i++) {
+					spare.values[changed[i]] = current.values[changed[i]];
+				}
+			}
+			spare.offset = current.offset;
+		}
+	}
+}
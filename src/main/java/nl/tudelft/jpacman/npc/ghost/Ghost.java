@@ -7,6 +7,7 @@ import java.util.Random;
 
 import nl.tudelft.jpacman.board.Direction;
 import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
 import nl.tudelft.jpacman.npc.NPC;
 import nl.tudelft.jpacman.sprite.Sprite;
 
@@ -17,6 +18,12 @@ import nl.tudelft.jpacman.sprite.Sprite;
  */
 public abstract class Ghost extends NPC {
 	
+	/**
+	 * The number of steps the unit this ghost chases may get away from where
+	 * it was when the ghost last decided, before the ghost decides again.
+	 */
+	static final int TARGET_DRIFT = 2;
+
 	/**
 	 * The sprite map, one sprite for each direction.
 	 */
@@ -32,6 +39,108 @@ public abstract class Ghost extends NPC {
 	 */
 	private final int intervalVariation;
 
+	/**
+	 * The precomputed distances this ghost navigates with, or
+	 * <code>null</code> if it searches for a path on every move.
+	 */
+	private DistanceOracle distanceOracle;
+
+	/**
+	 * The compressed corridors this ghost searches for paths over, or
+	 * <code>null</code> if it searches the squares of the board.
+	 */
+	private JunctionGraph junctionGraph;
+
+	/**
+	 * The bit-parallel search this ghost searches for paths with, or
+	 * <code>null</code> if it searches the squares of the board one by one.
+	 */
+	private Wavefront wavefront;
+
+	/**
+	 * The shared distances to the units being chased, or <code>null</code>
+	 * if this ghost searches for them on every move.
+	 */
+	private FlowField flowField;
+
+	/**
+	 * The algorithm this ghost searches for paths with, or <code>null</code>
+	 * to use the default of {@link Navigation}.
+	 */
+	private SearchStrategy searchStrategy;
+
+	/**
+	 * The limit on the work of a single path search of this ghost, or
+	 * <code>null</code> if its searches always run until they are done.
+	 */
+	private SearchBudget searchBudget;
+
+	/**
+	 * The squares where this ghost decides where to go, or <code>null</code>
+	 * if it decides on every move.
+	 */
+	private DecisionPoints decisionPoints;
+
+	/**
+	 * The direction this ghost keeps going in until it has to decide again,
+	 * or <code>null</code> if it has not decided yet.
+	 */
+	private Direction committed;
+
+	/**
+	 * The square this ghost expects to be on when it moves next.
+	 */
+	private Square expected;
+
+	/**
+	 * The unit this ghost was chasing when it last decided.
+	 */
+	private Unit committedTarget;
+
+	/**
+	 * The square of the unit this ghost was chasing when it last decided.
+	 */
+	private Square committedTargetSquare;
+
+	/**
+	 * The effort this ghost puts into a decision depending on its distance to
+	 * the unit it chases, or <code>null</code> if it always decides with full
+	 * detail.
+	 */
+	private DetailPolicy detailPolicy;
+
+	/**
+	 * The direction of the last move of this ghost, or <code>null</code>.
+	 */
+	private Direction heading;
+
+	/**
+	 * The number of moves since this ghost last planned at mid range.
+	 */
+	private int unplanned;
+
+	/**
+	 * The loop this ghost patrols in its home corner, or <code>null</code> if
+	 * it has none.
+	 */
+	private PatrolRoute patrolRoute;
+
+	/**
+	 * When this ghost scatters to patrol, or <code>null</code> if it always
+	 * chases.
+	 */
+	private ScatterSchedule scatterSchedule;
+
+	/**
+	 * The number of moves this ghost made since it got its schedule.
+	 */
+	private int scheduled;
+
+	/**
+	 * The position on the patrol route this ghost expects to be at.
+	 */
+	private int patrolPosition;
+
 	/**
 	 * Creates a new ghost.
 	 *
@@ -58,6 +167,448 @@ public abstract class Ghost extends NPC {
 		return this.moveInterval + new Random().nextInt(this.intervalVariation);
 	}
 
+	/**
+	 * Makes this ghost navigate with precomputed distances instead of
+	 * searching for a path on every move.
+	 * 
+	 * @param oracle
+	 *            The distances of the board this ghost is on, or
+	 *            <code>null</code> to search for a path on every move.
+	 */
+	public void setDistanceOracle(DistanceOracle oracle) {
+		this.distanceOracle = oracle;
+	}
+
+	/**
+	 * Makes this ghost search for paths over the junctions of the board
+	 * instead of over its squares, whenever it has no precomputed distances
+	 * to go by.
+	 * 
+	 * @param graph
+	 *            The junction graph of the board this ghost is on, or
+	 *            <code>null</code> to search the squares of the board.
+	 */
+	public void setJunctionGraph(JunctionGraph graph) {
+		this.junctionGraph = graph;
+	}
+
+	/**
+	 * Makes this ghost search for paths with bit-parallel breadth first
+	 * searches, whenever it has neither precomputed distances nor a junction
+	 * graph to go by.
+	 * 
+	 * @param search
+	 *            The wavefront search of the board this ghost is on, or
+	 *            <code>null</code> to search the squares of the board one by
+	 *            one.
+	 */
+	public void setWavefront(Wavefront search) {
+		this.wavefront = search;
+	}
+
+	/**
+	 * Returns the structure this ghost navigates with, if it has one it can
+	 * use from where it currently is. Precomputed distances go first, then
+	 * the junction graph and then the wavefront search.
+	 * 
+	 * @return The navigator to use, or <code>null</code> if the ghost has to
+	 *         search for a path with {@link Navigation}.
+	 */
+	protected Navigator getNavigator() {
+		Square square = getSquare();
+		if (covers(distanceOracle, square)) {
+			return distanceOracle;
+		}
+		if (covers(junctionGraph, square)) {
+			return junctionGraph;
+		}
+		if (covers(wavefront, square)) {
+			return wavefront;
+		}
+		return null;
+	}
+
+	private static boolean covers(Navigator navigator, Square square) {
+		return navigator != null && navigator.covers(square);
+	}
+
+	/**
+	 * Makes this ghost chase units by following the distances in a shared
+	 * flow field instead of searching for a path on every move.
+	 * 
+	 * @param field
+	 *            The flow field of the level this ghost is in, or
+	 *            <code>null</code> to search for a path on every move.
+	 */
+	public void setFlowField(FlowField field) {
+		this.flowField = field;
+	}
+
+	/**
+	 * Returns the flow field this ghost chases the target with, if it can use
+	 * it from where it currently is.
+	 * 
+	 * @param target
+	 *            The unit this ghost is chasing.
+	 * @return The flow field tracking the target, or <code>null</code> if the
+	 *         ghost has to find its own way.
+	 */
+	protected FlowField getFlowField(Unit target) {
+		FlowField field = flowField;
+		if (field == null || !field.covers(getSquare(), target)) {
+			return null;
+		}
+		return field;
+	}
+
+	/**
+	 * Sets the algorithm this ghost searches for paths with when it has no
+	 * precomputed distances to go by.
+	 * 
+	 * @param strategy
+	 *            The algorithm to use, or <code>null</code> to use the default
+	 *            of {@link Navigation}.
+	 */
+	public void setSearchStrategy(SearchStrategy strategy) {
+		this.searchStrategy = strategy;
+	}
+
+	/**
+	 * Limits the work of every path search of this ghost that does not use a
+	 * precomputed structure. A search that runs out of budget settles for a
+	 * step towards the square closest to its destination it found so far.
+	 * 
+	 * @param budget
+	 *            The limit on a single search, or <code>null</code> to let
+	 *            searches run until they are done.
+	 */
+	public void setSearchBudget(SearchBudget budget) {
+		this.searchBudget = budget;
+	}
+
+	/**
+	 * @return The limit on a single path search of this ghost, or
+	 *         <code>null</code> if its searches always run until they are
+	 *         done.
+	 */
+	protected SearchBudget getSearchBudget() {
+		return searchBudget;
+	}
+
+	/**
+	 * Makes this ghost only decide where to go at decision points, following
+	 * the corridors between them without searching for a path.
+	 * 
+	 * @param points
+	 *            The decision points of the board this ghost is on, or
+	 *            <code>null</code> to decide on every move.
+	 */
+	public void setDecisionPoints(DecisionPoints points) {
+		this.decisionPoints = points;
+		this.committed = null;
+	}
+
+	/**
+	 * Makes this ghost scatter to its home corner now and then, where it
+	 * replays a precomputed patrol loop instead of chasing.
+	 * 
+	 * @param route
+	 *            The loop in the home corner of this ghost, or
+	 *            <code>null</code> if it has nothing to patrol.
+	 * @param schedule
+	 *            When the ghost scatters, or <code>null</code> to always
+	 *            chase.
+	 */
+	public void setPatrol(PatrolRoute route, ScatterSchedule schedule) {
+		this.patrolRoute = route;
+		this.scatterSchedule = schedule;
+		this.scheduled = 0;
+		this.patrolPosition = 0;
+	}
+
+	/**
+	 * @return The corner of the board this ghost patrols when it scatters, or
+	 *         <code>null</code> if it has no home corner.
+	 */
+	public PatrolRoute.Corner getHomeCorner() {
+		return null;
+	}
+
+	/**
+	 * Counts a move of this ghost and returns its patrol move if its
+	 * {@link #setPatrol(PatrolRoute, ScatterSchedule) schedule} says it
+	 * scatters.
+	 * 
+	 * @return The patrol move, or <code>null</code> if the ghost chases.
+	 */
+	protected Direction scatterMove() {
+		ScatterSchedule schedule = scatterSchedule;
+		if (schedule == null) {
+			return null;
+		}
+		int move = scheduled;
+		scheduled++;
+		if (!schedule.isScatter(move)) {
+			return null;
+		}
+		return patrolMove();
+	}
+
+	/**
+	 * Determines the next move along the patrol route of this ghost. A ghost
+	 * that is not on its route heads for the start of it.
+	 * 
+	 * @return The direction to move in, or <code>null</code> if the ghost has
+	 *         no valid route.
+	 */
+	protected Direction patrolMove() {
+		PatrolRoute route = patrolRoute;
+		if (route == null || !route.isValid()) {
+			return null;
+		}
+		Square square = getSquare();
+		int position = patrolPosition;
+		if (!route.isAt(position, square)) {
+			position = route.positionOf(square);
+		}
+		if (position < 0) {
+			patrolPosition = 0;
+			Direction step = stepTowards(route.getHome());
+			if (step == null) {
+				return randomMove();
+			}
+			return step;
+		}
+		patrolPosition = route.next(position);
+		return route.moveAt(position);
+	}
+
+	/**
+	 * Makes this ghost put less effort into its decisions the farther it is
+	 * from the unit it chases.
+	 * 
+	 * @param policy
+	 *            The distances at which the ghost reduces its effort, or
+	 *            <code>null</code> to always decide with full detail.
+	 */
+	public void setDetailPolicy(DetailPolicy policy) {
+		this.detailPolicy = policy;
+		this.unplanned = 0;
+	}
+
+	/**
+	 * Returns the move that spares this ghost a decision, if it does not have
+	 * to decide where to go. Far from the target it wanders, and at mid range
+	 * it keeps its heading between plans, as set by its
+	 * {@link #setDetailPolicy(DetailPolicy) detail policy}. Otherwise it
+	 * follows the corridor it is in. It has to decide on a decision point,
+	 * when it chases another unit than when it last decided, when that unit
+	 * got more than {@link #TARGET_DRIFT} steps away from where it was then,
+	 * or when the ghost is not where its last move should have taken it.
+	 * 
+	 * @param target
+	 *            The unit this ghost is chasing.
+	 * @return The direction to keep going in, or <code>null</code> if the
+	 *         ghost has to decide.
+	 */
+	protected Direction committedMove(Unit target) {
+		Direction reduced = reducedMove(target);
+		if (reduced != null) {
+			return reduced;
+		}
+		Square square = getSquare();
+		if (mustDecide(square, target)) {
+			return null;
+		}
+		Direction back = SearchContext.DIRECTIONS[SquareGraph
+				.opposite(committed.ordinal())];
+		Direction onwards = null;
+		for (Direction d : SearchContext.DIRECTIONS) {
+			if (d != back && square.getSquareAt(d).isAccessibleTo(this)) {
+				onwards = d;
+			}
+		}
+		if (onwards == null) {
+			onwards = back;
+		}
+		return commit(onwards, target);
+	}
+
+	/**
+	 * Determines whether this ghost decides where to go on a square, rather
+	 * than following the corridor the square is in.
+	 * 
+	 * @param square
+	 *            The square to check.
+	 * @return <code>true</code> iff the square is a decision point, or this
+	 *         ghost decides on every move.
+	 */
+	protected boolean decidesAt(Square square) {
+		DecisionPoints points = decisionPoints;
+		return points == null || points.isDecisionPoint(square);
+	}
+
+	/**
+	 * @return <code>true</code> iff this ghost cannot keep going in the
+	 *         direction it committed to.
+	 */
+	private boolean mustDecide(Square square, Unit target) {
+		DecisionPoints points = decisionPoints;
+		if (points == null || committed == null || target != committedTarget
+				|| square != expected || points.isDecisionPoint(square)) {
+			return true;
+		}
+		Square now = target.getSquare();
+		Square then = committedTargetSquare;
+		if (now == null || then == null || now.getBoard() != then.getBoard()) {
+			return now != then;
+		}
+		return Navigation.estimate(then, now) > TARGET_DRIFT;
+	}
+
+	/**
+	 * Determines the move of this ghost at the level of detail its distance to
+	 * the target calls for.
+	 * 
+	 * @return A move that needs no plan, or <code>null</code> if the ghost has
+	 *         to decide with full detail.
+	 */
+	private Direction reducedMove(Unit target) {
+		DetailPolicy policy = detailPolicy;
+		if (policy == null) {
+			return null;
+		}
+		DetailPolicy.Tier tier = policy.decide(getSquare(), target.getSquare());
+		if (tier == DetailPolicy.Tier.FAR) {
+			heading = wander();
+			return heading;
+		}
+		if (tier == DetailPolicy.Tier.MID
+				&& unplanned < policy.getReplanInterval() - 1
+				&& heading != null
+				&& getSquare().getSquareAt(heading).isAccessibleTo(this)) {
+			unplanned++;
+			return heading;
+		}
+		unplanned = 0;
+		return null;
+	}
+
+	/**
+	 * Determines a random move that does not turn back, unless this ghost is
+	 * in a dead end.
+	 * 
+	 * @return A direction in which the ghost can move, or <code>null</code> if
+	 *         the ghost is shut in by inaccessible squares.
+	 */
+	private Direction wander() {
+		Direction last = heading;
+		if (last == null) {
+			return randomMove();
+		}
+		Direction back = SearchContext.DIRECTIONS[SquareGraph
+				.opposite(last.ordinal())];
+		Square square = getSquare();
+		List<Direction> onwards = new ArrayList<>();
+		for (Direction d : SearchContext.DIRECTIONS) {
+			if (d != back && square.getSquareAt(d).isAccessibleTo(this)) {
+				onwards.add(d);
+			}
+		}
+		if (onwards.isEmpty()) {
+			return randomMove();
+		}
+		return onwards.get(new Random().nextInt(onwards.size()));
+	}
+
+	/**
+	 * Remembers the move this ghost decided on, so it can keep going in that
+	 * direction until it has to decide again.
+	 * 
+	 * @param move
+	 *            The move this ghost decided on, or <code>null</code>.
+	 * @param target
+	 *            The unit this ghost is chasing.
+	 * @return The move.
+	 */
+	protected Direction commit(Direction move, Unit target) {
+		heading = move;
+		if (decisionPoints == null || move == null) {
+			committed = null;
+			return move;
+		}
+		committed = move;
+		committedTarget = target;
+		committedTargetSquare = target.getSquare();
+		expected = getSquare().getSquareAt(move);
+		return move;
+	}
+
+	/**
+	 * Calculates the shortest path this ghost can walk from its current
+	 * square to the target.
+	 * 
+	 * @param target
+	 *            The destination.
+	 * @return The shortest path to the destination or <code>null</code> if no
+	 *         such path could be found.
+	 * @see Navigation#shortestPath(Square, Square, Unit, SearchStrategy)
+	 */
+	protected List<Direction> pathTo(Square target) {
+		SearchStrategy strategy = searchStrategy;
+		if (strategy == null) {
+			strategy = Navigation.getDefaultStrategy();
+		}
+		return Navigation.shortestPath(getSquare(), target, this, strategy);
+	}
+
+	/**
+	 * Determines the first step of the shortest path this ghost can walk to
+	 * the target, using the {@link #getNavigator() navigator} if available.
+	 * Otherwise the path is searched for within the
+	 * {@link #setSearchBudget(SearchBudget) search budget}, if any.
+	 * 
+	 * @param target
+	 *            The destination.
+	 * @return The direction of the first step towards the target, or
+	 *         <code>null</code> if the ghost is already there or cannot get
+	 *         there, or its search ran out of budget without getting closer.
+	 */
+	protected Direction stepTowards(Square target) {
+		Navigator navigator = getNavigator();
+		if (navigator != null) {
+			return navigator.firstStep(getSquare(), target);
+		}
+		SearchBudget budget = searchBudget;
+		if (budget != null) {
+			return Navigation.firstStepWithin(getSquare(), target, this, budget);
+		}
+		List<Direction> path = pathTo(target);
+		if (path != null && !path.isEmpty()) {
+			return path.get(0);
+		}
+		return null;
+	}
+
+	/**
+	 * Determines the first step of the shortest path this ghost can walk to
+	 * the square of another unit, using the shared flow field if it tracks
+	 * that unit.
+	 * 
+	 * @param target
+	 *            The unit to move towards.
+	 * @return The direction of the first step towards the unit, or
+	 *         <code>null</code> if the ghost is already there or cannot get
+	 *         there.
+	 */
+	protected Direction stepTowards(Unit target) {
+		FlowField field = getFlowField(target);
+		if (field != null) {
+			return field.stepTowards(getSquare(), target);
+		}
+		return stepTowards(target.getSquare());
+	}
+
 	/**
 	 * Determines a possible move in a random direction.
 	 * 
@@ -62,4 +62,16 @@ public class GhostFactory {
 	public Ghost createClyde() {
 		return new Clyde(sprites.getGhostSprite(GhostColor.ORANGE));
 	}
+
+	/**
+	 * Creates a new ghost that searches for its moves.
+	 * 
+	 * @see MonteCarloGhost
+	 * @param colour
+	 *            The colour of the ghost.
+	 * @return A new searching ghost.
+	 */
+	public MonteCarloGhost createMonteCarloGhost(GhostColor colour) {
+		return new MonteCarloGhost(sprites.getGhostSprite(colour));
+	}
 }
@@ -0,0 +1,95 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of integer indices ordered by an integer priority, for
+ * the best first searches of the navigation classes. Entries are packed into
+ * a single <code>long</code> with the priority in the upper and the index in
+ * the lower 32 bits, so pushing and popping never allocates once the heap has
+ * grown large enough. Indices may be pushed more than once; it is up to the
+ * search to skip entries it has already dealt with.
+ */
+final class IndexHeap {
+
+	/**
+	 * The entries, ordered as a binary heap.
+	 */
+	private long[] heap;
+
+	/**
+	 * The number of entries in the heap.
+	 */
+	private int size;
+
+	/**
+	 * Creates a new, empty heap.
+	 *
+	 * @param capacity
+	 *            The number of entries the heap initially has room for.
+	 */
+	IndexHeap(int capacity) {
+		this.heap = new long[Math.max(1, capacity)];
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	void clear() {
+		size = 0;
+	}
+
+	/**
+	 * @return <code>true</code> iff there are no entries.
+	 */
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Adds an index.
+	 *
+	 * @param index
+	 *            The index, at least <code>0</code>.
+	 * @param priority
+	 *            The priority of the index, lowest first.
+	 */
+	void push(int index, int priority) {
+		if (size == heap.length) {
+			heap = Arrays.copyOf(heap, heap.length * 2);
+		}
+		long entry = ((long) priority << Integer.SIZE) | index;
+		int i = size++;
+		while (i > 0 && heap[(i - 1) / 2] > entry) {
+			heap[i] = heap[(i - 1) / 2];
+			i = (i - 1) / 2;
+		}
+		heap[i] = entry;
+	}
+
+	/**
+	 * Removes the index with the lowest priority.
+	 *
+	 * @return The index.
+	 */
+	int pop() {
+		assert size > 0;
+		long top = heap[0];
+		long last = heap[--size];
+		int i = 0;
+		int child = 1;
+		while (child < size) {
+			if (child + 1 < size && heap[child + 1] < heap[child]) {
+				child++;
+			}
+			if (heap[child] >= last) {
+				break;
+			}
+			heap[i] = heap[child];
+			i = child;
+			child = 2 * i + 1;
+		}
+		heap[i] = last;
+		return (int) top;
+	}
+}
@@ -0,0 +1,91 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+/**
+ * A first in, first out queue of integer indices, for the breadth first
+ * searches of the navigation classes. The indices are kept in a ring buffer
+ * with a power of two capacity, so adding and removing never allocates once
+ * the queue has grown large enough.
+ */
+final class IndexQueue {
+
+	/**
+	 * The indices in the queue, starting at {@link #head}.
+	 */
+	private int[] ring;
+
+	/**
+	 * The position of the first index in the queue.
+	 */
+	private int head;
+
+	/**
+	 * The number of indices in the queue.
+	 */
+	private int size;
+
+	/**
+	 * Creates a new, empty queue.
+	 *
+	 * @param capacity
+	 *            The number of indices the queue initially has room for, a
+	 *            power of two.
+	 */
+	IndexQueue(int capacity) {
+		assert Integer.bitCount(capacity) == 1;
+		this.ring = new int[capacity];
+	}
+
+	/**
+	 * Removes all indices.
+	 */
+	void clear() {
+		head = 0;
+		size = 0;
+	}
+
+	/**
+	 * @return <code>true</code> iff there are no indices in the queue.
+	 */
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return The number of indices in the queue.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Adds an index to the end of the queue.
+	 *
+	 * @param index
+	 *            The index to add.
+	 */
+	void enqueue(int index) {
+		if (size == ring.length) {
+			int[] larger = new int[ring.length * 2];
+			for (int i = 0; i < size; i++) {
+				larger[i] = ring[(head + i) & (ring.length - 1)];
+			}
+			ring = larger;
+			head = 0;
+		}
+		ring[(head + size) & (ring.length - 1)] = index;
+		size++;
+	}
+
+	/**
+	 * Removes the index at the front of the queue.
+	 *
+	 * @return The index.
+	 */
+	int dequeue() {
+		assert size > 0;
+		int index = ring[head];
+		head = (head + 1) & (ring.length - 1);
+		size--;
+		return index;
+	}
+}
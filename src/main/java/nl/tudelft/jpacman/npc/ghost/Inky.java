@@ -1,5 +1,6 @@
 package nl.tudelft.jpacman.npc.ghost;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -44,6 +45,12 @@ public class Inky extends Ghost {
 
 	private static final int SQUARES_AHEAD = 2;
 
+	/**
+	 * The units Inky looks for on every move: Blinky and the player.
+	 */
+	private static final List<Class<? extends Unit>> TARGETS = Arrays
+			.<Class<? extends Unit>>asList(Blinky.class, Player.class);
+
 	/**
 	 * The variation in intervals, this makes the ghosts look more dynamic and
 	 * less predictable.
@@ -65,6 +72,18 @@ public class Inky extends Ghost {
 		super(spriteMap, MOVE_INTERVAL, INTERVAL_VARIATION);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * <p>
+	 * Inky patrols the bottom-right corner of the maze.
+	 * </p>
+	 */
+	@Override
+	public PatrolRoute.Corner getHomeCorner() {
+		return PatrolRoute.Corner.SOUTH_EAST;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * 
@@ -94,15 +113,20 @@ public class Inky extends Ghost {
 	// CHECKSTYLE:OFF To keep this more readable.
 	@Override
 	public Direction nextMove() {
-		Unit blinky = Navigation.findNearest(Blinky.class, getSquare());
-		if (blinky == null) {
-			return randomMove();
+		Direction patrol = scatterMove();
+		if (patrol != null) {
+			return patrol;
 		}
-
-		Unit player = Navigation.findNearest(Player.class, getSquare());
-		if (player == null) {
+		List<Unit> nearest = Navigation.findNearest(TARGETS, getSquare());
+		Unit blinky = nearest.get(0);
+		Unit player = nearest.get(1);
+		if (blinky == null || player == null) {
 			return randomMove();
 		}
+		Direction keep = committedMove(player);
+		if (keep != null) {
+			return keep;
+		}
 
 		Direction targetDirection = player.getDirection();
 		Square playerDestination = player.getSquare();
@@ -121,12 +145,11 @@ public class Inky extends Ghost {
 			destination = playerDestination.getSquareAt(d);
 		}
 
-		List<Direction> path = Navigation.shortestPath(getSquare(),
-				destination, this);
-		if (path != null && !path.isEmpty()) {
-			return path.get(0);
+		Direction step = stepTowards(destination);
+		if (step != null) {
+			return commit(step, player);
 		}
-		return randomMove();
+		return commit(randomMove(), player);
 	}
 	// CHECKSTYLE:ON
 
@@ -0,0 +1,650 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import java.util.Arrays;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+
+/**
+ * A compressed view of the accessible squares of a {@link Board}, in which
+ * every corridor of squares with exactly two accessible neighbours is
+ * collapsed into a single weighted edge between the junctions and dead ends
+ * at its ends. Mazes mostly consist of such corridors, so a search over the
+ * junctions visits a small fraction of the squares a breadth first search
+ * over the board would.
+ * <p>
+ * Every corridor square remembers its corridor, the junctions at both ends,
+ * its distance to them and the direction to walk to reach them. A query
+ * enters the junction graph from the ends of the start corridor, runs a
+ * shortest path search over the junctions only and only keeps track of the
+ * first step of every path, which is all a ghost needs to make its move.
+ * Corridors that form a loop without any junction get one of their squares
+ * promoted to a junction. Like {@link DistanceOracle}, the graph assumes
+ * accessibility does not change during the game and that squares are linked
+ * in both directions.
+ */
+public final class JunctionGraph implements Navigator {
+
+	/**
+	 * The number of ends of a corridor.
+	 */
+	private static final int SIDES = 2;
+
+	/**
+	 * The number of junctions a graph initially has room for.
+	 */
+	private static final int INITIAL_JUNCTIONS = 64;
+
+	/**
+	 * The accessible squares of the board.
+	 */
+	private final SquareGraph graph;
+
+	/**
+	 * The number of the junction at every square, or {@link SquareGraph#NONE}
+	 * for corridor squares.
+	 */
+	private final int[] junctions;
+
+	/**
+	 * The number of the corridor every square is part of, or
+	 * {@link SquareGraph#NONE} for junctions.
+	 */
+	private final int[] corridors;
+
+	/**
+	 * The junction at either end of the corridor of every corridor square,
+	 * stored at <code>square * 2 + side</code>.
+	 */
+	private final int[] ends;
+
+	/**
+	 * The number of steps from every corridor square to either end of its
+	 * corridor, stored at <code>square * 2 + side</code>.
+	 */
+	private final int[] lengths;
+
+	/**
+	 * The ordinal of the direction to walk from every corridor square towards
+	 * either end of its corridor, stored at <code>square * 2 + side</code>.
+	 */
+	private final byte[] exits;
+
+	/**
+	 * The ordinal of the direction to walk from the junction at either end of
+	 * every corridor into that corridor, stored at
+	 * <code>corridor * 2 + side</code>.
+	 */
+	private final byte[] entries;
+
+	/**
+	 * The junction reached by leaving every junction in every direction, or
+	 * {@link SquareGraph#NONE} if that way is blocked, stored at
+	 * <code>junction * 4 + direction</code>.
+	 */
+	private final int[] targets;
+
+	/**
+	 * The number of steps to the junction reached by leaving every junction
+	 * in every direction, stored like {@link #targets}.
+	 */
+	private final int[] weights;
+
+	/**
+	 * The number of junctions.
+	 */
+	private final int junctionCount;
+
+	/**
+	 * Scratch space for the searches of every thread.
+	 */
+	private final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+		@Override
+		protected Scratch initialValue() {
+			return new Scratch(junctionCount);
+		}
+	};
+
+	private JunctionGraph(Builder builder) {
+		this.graph = builder.graph;
+		this.junctions = builder.junctions;
+		this.corridors = builder.corridors;
+		this.ends = builder.ends;
+		this.lengths = builder.lengths;
+		this.exits = builder.exits;
+		this.entries = builder.entries;
+		this.targets = builder.targets;
+		this.weights = builder.weights;
+		this.junctionCount = builder.junctionCount;
+	}
+
+	/**
+	 * Compresses the corridors of a board into a junction graph.
+	 *
+	 * @param board
+	 *            The board to compress.
+	 * @param traveller
+	 *            A representative of the units that will navigate with the
+	 *            graph.
+	 * @return The junction graph of the board.
+	 */
+	public static JunctionGraph create(Board board, Unit traveller) {
+		return new Builder(SquareGraph.create(board, traveller)).build();
+	}
+
+	/**
+	 * @return The number of junctions and dead ends of the board.
+	 */
+	int junctionCount() {
+		return junctionCount;
+	}
+
+	/**
+	 * Determines whether this graph can be used to navigate from a square.
+	 *
+	 * @param square
+	 *            The square to start from.
+	 * @return <code>true</code> iff the square is accessible.
+	 */
+	@Override
+	public boolean covers(Square square) {
+		return graph.indexOf(square) != SquareGraph.NONE;
+	}
+
+	/**
+	 * Returns the number of steps between two squares.
+	 *
+	 * @param from
+	 *            The square to start from.
+	 * @param to
+	 *            The destination.
+	 * @return The length of the shortest path between the squares, or
+	 *         <code>-1</code> if there is none.
+	 */
+	@Override
+	public int distance(Square from, Square to) {
+		int source = graph.indexOf(from);
+		int target = graph.indexOf(to);
+		if (source == SquareGraph.NONE || target == SquareGraph.NONE) {
+			return SquareGraph.NONE;
+		}
+		return search(source, target, scratch.get());
+	}
+
+	/**
+	 * Returns the first step of a shortest path between two squares.
+	 *
+	 * @param from
+	 *            The square to start from.
+	 * @param to
+	 *            The destination.
+	 * @return The direction of the first step, or <code>null</code> if the
+	 *         squares are the same or there is no path between them.
+	 */
+	@Override
+	public Direction firstStep(Square from, Square to) {
+		int source = graph.indexOf(from);
+		int target = graph.indexOf(to);
+		if (source == SquareGraph.NONE || target == SquareGraph.NONE) {
+			return null;
+		}
+		Scratch space = scratch.get();
+		search(source, target, space);
+		if (space.direction == SquareGraph.NONE) {
+			return null;
+		}
+		return SearchContext.DIRECTIONS[space.direction];
+	}
+
+	@Override
+	public Direction firstStep(Square from, Square to, int[] length) {
+		length[0] = SquareGraph.NONE;
+		int source = graph.indexOf(from);
+		int target = graph.indexOf(to);
+		if (source == SquareGraph.NONE || target == SquareGraph.NONE) {
+			return null;
+		}
+		Scratch space = scratch.get();
+		length[0] = search(source, target, space);
+		if (space.direction == SquareGraph.NONE) {
+			return null;
+		}
+		return SearchContext.DIRECTIONS[space.direction];
+	}
+
+	/**
+	 * Searches for a shortest path between two squares, leaving its first
+	 * step in the scratch space.
+	 *
+	 * @param source
+	 *            The index of the square to start from.
+	 * @param target
+	 *            The index of the destination.
+	 * @param space
+	 *            The scratch space of the current thread.
+	 * @return The length of the path, or {@link SquareGraph#NONE} if there is
+	 *         none.
+	 */
+	private int search(int source, int target, Scratch space) {
+		space.direction = SquareGraph.NONE;
+		if (source == target) {
+			return 0;
+		}
+		int best = Integer.MAX_VALUE;
+		if (corridors[source] != SquareGraph.NONE
+				&& corridors[source] == corridors[target]) {
+			int side = 1;
+			if (lengths[target * SIDES] < lengths[source * SIDES]) {
+				side = 0;
+			}
+			best = Math.abs(lengths[target * SIDES] - lengths[source * SIDES]);
+			space.direction = exits[source * SIDES + side];
+		}
+		space.begin();
+		enter(source, space);
+		while (!space.heap.isEmpty()) {
+			int junction = space.heap.pop();
+			if (space.close(junction)) {
+				int cost = space.costs[junction];
+				if (cost >= best) {
+					break;
+				}
+				best = arrive(junction, target, best, space);
+				expand(junction, space);
+			}
+		}
+		if (best == Integer.MAX_VALUE) {
+			return SquareGraph.NONE;
+		}
+		return best;
+	}
+
+	/**
+	 * Opens the junctions a search starts from: the square itself if it is a
+	 * junction, or both ends of its corridor otherwise.
+	 *
+	 * @param source
+	 *            The index of the square to start from.
+	 * @param space
+	 *            The scratch space of the current thread.
+	 */
+	private void enter(int source, Scratch space) {
+		if (junctions[source] != SquareGraph.NONE) {
+			space.open(junctions[source], 0, SquareGraph.NONE);
+			return;
+		}
+		for (int side = 0; side < SIDES; side++) {
+			int slot = source * SIDES + side;
+			space.open(ends[slot], lengths[slot], exits[slot]);
+		}
+	}
+
+	/**
+	 * Checks whether the target can be reached from a junction for which the
+	 * shortest path is known, more cheaply than along the best path so far.
+	 *
+	 * @param junction
+	 *            The closed junction.
+	 * @param target
+	 *            The index of the destination.
+	 * @param best
+	 *            The length of the best path so far.
+	 * @param space
+	 *            The scratch space of the current thread.
+	 * @return The length of the best path from now on.
+	 */
+	private int arrive(int junction, int target, int best, Scratch space) {
+		int cost = space.costs[junction];
+		if (junctions[target] == junction) {
+			space.direction = space.firsts[junction];
+			return cost;
+		}
+		int corridor = corridors[target];
+		int shortest = best;
+		for (int side = 0; corridor != SquareGraph.NONE && side < SIDES; side++) {
+			int slot = target * SIDES + side;
+			if (ends[slot] == junction && cost + lengths[slot] < shortest) {
+				shortest = cost + lengths[slot];
+				space.direction = space.firsts[junction];
+				if (space.direction == SquareGraph.NONE) {
+					space.direction = entries[corridor * SIDES + side];
+				}
+			}
+		}
+		return shortest;
+	}
+
+	/**
+	 * Opens the neighbours of a junction for which the shortest path is
+	 * known.
+	 *
+	 * @param junction
+	 *            The closed junction.
+	 * @param space
+	 *            The scratch space of the current thread.
+	 */
+	private void expand(int junction, Scratch space) {
+		int cost = space.costs[junction];
+		byte first = space.firsts[junction];
+		for (int d = 0; d < SquareGraph.WAYS; d++) {
+			int slot = junction * SquareGraph.WAYS + d;
+			if (targets[slot] != SquareGraph.NONE) {
+				int step = first;
+				if (step == SquareGraph.NONE) {
+					step = d;
+				}
+				space.open(targets[slot], cost + weights[slot], step);
+			}
+		}
+	}
+
+	/**
+	 * Compresses the corridors of a {@link SquareGraph}.
+	 */
+	private static final class Builder {
+
+		/**
+		 * The graph being compressed.
+		 */
+		private final SquareGraph graph;
+
+		/**
+		 * The junction at every square, see {@link JunctionGraph#junctions}.
+		 */
+		private final int[] junctions;
+
+		/**
+		 * The corridor of every square, see {@link JunctionGraph#corridors}.
+		 */
+		private final int[] corridors;
+
+		/**
+		 * See {@link JunctionGraph#ends}.
+		 */
+		private final int[] ends;
+
+		/**
+		 * See {@link JunctionGraph#lengths}.
+		 */
+		private final int[] lengths;
+
+		/**
+		 * See {@link JunctionGraph#exits}.
+		 */
+		private final byte[] exits;
+
+		/**
+		 * The squares of the corridor being traced.
+		 */
+		private final int[] trail;
+
+		/**
+		 * See {@link JunctionGraph#entries}.
+		 */
+		private byte[] entries = new byte[INITIAL_JUNCTIONS * SIDES];
+
+		/**
+		 * See {@link JunctionGraph#targets}.
+		 */
+		private int[] targets = new int[0];
+
+		/**
+		 * See {@link JunctionGraph#weights}.
+		 */
+		private int[] weights = new int[0];
+
+		/**
+		 * The number of junctions found so far.
+		 */
+		private int junctionCount;
+
+		/**
+		 * The number of corridors traced so far.
+		 */
+		private int corridorCount;
+
+		/**
+		 * Prepares the compression of a graph.
+		 *
+		 * @param squares
+		 *            The graph to compress.
+		 */
+		Builder(SquareGraph squares) {
+			this.graph = squares;
+			int size = squares.size();
+			this.junctions = new int[size];
+			this.corridors = new int[size];
+			this.ends = new int[size * SIDES];
+			this.lengths = new int[size * SIDES];
+			this.exits = new byte[size * SIDES];
+			this.trail = new int[size];
+			Arrays.fill(junctions, SquareGraph.NONE);
+			Arrays.fill(corridors, SquareGraph.NONE);
+		}
+
+		/**
+		 * @return The junction graph.
+		 */
+		JunctionGraph build() {
+			int size = graph.size();
+			for (int i = 0; i < size; i++) {
+				if (graph.degree(i) != SIDES) {
+					addJunction(i);
+				}
+			}
+			for (int i = 0; i < size; i++) {
+				if (junctions[i] != SquareGraph.NONE) {
+					traceFrom(i);
+				}
+			}
+			for (int i = 0; i < size; i++) {
+				if (junctions[i] == SquareGraph.NONE
+						&& corridors[i] == SquareGraph.NONE) {
+					addJunction(i);
+					traceFrom(i);
+				}
+			}
+			return new JunctionGraph(this);
+		}
+
+		private void addJunction(int square) {
+			int slots = (junctionCount + 1) * SquareGraph.WAYS;
+			if (slots > targets.length) {
+				int capacity = Math.max(slots, targets.length * 2);
+				int old = targets.length;
+				targets = Arrays.copyOf(targets, capacity);
+				weights = Arrays.copyOf(weights, capacity);
+				Arrays.fill(targets, old, capacity, SquareGraph.NONE);
+			}
+			junctions[square] = junctionCount++;
+		}
+
+		/**
+		 * Links a junction to the junctions it reaches in every direction
+		 * that does not lead into an already traced corridor.
+		 *
+		 * @param square
+		 *            The index of the junction square.
+		 */
+		private void traceFrom(int square) {
+			for (int d = 0; d < SquareGraph.WAYS; d++) {
+				int next = graph.neighbour(square, d);
+				if (next == SquareGraph.NONE) {
+					continue;
+				}
+				if (junctions[next] != SquareGraph.NONE) {
+					link(junctions[square], d, junctions[next], 1);
+				} else if (corridors[next] == SquareGraph.NONE) {
+					trace(square, d);
+				}
+			}
+		}
+
+		/**
+		 * Walks a corridor from a junction to the junction at its other end,
+		 * recording the way to both ends on every square along the way.
+		 *
+		 * @param start
+		 *            The index of the junction square to start from.
+		 * @param direction
+		 *            The ordinal of the direction the corridor leaves in.
+		 */
+		private void trace(int start, int direction) {
+			int corridor = corridorCount++;
+			int count = 0;
+			int heading = direction;
+			int current = graph.neighbour(start, direction);
+			while (junctions[current] == SquareGraph.NONE) {
+				int back = SquareGraph.opposite(heading);
+				corridors[current] = corridor;
+				ends[current * SIDES] = junctions[start];
+				lengths[current * SIDES] = count + 1;
+				exits[current * SIDES] = (byte) back;
+				heading = onwards(current, back);
+				exits[current * SIDES + 1] = (byte) heading;
+				trail[count++] = current;
+				current = graph.neighbour(current, heading);
+			}
+			int length = count + 1;
+			for (int i = 0; i < count; i++) {
+				ends[trail[i] * SIDES + 1] = junctions[current];
+				lengths[trail[i] * SIDES + 1] = length - lengths[trail[i] * SIDES];
+			}
+			int arrival = SquareGraph.opposite(heading);
+			addCorridor(corridor, direction, arrival);
+			link(junctions[start], direction, junctions[current], length);
+			link(junctions[current], arrival, junctions[start], length);
+		}
+
+		private int onwards(int square, int back) {
+			for (int d = 0; d < SquareGraph.WAYS; d++) {
+				if (d != back && graph.neighbour(square, d) != SquareGraph.NONE) {
+					return d;
+				}
+			}
+			return back;
+		}
+
+		private void addCorridor(int corridor, int first, int last) {
+			if ((corridor + 1) * SIDES > entries.length) {
+				entries = Arrays.copyOf(entries, entries.length * 2);
+			}
+			entries[corridor * SIDES] = (byte) first;
+			entries[corridor * SIDES + 1] = (byte) last;
+		}
+
+		private void link(int from, int direction, int to, int length) {
+			targets[from * SquareGraph.WAYS + direction] = to;
+			weights[from * SquareGraph.WAYS + direction] = length;
+		}
+	}
+
+	/**
+	 * The scratch space of the searches of a single thread.
+	 */
+	private static final class Scratch {
+
+		/**
+		 * The generation in which every junction was last opened.
+		 */
+		private final int[] opened;
+
+		/**
+		 * The generation in which every junction was last closed.
+		 */
+		private final int[] closed;
+
+		/**
+		 * The number of steps it takes to reach every opened junction.
+		 */
+		private final int[] costs;
+
+		/**
+		 * The ordinal of the first step towards every opened junction, or
+		 * {@link SquareGraph#NONE} for the junction a search started from.
+		 */
+		private final byte[] firsts;
+
+		/**
+		 * The opened junctions by the number of steps it takes to reach them.
+		 */
+		private final IndexHeap heap;
+
+		/**
+		 * The generation of the current search.
+		 */
+		private int generation;
+
+		/**
+		 * The ordinal of the first step of the best path of the last search,
+		 * or {@link SquareGraph#NONE} if there is none.
+		 */
+		private int direction;
+
+		/**
+		 * Creates scratch space for a graph.
+		 *
+		 * @param size
+		 *            The number of junctions of the graph.
+		 */
+		Scratch(int size) {
+			this.opened = new int[size];
+			this.closed = new int[size];
+			this.costs = new int[size];
+			this.firsts = new byte[size];
+			this.heap = new IndexHeap(size);
+		}
+
+		/**
+		 * Starts a new search.
+		 */
+		void begin() {
+			generation++;
+			if (generation == 0) {
+				Arrays.fill(opened, 0);
+				Arrays.fill(closed, 0);
+				generation = 1;
+			}
+			heap.clear();
+		}
+
+		/**
+		 * Records a way to reach a junction, if it is cheaper than any way
+		 * found before.
+		 *
+		 * @param junction
+		 *            The junction reached.
+		 * @param cost
+		 *            The number of steps it takes to reach it this way.
+		 * @param first
+		 *            The ordinal of the first step of this way.
+		 */
+		void open(int junction, int cost, int first) {
+			if (closed[junction] == generation
+					|| (opened[junction] == generation && costs[junction] <= cost)) {
+				return;
+			}
+			opened[junction] = generation;
+			costs[junction] = cost;
+			firsts[junction] = (byte) first;
+			heap.push(junction, cost);
+		}
+
+		/**
+		 * Closes a junction, meaning the shortest way to reach it is known.
+		 *
+		 * @param junction
+		 *            The junction to close.
+		 * @return <code>true</code> iff it was not closed before.
+		 */
+		boolean close(int junction) {
+			if (closed[junction] == generation) {
+				return false;
+			}
+			closed[junction] = generation;
+			return true;
+		}
+	}
+}
@@ -0,0 +1,373 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+import nl.tudelft.jpacman.level.Player;
+import nl.tudelft.jpacman.sprite.Sprite;
+
+/**
+ * A ghost that looks ahead instead of following a fixed rule. Before every
+ * move it runs a Monte Carlo tree search over a compact model of the chase,
+ * in which it tries to catch the nearest player while the player moves at
+ * random, and takes the first move it tried most.
+ * <p>
+ * The search thinks ahead: when the ghost moves, it starts a search from the
+ * square it moves to, which runs while the ghost walks there and stops when
+ * its thinking time is up. The ghost takes the move it found at its next
+ * decision if the search finished by then, and steps towards the player
+ * otherwise, so deciding never waits for a search. It runs on several workers
+ * of a fork-join pool at once, each with a transposition table and buffers of
+ * its own that are kept between moves, so the ghost can use spare cores
+ * without allocating while it thinks. The time, the look-ahead, the size of
+ * the tables and the pool can all be tuned.
+ */
+public class MonteCarloGhost extends Ghost {
+
+	/**
+	 * The default thinking time of a move, in milliseconds.
+	 */
+	public static final long DEFAULT_THINKING_TIME = 10L;
+
+	/**
+	 * The default number of moves the ghost looks ahead.
+	 */
+	public static final int DEFAULT_HORIZON = 24;
+
+	/**
+	 * The default number of states in the table of every worker.
+	 */
+	public static final int DEFAULT_TABLE_SIZE = 1 << 14;
+
+	/**
+	 * The variation in intervals, this makes the ghosts look more dynamic and
+	 * less predictable.
+	 */
+	private static final int INTERVAL_VARIATION = 50;
+
+	/**
+	 * The base movement interval.
+	 */
+	private static final int MOVE_INTERVAL = 250;
+
+	/**
+	 * The pool the workers run on.
+	 */
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+	/**
+	 * The number of workers searching at once.
+	 */
+	private int parallelism = ForkJoinPool.getCommonPoolParallelism();
+
+	/**
+	 * The thinking time of a move, in nanoseconds.
+	 */
+	private long thinkingTime = TimeUnit.MILLISECONDS
+			.toNanos(DEFAULT_THINKING_TIME);
+
+	/**
+	 * The number of moves the ghost looks ahead.
+	 */
+	private int horizon = DEFAULT_HORIZON;
+
+	/**
+	 * The number of states in the table of every worker.
+	 */
+	private int tableSize = DEFAULT_TABLE_SIZE;
+
+	/**
+	 * The workers with their tables, or <code>null</code> if they have to
+	 * be created before the next search.
+	 */
+	private RolloutWorker[] workers;
+
+	/**
+	 * The graph the workers search, or <code>null</code>.
+	 */
+	private SquareGraph graph;
+
+	/**
+	 * The board the graph was created for.
+	 */
+	private Board board;
+
+	/**
+	 * The topology version of the board when the graph was created.
+	 */
+	private long version;
+
+	/**
+	 * The search started on the last move, or <code>null</code> if its
+	 * result was taken.
+	 */
+	private Search pending;
+
+	/**
+	 * The number of iterations of all searches so far.
+	 */
+	private long iterations;
+
+	/**
+	 * Creates a new searching ghost.
+	 *
+	 * @param spriteMap
+	 *            The sprites for this ghost.
+	 */
+	public MonteCarloGhost(Map<Direction, Sprite> spriteMap) {
+		super(spriteMap, MOVE_INTERVAL, INTERVAL_VARIATION);
+	}
+
+	/**
+	 * Sets the pool the ghost searches on.
+	 *
+	 * @param workerPool
+	 *            The pool to run the workers on.
+	 * @param workerCount
+	 *            The number of workers searching at once, at least one.
+	 */
+	public void setWorkerPool(ForkJoinPool workerPool, int workerCount) {
+		assert workerPool != null;
+		assert workerCount > 0;
+		this.pool = workerPool;
+		this.parallelism = workerCount;
+		this.workers = null;
+	}
+
+	/**
+	 * Sets the time the ghost thinks about every move.
+	 *
+	 * @param time
+	 *            The thinking time, more than zero.
+	 * @param unit
+	 *            The unit of the time.
+	 */
+	public void setThinkingTime(long time, TimeUnit unit) {
+		assert time > 0;
+		this.thinkingTime = unit.toNanos(time);
+	}
+
+	/**
+	 * Sets how far ahead the ghost looks.
+	 *
+	 * @param moves
+	 *            The largest number of moves of the ghost in one playout, at
+	 *            least one.
+	 */
+	public void setHorizon(int moves) {
+		assert moves > 0;
+		this.horizon = moves;
+		this.workers = null;
+	}
+
+	/**
+	 * Sets the size of the transposition table of every worker.
+	 *
+	 * @param states
+	 *            The number of states in a table, a power of two.
+	 */
+	public void setTableSize(int states) {
+		assert Integer.bitCount(states) == 1;
+		this.tableSize = states;
+		this.workers = null;
+	}
+
+	/**
+	 * @return The number of playouts of all finished searches of this ghost
+	 *         whose result was taken so far.
+	 */
+	public long getIterations() {
+		return iterations;
+	}
+
+	@Override
+	public Direction nextMove() {
+		Direction patrol = scatterMove();
+		if (patrol != null) {
+			return patrol;
+		}
+		Unit player = Navigation.findNearest(Player.class, getSquare());
+		if (player == null || player.getSquare() == null) {
+			return randomMove();
+		}
+		Direction move = committedMove(player);
+		if (move != null) {
+			thinkAhead(move, player.getSquare());
+			return move;
+		}
+
+		move = searchedMove();
+		if (move == null) {
+			move = stepTowards(player);
+		}
+		if (move == null) {
+			move = randomMove();
+		}
+		thinkAhead(move, player.getSquare());
+		return commit(move, player);
+	}
+
+	/**
+	 * Takes the result of the search started on the last move, if it has
+	 * finished and started from where the ghost is now, on a board whose
+	 * layout did not change since.
+	 *
+	 * @return The first move tried most, or <code>null</code> if there is no
+	 *         such search or it found no move.
+	 */
+	private Direction searchedMove() {
+		Search search = finished();
+		Square square = getSquare();
+		if (search == null || square.getBoard() != board
+				|| board.getTopologyVersion() != version
+				|| search.graph.indexOf(square) != search.root) {
+			return null;
+		}
+		return search.bestMove();
+	}
+
+	/**
+	 * Starts searching for the best move from the square the ghost is about
+	 * to move to, if it decides there and no search is running.
+	 *
+	 * @param move
+	 *            The move the ghost is about to make.
+	 * @param target
+	 *            The square of the player.
+	 */
+	private void thinkAhead(Direction move, Square target) {
+		if (move == null || (pending != null && !pending.isDone())) {
+			return;
+		}
+		finished();
+		Square next = getSquare().getSquareAt(move);
+		if (next.getBoard() == null || !decidesAt(next)) {
+			return;
+		}
+		prepareWorkers(next.getBoard());
+		int ghost = graph.indexOf(next);
+		int player = graph.indexOf(target);
+		if (ghost == SquareGraph.NONE || player == SquareGraph.NONE
+				|| graph.degree(ghost) == 0) {
+			return;
+		}
+		long stop = System.nanoTime() + thinkingTime;
+		for (RolloutWorker worker : workers) {
+			worker.prepare(ghost, player, stop);
+		}
+		pending = new Search(graph, ghost, workers);
+		pool.execute(pending);
+	}
+
+	/**
+	 * Takes the search started on the last move, if it has finished, and
+	 * counts its iterations.
+	 *
+	 * @return The search, or <code>null</code> if there is none or it is
+	 *         still running.
+	 */
+	private Search finished() {
+		Search search = pending;
+		if (search == null || !search.isDone()) {
+			return null;
+		}
+		pending = null;
+		search.join();
+		for (RolloutWorker worker : search.workers) {
+			iterations += worker.getIterations();
+		}
+		return search;
+	}
+
+	/**
+	 * Waits for the search started on the last move, if any, to finish.
+	 */
+	void awaitSearch() {
+		Search search = pending;
+		if (search != null) {
+			search.join();
+		}
+	}
+
+	/**
+	 * Models the board and creates the workers, if the board or its layout
+	 * changed or the settings did since the last search.
+	 */
+	private void prepareWorkers(Board current) {
+		if (workers != null && board == current
+				&& current.getTopologyVersion() == version) {
+			return;
+		}
+		board = current;
+		version = current.getTopologyVersion();
+		graph = SquareGraph.create(current, this);
+		workers = new RolloutWorker[parallelism];
+		long seed = System.nanoTime();
+		for (int i = 0; i < parallelism; i++) {
+			workers[i] = new RolloutWorker(graph, current.getWidth(),
+					current.getHeight(), horizon, tableSize, seed + i);
+		}
+	}
+
+	/**
+	 * Runs all workers of a search at once.
+	 */
+	private static final class Search extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The graph the workers search.
+		 */
+		private final SquareGraph graph;
+
+		/**
+		 * The square of the ghost the search starts from.
+		 */
+		private final int root;
+
+		/**
+		 * The workers to run.
+		 */
+		private final RolloutWorker[] workers;
+
+		Search(SquareGraph squares, int start, RolloutWorker[] searchers) {
+			this.graph = squares;
+			this.root = start;
+			this.workers = searchers;
+		}
+
+		@Override
+		protected void compute() {
+			invokeAll(workers);
+		}
+
+		/**
+		 * Combines the statistics of the first moves of all workers.
+		 */
+		private Direction bestMove() {
+			int best = SquareGraph.NONE;
+			int most = 0;
+			for (int d = 0; d < SquareGraph.WAYS; d++) {
+				int visits = 0;
+				for (RolloutWorker worker : workers) {
+					visits += worker.visitsOf(d);
+				}
+				if (visits > most) {
+					most = visits;
+					best = d;
+				}
+			}
+			if (best == SquareGraph.NONE) {
+				return null;
+			}
+			return SearchContext.DIRECTIONS[best];
+		}
+	}
+}
@@ -1,10 +1,13 @@
 package nl.tudelft.jpacman.npc.ghost;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
+import nl.tudelft.jpacman.board.BitLayer;
+import nl.tudelft.jpacman.board.Board;
 import nl.tudelft.jpacman.board.Direction;
 import nl.tudelft.jpacman.board.Square;
 import nl.tudelft.jpacman.board.Unit;
@@ -16,11 +19,152 @@ import nl.tudelft.jpacman.board.Unit;
  */
 public final class Navigation {
 
+	/**
+	 * The largest number of units of a type for which
+	 * {@link #findNearest(Class, Square)} compares the distance to each of
+	 * them, rather than searching the squares around the start.
+	 */
+	public static final int LINEAR_SCAN_LIMIT = 32;
+
+	/**
+	 * The default number of squares a board needs to have before breadth
+	 * first searches on it grow from both ends.
+	 */
+	public static final int DEFAULT_BIDIRECTIONAL_THRESHOLD = 4096;
+
+	/**
+	 * The default number of paths of a board kept by the path cache.
+	 */
+	public static final int DEFAULT_PATH_CACHE_CAPACITY = 1024;
+
+	/**
+	 * The result of a search that cannot reach its destination.
+	 */
+	private static final int NOT_FOUND = -1;
+
+	/**
+	 * The algorithm used when no strategy is given explicitly.
+	 */
+	private static volatile SearchStrategy defaultStrategy =
+			SearchStrategy.BREADTH_FIRST;
+
+	/**
+	 * The number of squares a board needs to have before breadth first
+	 * searches on it grow from both ends.
+	 */
+	private static volatile int bidirectionalThreshold =
+			DEFAULT_BIDIRECTIONAL_THRESHOLD;
+
+	/**
+	 * The most recently found paths.
+	 */
+	private static final PathCache PATH_CACHE =
+			new PathCache(DEFAULT_PATH_CACHE_CAPACITY);
+
 	private Navigation() {
 	}
+
+	/**
+	 * Sets the number of paths between squares of a board that are kept, so
+	 * asking for the same path again does not search again until the
+	 * {@link Board#getTopologyVersion() topology} of the board changes.
+	 * Paths are cached per class of traveller, so units of the same class
+	 * should be able to access the same squares. The paths of a board are
+	 * kept apart from those of other boards and are forgotten along with it.
+	 * 
+	 * @param paths
+	 *            The number of paths to keep per board, or <code>0</code> to
+	 *            always search.
+	 */
+	public static void setPathCacheCapacity(int paths) {
+		assert paths >= 0;
+		PATH_CACHE.resize(paths);
+	}
+
+	/**
+	 * @return The number of paths of a board kept by the path cache.
+	 */
+	public static int getPathCacheCapacity() {
+		return PATH_CACHE.capacity();
+	}
+
+	/**
+	 * Forgets all cached paths.
+	 */
+	public static void clearPathCache() {
+		PATH_CACHE.clear();
+	}
+
+	/**
+	 * @return The number of paths taken from the path cache since the last
+	 *         {@link #resetPathCacheStatistics() reset}.
+	 */
+	public static long getPathCacheHits() {
+		return PATH_CACHE.hits();
+	}
+
+	/**
+	 * @return The number of cacheable paths that had to be searched for
+	 *         since the last {@link #resetPathCacheStatistics() reset}.
+	 */
+	public static long getPathCacheMisses() {
+		return PATH_CACHE.misses();
+	}
+
+	/**
+	 * Resets the hit and miss counters of the path cache.
+	 */
+	public static void resetPathCacheStatistics() {
+		PATH_CACHE.resetStatistics();
+	}
+
+	/**
+	 * Sets the size from which breadth first searches between two squares
+	 * of the same board grow from both the start and the destination until
+	 * they meet, which visits far fewer squares on large or open boards.
+	 * 
+	 * @param squares
+	 *            The number of squares a board needs to have, or
+	 *            {@link Integer#MAX_VALUE} to always search from the start
+	 *            only.
+	 */
+	public static void setBidirectionalThreshold(int squares) {
+		assert squares >= 0;
+		bidirectionalThreshold = squares;
+	}
+
+	/**
+	 * @return The number of squares a board needs to have before breadth
+	 *         first searches on it grow from both ends.
+	 */
+	public static int getBidirectionalThreshold() {
+		return bidirectionalThreshold;
+	}
+
+	/**
+	 * Sets the algorithm {@link #shortestPath(Square, Square, Unit)} uses.
+	 * 
+	 * @param strategy
+	 *            The algorithm to find shortest paths with.
+	 */
+	public static void setDefaultStrategy(SearchStrategy strategy) {
+		assert strategy != null;
+		defaultStrategy = strategy;
+	}
+
+	/**
+	 * @return The algorithm {@link #shortestPath(Square, Square, Unit)} uses.
+	 */
+	public static SearchStrategy getDefaultStrategy() {
+		return defaultStrategy;
+	}
 	
 	/**
-	 * Calculates the shortest path. This is done by BFS. This search ensures
+	 * Calculates the shortest path. This is done by BFS, unless another
+	 * {@link #setDefaultStrategy(SearchStrategy) default strategy} has been
+	 * set. On boards of at least the
+	 * {@link #setBidirectionalThreshold(int) bidirectional threshold} the BFS
+	 * grows from both ends. This search ensures
 	 * the traveller is allowed to occupy the squares on the way, or returns the
 	 * shortest path to the square regardless of terrain if no traveller is
 	 * specified.
@@ -33,48 +177,491 @@ public final class Navigation {
 	 *            The traveller attempting to reach the destination. If
 	 *            traveller is set to <code>null</code>, this method will ignore
 	 *            terrain and find the shortest path whether it can actually be
-	 *            reached or not.
+	 *            reached or not. For squares on the same board, that path is
+	 *            computed from their coordinates without a search.
 	 * @return The shortest path to the destination or <code>null</code> if no
 	 *         such path could be found. When the destination is the current
 	 *         square, an empty list is returned.
 	 */
 	public static List<Direction> shortestPath(Square from, Square to,
 			Unit traveller) {
+		return shortestPath(from, to, traveller, defaultStrategy);
+	}
+
+	/**
+	 * Calculates the shortest path with the given algorithm, or takes it from
+	 * the {@link #setPathCacheCapacity(int) path cache}. This search
+	 * ensures the traveller is allowed to occupy the squares on the way, or
+	 * returns the shortest path to the square regardless of terrain if no
+	 * traveller is specified.
+	 * 
+	 * @param from
+	 *            The starting square.
+	 * @param to
+	 *            The destination.
+	 * @param traveller
+	 *            The traveller attempting to reach the destination, or
+	 *            <code>null</code> to ignore terrain.
+	 * @param strategy
+	 *            The algorithm to find the path with.
+	 * @return The shortest path to the destination or <code>null</code> if no
+	 *         such path could be found. When the destination is the current
+	 *         square, an empty list is returned.
+	 */
+	public static List<Direction> shortestPath(Square from, Square to,
+			Unit traveller, SearchStrategy strategy) {
 		if (from.equals(to)) {
 			return new ArrayList<>();
 		}
+		if (traveller == null && isOnSameBoard(from, to)) {
+			return straightPath(from, to);
+		}
+		if (!PATH_CACHE.accepts(from, to)) {
+			return search(from, to, traveller, strategy);
+		}
+		PathCache.Key key = new PathCache.Key(from, to, traveller, strategy);
+		PathCache.Entry cached = PATH_CACHE.get(from.getBoard(), key);
+		if (cached != null) {
+			return cached.path();
+		}
+		long version = from.getBoard().getTopologyVersion();
+		List<Direction> path = search(from, to, traveller, strategy);
+		PATH_CACHE.put(from.getBoard(), key, version, path);
+		return path;
+	}
 
-		List<Node> targets = new ArrayList<>();
-		Set<Square> visited = new HashSet<>();
-		targets.add(new Node(null, from, null));
-		while (!targets.isEmpty()) {
-			Node n = targets.remove(0);
-			Square s = n.getSquare();
-			if (s.equals(to)) {
-				return n.getPath();
+	private static List<Direction> search(Square from, Square to,
+			Unit traveller, SearchStrategy strategy) {
+		if (strategy == SearchStrategy.A_STAR) {
+			return aStar(from, to, traveller);
+		}
+		if (isLarge(from, to)) {
+			return bidirectional(from, to, traveller);
+		}
+		return breadthFirst(from, to, traveller);
+	}
+
+	private static boolean isLarge(Square from, Square to) {
+		Board board = from.getBoard();
+		return isOnSameBoard(from, to)
+				&& (long) board.getWidth() * board.getHeight()
+					>= bidirectionalThreshold;
+	}
+
+	private static boolean isOnSameBoard(Square from, Square to) {
+		return from.getBoard() != null && from.getBoard() == to.getBoard();
+	}
+
+	/**
+	 * Computes a shortest path between two squares of the same board
+	 * regardless of terrain, from their coordinates alone. As the board wraps
+	 * around its edges, each axis is crossed the shorter way round, north or
+	 * west if both ways are equally long: first all steps along the y axis,
+	 * then all steps along the x axis. This is the path a breadth first
+	 * search expanding north, south, west and east in that order finds.
+	 * 
+	 * @param from
+	 *            The starting square.
+	 * @param to
+	 *            The destination, on the same board.
+	 * @return The directions from the start to the destination.
+	 */
+	static List<Direction> straightPath(Square from, Square to) {
+		Board board = from.getBoard();
+		int width = board.getWidth();
+		int height = board.getHeight();
+		int dx = Math.floorMod(to.getX() - from.getX(), width);
+		int dy = Math.floorMod(to.getY() - from.getY(), height);
+		List<Direction> path = new ArrayList<>(estimate(from, to));
+		addSteps(path, dy, height, Direction.SOUTH, Direction.NORTH);
+		addSteps(path, dx, width, Direction.EAST, Direction.WEST);
+		return path;
+	}
+
+	/**
+	 * Adds the steps along one axis of a path, going around the board if
+	 * that is shorter, or if it is just as short.
+	 * 
+	 * @param path
+	 *            The path to add the steps to.
+	 * @param ahead
+	 *            The number of steps in the forward direction, less than the
+	 *            size of the board along the axis.
+	 * @param size
+	 *            The size of the board along the axis.
+	 * @param forward
+	 *            The direction of increasing coordinates.
+	 * @param backward
+	 *            The direction of decreasing coordinates.
+	 */
+	private static void addSteps(List<Direction> path, int ahead, int size,
+			Direction forward, Direction backward) {
+		if (ahead < size - ahead) {
+			path.addAll(Collections.nCopies(ahead, forward));
+		} else {
+			path.addAll(Collections.nCopies(size - ahead, backward));
+		}
+	}
+
+	private static List<Direction> breadthFirst(Square from, Square to,
+			Unit traveller) {
+		SearchContext search = SearchContext.current();
+		search.begin(from);
+		int start = search.indexOf(from);
+		int goal = search.indexOf(to);
+		search.visit(start, -1, null);
+		search.enqueue(start);
+		while (!search.isQueueEmpty()) {
+			int found = expand(search, search.dequeue(), goal, traveller);
+			if (found >= 0) {
+				return search.pathTo(found);
 			}
-			visited.add(s);
-			addNewTargets(traveller, targets, visited, n, s);
 		}
 		return null;
 	}
 
-	private static void addNewTargets(Unit traveller, List<Node> targets,
-			Set<Square> visited, Node n, Square s) {
-		for (Direction d : Direction.values()) {
-			Square target = s.getSquareAt(d);
-			if (!visited.contains(target)
-					&& (traveller == null || target
-							.isAccessibleTo(traveller))) {
-				targets.add(new Node(d, target, n));
+	/**
+	 * Searches breadth first from both ends at once, each time expanding a
+	 * whole layer of the side with the fewest squares queued. The forward
+	 * half steps onto squares the traveller can occupy, like a
+	 * plain breadth first search. The backward half follows
+	 * the same steps in reverse, so it only steps back onto squares the
+	 * traveller could have walked through, or onto the start. Because whole
+	 * layers are expanded and every newly reached square is checked against
+	 * the other half, the first square both halves reach lies on a shortest
+	 * path.
+	 */
+	private static List<Direction> bidirectional(Square from, Square to,
+			Unit traveller) {
+		if (!isPassable(to, traveller)) {
+			return null;
+		}
+		SearchContext search = SearchContext.current();
+		search.begin(from);
+		int start = search.indexOf(from);
+		search.visit(start, -1, null);
+		search.enqueue(start);
+		int goal = search.indexOf(to);
+		search.visitBackward(goal, -1, null);
+		search.enqueueBackward(goal);
+		while (search.queueSize() > 0 && search.backwardQueueSize() > 0) {
+			int meet;
+			if (search.queueSize() <= search.backwardQueueSize()) {
+				meet = forwardLayer(search, traveller);
+			} else {
+				meet = backwardLayer(search, traveller);
+			}
+			if (meet >= 0) {
+				return search.pathThrough(meet);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Expands the squares queued by the forward half of a bidirectional
+	 * search.
+	 * 
+	 * @return The index of the first square reached by both halves, or
+	 *         <code>-1</code> if the halves did not meet.
+	 */
+	private static int forwardLayer(SearchContext search, Unit traveller) {
+		for (int n = search.queueSize(); n > 0; n--) {
+			int current = search.dequeue();
+			Square s = search.stepFrom(current);
+			for (Direction d : SearchContext.DIRECTIONS) {
+				int next = search.step(current, s, d, traveller);
+				if (next != SearchContext.NONE && search.visit(next, current, d)) {
+					if (search.isVisitedBackward(next)) {
+						return next;
+					}
+					search.enqueue(next);
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Expands the squares queued by the backward half of a bidirectional
+	 * search, stepping back to every square that leads to them.
+	 * 
+	 * @return The index of the first square reached by both halves, or
+	 *         <code>-1</code> if the halves did not meet.
+	 */
+	private static int backwardLayer(SearchContext search, Unit traveller) {
+		for (int n = search.backwardQueueSize(); n > 0; n--) {
+			int current = search.dequeueBackward();
+			Square s = search.stepFrom(current);
+			for (Direction d : SearchContext.DIRECTIONS) {
+				int previous = search.stepBack(current, s, d);
+				if (previous == SearchContext.NONE) {
+					continue;
+				}
+				if (search.isVisited(previous)) {
+					search.visitBackward(previous, current, d);
+					return previous;
+				}
+				if (search.isPassable(previous, traveller)
+						&& search.visitBackward(previous, current, d)) {
+					search.enqueueBackward(previous);
+				}
+			}
+		}
+		return -1;
+	}
+
+	private static List<Direction> aStar(Square from, Square to,
+			Unit traveller) {
+		SearchContext search = SearchContext.current();
+		search.begin(from);
+		int start = search.indexOf(from);
+		int goal = search.indexOf(to);
+		search.relax(start, -1, null, 0);
+		search.push(start, estimate(from, to));
+		while (!search.isHeapEmpty()) {
+			int current = search.pop();
+			if (!search.close(current)) {
+				continue;
+			}
+			if (current == goal) {
+				return search.pathTo(current);
+			}
+			relaxNeighbours(search, current, to, traveller);
+		}
+		return null;
+	}
+
+	/**
+	 * Determines the first step of a shortest path with an A* search that
+	 * stops when it runs out of budget, or takes it from the
+	 * {@link #setPathCacheCapacity(int) path cache}. A search that runs out
+	 * settles for the first step towards the square it reached that is
+	 * estimated to be closest to the destination, and is recorded as an
+	 * overrun of the budget.
+	 * 
+	 * @param from
+	 *            The starting square.
+	 * @param to
+	 *            The destination.
+	 * @param traveller
+	 *            The traveller attempting to reach the destination.
+	 * @param budget
+	 *            The limit on the work of the search.
+	 * @return The first step towards the destination, or <code>null</code> if
+	 *         the destination is the starting square, cannot be reached, or
+	 *         the search did not get any closer to it.
+	 */
+	public static Direction firstStepWithin(Square from, Square to,
+			Unit traveller, SearchBudget budget) {
+		return pathWithin(from, to, traveller, budget).firstStep();
+	}
+
+	/**
+	 * Searches for a shortest path like
+	 * {@link #firstStepWithin(Square, Square, Unit, SearchBudget)}, keeping
+	 * the whole path so its length can tell how far the destination is.
+	 * 
+	 * @param from
+	 *            The starting square.
+	 * @param to
+	 *            The destination.
+	 * @param traveller
+	 *            The traveller attempting to reach the destination.
+	 * @param budget
+	 *            The limit on the work of the search.
+	 * @return The path found, which only leads to the square estimated to be
+	 *         closest to the destination if the search ran out of budget.
+	 */
+	static BudgetedPath pathWithin(Square from, Square to, Unit traveller,
+			SearchBudget budget) {
+		if (from.equals(to)) {
+			return new BudgetedPath(Collections.<Direction>emptyList(), true);
+		}
+		PathCache.Key key = null;
+		long version = 0L;
+		if (PATH_CACHE.accepts(from, to)) {
+			key = new PathCache.Key(from, to, traveller, SearchStrategy.A_STAR);
+			PathCache.Entry cached = PATH_CACHE.get(from.getBoard(), key);
+			if (cached != null) {
+				return new BudgetedPath(cached.path(), true);
 			}
+			version = from.getBoard().getTopologyVersion();
+		}
+		SearchContext search = SearchContext.current();
+		int found = budgetedAStar(search, from, to, traveller, budget);
+		if (found < NOT_FOUND) {
+			budget.overrun();
+			return new BudgetedPath(search.pathTo(NOT_FOUND - 1 - found), false);
 		}
+		List<Direction> path = null;
+		if (found != NOT_FOUND) {
+			path = search.pathTo(found);
+		}
+		if (key != null) {
+			PATH_CACHE.put(from.getBoard(), key, version, path);
+		}
+		return new BudgetedPath(path, true);
 	}
 
 	/**
-	 * Finds the nearest unit of the given type and returns its location. This
-	 * method will perform a breadth first search starting from the given
-	 * square.
+	 * Runs an A* search until it reaches the destination or runs out of
+	 * budget, keeping track of the square estimated to be closest to the
+	 * destination.
+	 * 
+	 * @return The index of the destination, {@link #NOT_FOUND} if it cannot
+	 *         be reached, or <code>NOT_FOUND - 1 - best</code> for the index
+	 *         <code>best</code> of the closest square if the budget ran out.
+	 */
+	private static int budgetedAStar(SearchContext search, Square from,
+			Square to, Unit traveller, SearchBudget budget) {
+		long deadline = budget.start();
+		search.begin(from);
+		int start = search.indexOf(from);
+		int goal = search.indexOf(to);
+		search.relax(start, -1, null, 0);
+		search.push(start, estimate(from, to));
+		int best = start;
+		int closest = estimate(from, to);
+		for (int expanded = 0; !search.isHeapEmpty(); expanded++) {
+			if (budget.isExhausted(expanded, deadline)) {
+				return NOT_FOUND - 1 - best;
+			}
+			int current = search.pop();
+			if (!search.close(current)) {
+				continue;
+			}
+			if (current == goal) {
+				return current;
+			}
+			int left = search.estimate(current, to);
+			if (left < closest) {
+				closest = left;
+				best = current;
+			}
+			relaxNeighbours(search, current, to, traveller);
+		}
+		return NOT_FOUND;
+	}
+
+	/**
+	 * Relaxes the neighbours of a square the traveller can occupy in an A*
+	 * search, pushing those reached in fewer steps than before.
+	 */
+	private static void relaxNeighbours(SearchContext search, int current,
+			Square to, Unit traveller) {
+		Square s = search.stepFrom(current);
+		int cost = search.costOf(current) + 1;
+		for (Direction d : SearchContext.DIRECTIONS) {
+			int next = search.step(current, s, d, traveller);
+			if (next != SearchContext.NONE && search.relax(next, current, d, cost)) {
+				search.push(next, cost + search.estimate(next, to));
+			}
+		}
+	}
+
+	/**
+	 * Estimates the number of steps between two squares without looking at
+	 * the terrain. As the board wraps around its edges, the distance along
+	 * each axis is the shorter of going straight or going around. The
+	 * estimate never exceeds the actual number of steps, which is what keeps
+	 * A* paths as short as breadth first paths.
+	 * 
+	 * @param from
+	 *            The starting square.
+	 * @param to
+	 *            The destination.
+	 * @return The least number of steps needed, or <code>0</code> if the
+	 *         squares are not on the same board.
+	 */
+	static int estimate(Square from, Square to) {
+		Board board = from.getBoard();
+		if (board == null || board != to.getBoard()) {
+			return 0;
+		}
+		int dx = Math.abs(from.getX() - to.getX());
+		int dy = Math.abs(from.getY() - to.getY());
+		return Math.min(dx, board.getWidth() - dx)
+				+ Math.min(dy, board.getHeight() - dy);
+	}
+
+	/**
+	 * Visits and enqueues the neighbours of a square the traveller can
+	 * occupy.
+	 * 
+	 * @return The index of the destination if it is one of the neighbours,
+	 *         or <code>-1</code> if it is not.
+	 */
+	private static int expand(SearchContext search, int current, int goal,
+			Unit traveller) {
+		Square s = search.stepFrom(current);
+		for (Direction d : SearchContext.DIRECTIONS) {
+			int next = search.step(current, s, d, traveller);
+			if (next != SearchContext.NONE && search.visit(next, current, d)) {
+				if (next == goal) {
+					return next;
+				}
+				search.enqueue(next);
+			}
+		}
+		return -1;
+	}
+
+	private static boolean isPassable(Square target, Unit traveller) {
+		return target != null
+				&& (traveller == null || target.isAccessibleTo(traveller));
+	}
+
+	/**
+	 * Calculates the shortest path to whichever of several destinations is
+	 * nearest, with a single breadth first search. This search ensures the
+	 * traveller is allowed to occupy the squares on the way, or ignores
+	 * terrain if no traveller is specified.
+	 * 
+	 * @param from
+	 *            The starting square.
+	 * @param goals
+	 *            The destinations.
+	 * @param traveller
+	 *            The traveller attempting to reach a destination, or
+	 *            <code>null</code> to ignore terrain.
+	 * @return The shortest path to the nearest destination, which can be
+	 *         found by walking it, or <code>null</code> if no destination can
+	 *         be reached. When the current square is a destination, an empty
+	 *         list is returned.
+	 */
+	public static List<Direction> shortestPathToAny(Square from,
+			Set<Square> goals, Unit traveller) {
+		if (goals.contains(from)) {
+			return new ArrayList<>();
+		}
+		SearchContext search = SearchContext.current();
+		search.begin(from);
+		int start = search.indexOf(from);
+		for (Square goal : goals) {
+			search.visitBackward(search.indexOf(goal), -1, null);
+		}
+		search.visit(start, -1, null);
+		search.enqueue(start);
+		while (!search.isQueueEmpty()) {
+			int current = search.dequeue();
+			Square s = search.stepFrom(current);
+			for (Direction d : SearchContext.DIRECTIONS) {
+				int next = search.step(current, s, d, traveller);
+				if (next != SearchContext.NONE && search.visit(next, current, d)) {
+					if (search.isVisitedBackward(next)) {
+						return search.pathTo(next);
+					}
+					search.enqueue(next);
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Finds the nearest unit of the given type and returns its location. The
+	 * distance to a unit is the number of steps to it regardless of terrain.
 	 * 
 	 * @param type
 	 *            The type of unit to search for.
@@ -82,29 +669,223 @@ public final class Navigation {
 	 *            The starting location for the search.
 	 * @return The nearest unit of the given type, or <code>null</code> if no
 	 *         such unit could be found.
+	 * @see #findNearest(List, Square)
 	 */
 	public static Unit findNearest(Class<? extends Unit> type,
 			Square currentLocation) {
-		List<Square> toDo = new ArrayList<>();
-		Set<Square> visited = new HashSet<>();
-
-		toDo.add(currentLocation);
-
-		while (!toDo.isEmpty()) {
-			Square square = toDo.remove(0);
-			Unit unit = findUnit(type, square);
-			if (unit != null) {
-				return unit;
-			}
-			visited.add(square);
-			for (Direction d : Direction.values()) {
-				Square newTarget = square.getSquareAt(d);
-				if (!visited.contains(newTarget) && !toDo.contains(newTarget)) {
-					toDo.add(newTarget);
+		List<Class<? extends Unit>> types = Collections
+				.<Class<? extends Unit>>singletonList(type);
+		return findNearest(types, currentLocation).get(0);
+	}
+
+	/**
+	 * Finds the nearest unit of each of the given types at once. The distance
+	 * to a unit is the number of steps to it regardless of terrain. Squares on
+	 * a board look up the units of each type on their board and compare their
+	 * distances. The types with more than {@link #LINEAR_SCAN_LIMIT} units
+	 * are then found together, by searching the squares around the given
+	 * square in rings of increasing distance. Other squares are searched
+	 * breadth first for all types in a single sweep.
+	 * 
+	 * @param types
+	 *            The types of unit to search for.
+	 * @param currentLocation
+	 *            The starting location for the search.
+	 * @return The nearest unit of each type, in the order of the types, with
+	 *         <code>null</code> for types of which no unit could be found.
+	 */
+	public static List<Unit> findNearest(List<Class<? extends Unit>> types,
+			Square currentLocation) {
+		Unit[] found = new Unit[types.size()];
+		Board board = currentLocation.getBoard();
+		if (board == null) {
+			floodNearest(types, found, currentLocation);
+			return Arrays.asList(found);
+		}
+		boolean[] crowded = new boolean[found.length];
+		boolean sweep = false;
+		for (int i = 0; i < found.length; i++) {
+			Set<Unit> candidates = board.unitsOf(types.get(i));
+			int count = board.countUnits(types.get(i));
+			crowded[i] = count > LINEAR_SCAN_LIMIT || count > candidates.size();
+			sweep |= crowded[i];
+			if (!crowded[i]) {
+				found[i] = closest(candidates, currentLocation, board);
+			}
+		}
+		if (sweep) {
+			ringNearest(types, crowded, found, currentLocation, board);
+			for (int i = 0; i < found.length; i++) {
+				if (crowded[i] && found[i] == null) {
+					found[i] = closest(board.unitsOf(types.get(i)),
+							currentLocation, board);
 				}
 			}
 		}
-		return null;
+		return Arrays.asList(found);
+	}
+
+	/**
+	 * Picks the unit closest to a square from the units on its board. Units
+	 * at the same distance are told apart by their position, so the same
+	 * unit is picked regardless of the order of the candidates: the one
+	 * on the topmost row, then the leftmost column, then the one that
+	 * occupied its square first.
+	 * 
+	 * @return The closest unit, or <code>null</code> if there is none.
+	 */
+	private static Unit closest(Set<Unit> candidates, Square from,
+			Board board) {
+		Unit nearest = null;
+		int best = Integer.MAX_VALUE;
+		for (Unit unit : candidates) {
+			Square square = unit.getSquare();
+			if (square != null && square.getBoard() == board) {
+				int distance = estimate(from, square);
+				if (distance < best || (distance == best
+						&& precedes(unit, nearest))) {
+					best = distance;
+					nearest = unit;
+				}
+			}
+		}
+		return nearest;
+	}
+
+	/**
+	 * Orders two units on squares of the same board by row, column and the
+	 * order in which they occupied their square.
+	 * 
+	 * @return <code>true</code> iff the unit comes before the other one.
+	 */
+	private static boolean precedes(Unit unit, Unit other) {
+		Square square = unit.getSquare();
+		Square otherSquare = other.getSquare();
+		if (square.getY() != otherSquare.getY()) {
+			return square.getY() < otherSquare.getY();
+		}
+		if (square.getX() != otherSquare.getX()) {
+			return square.getX() < otherSquare.getX();
+		}
+		List<Unit> occupants = square.getOccupantView();
+		return occupants.indexOf(unit) < occupants.indexOf(other);
+	}
+
+	/**
+	 * Searches the squares around a square in rings of increasing distance,
+	 * wrapping around the edges of the board, until a unit of each of the
+	 * wanted types has been found. Only squares of which the bit is set in
+	 * the layer of a wanted type are looked at.
+	 * 
+	 * @param wanted
+	 *            Which of the types to search for.
+	 * @param found
+	 *            The units found, by type.
+	 */
+	private static void ringNearest(List<Class<? extends Unit>> types,
+			boolean[] wanted, Unit[] found, Square from, Board board) {
+		int width = board.getWidth();
+		int height = board.getHeight();
+		int radius = width / 2 + height / 2;
+		BitLayer[] layers = new BitLayer[wanted.length];
+		int missing = 0;
+		for (int i = 0; i < wanted.length; i++) {
+			if (wanted[i]) {
+				layers[i] = board.layerOf(types.get(i));
+				missing++;
+			}
+		}
+		for (int r = 0; r <= radius && missing > 0; r++) {
+			for (int dx = -r; dx <= r; dx++) {
+				int dy = r - Math.abs(dx);
+				int x = Math.floorMod(from.getX() + dx, width);
+				int below = Math.floorMod(from.getY() + dy, height);
+				int above = Math.floorMod(from.getY() - dy, height);
+				missing -= collect(types, layers, found, board, x, below);
+				if (dy != 0) {
+					missing -= collect(types, layers, found, board, x, above);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Records the units on a square of the types that have not been found
+	 * yet, if the layer of any of those types has the bit of the square set.
+	 * 
+	 * @param layers
+	 *            The squares occupied by every type, or <code>null</code> for
+	 *            types that are not searched for.
+	 * @return The number of types found on the square.
+	 */
+	private static int collect(List<Class<? extends Unit>> types,
+			BitLayer[] layers, Unit[] found, Board board, int x, int y) {
+		boolean[] present = null;
+		for (int i = 0; i < found.length; i++) {
+			if (layers[i] != null && found[i] == null && layers[i].get(x, y)) {
+				if (present == null) {
+					present = new boolean[found.length];
+				}
+				present[i] = true;
+			}
+		}
+		if (present == null) {
+			return 0;
+		}
+		return collect(types, present, found, board.squareAt(x, y));
+	}
+
+	/**
+	 * Searches the squares reachable from a square breadth first, regardless
+	 * of terrain, until a unit of each type has been found.
+	 * 
+	 * @param found
+	 *            The units found, by type.
+	 */
+	private static void floodNearest(List<Class<? extends Unit>> types,
+			Unit[] found, Square currentLocation) {
+		boolean[] wanted = new boolean[found.length];
+		Arrays.fill(wanted, true);
+		int missing = found.length;
+		SearchContext search = SearchContext.current();
+		search.begin(currentLocation);
+		int start = search.indexOf(currentLocation);
+		search.visit(start, -1, null);
+		search.enqueue(start);
+		while (missing > 0 && !search.isQueueEmpty()) {
+			int current = search.dequeue();
+			Square occupied = search.occupiedAt(current);
+			if (occupied != null) {
+				missing -= collect(types, wanted, found, occupied);
+			}
+			Square s = search.stepFrom(current);
+			for (Direction d : SearchContext.DIRECTIONS) {
+				int next = search.step(current, s, d, null);
+				if (next != SearchContext.NONE && search.visit(next, -1, null)) {
+					search.enqueue(next);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Records the units on a square of the wanted types that have not been
+	 * found yet.
+	 * 
+	 * @return The number of types found on the square.
+	 */
+	private static int collect(List<Class<? extends Unit>> types,
+			boolean[] wanted, Unit[] found, Square square) {
+		int collected = 0;
+		for (int i = 0; i < found.length; i++) {
+			if (wanted[i] && found[i] == null) {
+				found[i] = findUnit(types.get(i), square);
+				if (found[i] != null) {
+					collected++;
+				}
+			}
+		}
+		return collected;
 	}
 
 	/**
@@ -118,7 +899,7 @@ public final class Navigation {
 	 *         <code>null</code> of none does.
 	 */
 	public static Unit findUnit(Class<? extends Unit> type, Square square) {
-		for (Unit u : square.getOccupants()) {
+		for (Unit u : square.getOccupantView()) {
 			if (type.isInstance(u)) {
 				return u;
 			}
@@ -127,81 +908,54 @@ public final class Navigation {
 	}
 
 	/**
-	 * Helper class to keep track of the path.
-	 * 
-	 * @author Jeroen Roosen 
+	 * A path found by a search within a {@link SearchBudget}.
 	 */
-	private static final class Node {
+	static final class BudgetedPath {
 
 		/**
-		 * The direction for this node, which is <code>null</code> for the root
-		 * node.
+		 * The path, or <code>null</code> if there is none.
 		 */
-		private final Direction direction;
+		private final List<Direction> path;
 
 		/**
-		 * The parent node, which is <code>null</code> for the root node.
+		 * Whether the path leads all the way to the destination.
 		 */
-		private final Node parent;
+		private final boolean complete;
 
 		/**
-		 * The square associated with this node.
-		 */
-		private final Square square;
-
-		/**
-		 * Creates a new node.
+		 * Creates a new search result.
 		 * 
-		 * @param d
-		 *            The direction, which is <code>null</code> for the root
-		 *            node.
-		 * @param s
-		 *            The square.
-		 * @param p
-		 *            The parent node, which is <code>null</code> for the root
-		 *            node.
-		 */
-		Node(Direction d, Square s, Node p) {
-			this.direction = d;
-			this.square = s;
-			this.parent = p;
-		}
-
-		/**
-		 * @return The direction for this node, or <code>null</code> if this
-		 *         node is a root node.
+		 * @param directions
+		 *            The path, or <code>null</code> if there is none.
+		 * @param reached
+		 *            Whether the path leads to the destination, rather than
+		 *            to where the search got before it ran out of budget.
 		 */
-		private Direction getDirection() {
-			return direction;
+		BudgetedPath(List<Direction> directions, boolean reached) {
+			this.path = directions;
+			this.complete = reached;
 		}
 
 		/**
-		 * @return The square for this node.
+		 * @return The first step of the path, or <code>null</code> if it has
+		 *         none.
 		 */
-		private Square getSquare() {
-			return square;
-		}
-
-		/**
-		 * @return The parent node, or <code>null</code> if this node is a root
-		 *         node.
-		 */
-		private Node getParent() {
-			return parent;
+		Direction firstStep() {
+			if (path == null || path.isEmpty()) {
+				return null;
+			}
+			return path.get(0);
 		}
 
 		/**
-		 * Returns the list of values from the root of the tree to this node.
-		 * 
-		 * @return The list of values from the root of the tree to this node.
+		 * @return The number of steps to the destination, or
+		 *         <code>-1</code> if the search did not get there.
 		 */
-		private List<Direction> getPath() {
-			if (getParent() == null) {
-				return new ArrayList<>();
+		int length() {
+			if (path == null || !complete) {
+				return -1;
 			}
-			List<Direction> path = parent.getPath();
-			path.add(getDirection());
-			return path;
+			return path.size();
 		}
 	}
 }
@@ -0,0 +1,63 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+
+/**
+ * A structure prepared once per board that answers point to point
+ * navigation questions for ghosts, instead of a new search with
+ * {@link Navigation} on every move.
+ */
+public interface Navigator {
+
+	/**
+	 * Determines whether this navigator can be used from a square.
+	 *
+	 * @param square
+	 *            The square to start from.
+	 * @return <code>true</code> iff the square is one this navigator knows
+	 *         the way from.
+	 */
+	boolean covers(Square square);
+
+	/**
+	 * Returns the number of steps between two squares.
+	 *
+	 * @param from
+	 *            The square to start from.
+	 * @param to
+	 *            The destination.
+	 * @return The length of the shortest path between the squares, or
+	 *         <code>-1</code> if there is none.
+	 */
+	int distance(Square from, Square to);
+
+	/**
+	 * Returns the first step of a shortest path between two squares.
+	 *
+	 * @param from
+	 *            The square to start from.
+	 * @param to
+	 *            The destination.
+	 * @return The direction of the first step, or <code>null</code> if the
+	 *         squares are the same or there is no path between them.
+	 */
+	Direction firstStep(Square from, Square to);
+
+	/**
+	 * Returns the first step of a shortest path between two squares together
+	 * with its length, as {@link #firstStep(Square, Square)} and
+	 * {@link #distance(Square, Square)} would in one go.
+	 *
+	 * @param from
+	 *            The square to start from.
+	 * @param to
+	 *            The destination.
+	 * @param length
+	 *            An array whose first element is set to the length of the
+	 *            shortest path, or <code>-1</code> if there is none.
+	 * @return The direction of the first step, or <code>null</code> if the
+	 *         squares are the same or there is no path between them.
+	 */
+	Direction firstStep(Square from, Square to, int[] length);
+}
@@ -0,0 +1,318 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+
+/**
+ * The most recently found shortest paths of {@link Navigation}, kept per
+ * board and keyed by the positions of their end points, the class of the
+ * traveller and the search strategy. Units of the same class are assumed to
+ * be able to access the same squares. Every path remembers the
+ * {@link Board#getTopologyVersion() topology version} of its board when it
+ * was found, and is no longer used once that version changes. When the paths
+ * of a board fill the cache, the least recently used one is evicted.
+ * <p>
+ * The cache holds on to boards weakly and to their squares not at all, so
+ * the paths of a board are forgotten along with the board.
+ */
+final class PathCache {
+
+	/**
+	 * The paths of every board, each in order of use.
+	 */
+	private final Map<Board, Map<Key, Entry>> boards = new WeakHashMap<>();
+
+	/**
+	 * The number of paths that can be kept per board.
+	 */
+	private volatile int capacity;
+
+	/**
+	 * The number of lookups that found a valid path.
+	 */
+	private final AtomicLong hits = new AtomicLong();
+
+	/**
+	 * The number of lookups that had to search.
+	 */
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Creates a new, empty cache.
+	 *
+	 * @param size
+	 *            The number of paths that can be kept.
+	 */
+	PathCache(int size) {
+		this.capacity = size;
+	}
+
+	private Map<Key, Entry> newPaths() {
+		return new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Changes the number of paths that can be kept, evicting the least
+	 * recently used paths if there are too many.
+	 *
+	 * @param size
+	 *            The number of paths that can be kept, or <code>0</code> to
+	 *            disable the cache.
+	 */
+	synchronized void resize(int size) {
+		capacity = size;
+		for (Map<Key, Entry> paths : boards.values()) {
+			while (paths.size() > size) {
+				paths.remove(paths.keySet().iterator().next());
+			}
+		}
+	}
+
+	/**
+	 * @return The number of paths that can be kept per board.
+	 */
+	int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * Removes all paths.
+	 */
+	synchronized void clear() {
+		boards.clear();
+	}
+
+	/**
+	 * @return The number of lookups that found a valid path.
+	 */
+	long hits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return The number of lookups that had to search.
+	 */
+	long misses() {
+		return misses.get();
+	}
+
+	/**
+	 * Resets the hit and miss counters.
+	 */
+	void resetStatistics() {
+		hits.set(0);
+		misses.set(0);
+	}
+
+	/**
+	 * Determines whether a path between two squares can be cached.
+	 *
+	 * @param from
+	 *            The starting square.
+	 * @param to
+	 *            The destination.
+	 * @return <code>true</code> iff the cache is enabled and both squares are
+	 *         on the same board.
+	 */
+	boolean accepts(Square from, Square to) {
+		return capacity > 0 && from.getBoard() != null
+				&& from.getBoard() == to.getBoard();
+	}
+
+	/**
+	 * Looks up a path, counting a hit or a miss.
+	 *
+	 * @param board
+	 *            The board of the end points.
+	 * @param key
+	 *            The query.
+	 * @return The cached answer, or <code>null</code> if there is no valid
+	 *         one.
+	 */
+	synchronized Entry get(Board board, Key key) {
+		Map<Key, Entry> paths = boards.get(board);
+		Entry entry = null;
+		if (paths != null) {
+			entry = paths.get(key);
+		}
+		if (entry != null && entry.version != board.getTopologyVersion()) {
+			paths.remove(key);
+			entry = null;
+		}
+		if (entry == null) {
+			misses.incrementAndGet();
+		} else {
+			hits.incrementAndGet();
+		}
+		return entry;
+	}
+
+	/**
+	 * Stores the answer to a query.
+	 *
+	 * @param board
+	 *            The board of the end points.
+	 * @param key
+	 *            The query.
+	 * @param version
+	 *            The topology version of the board when the search started.
+	 * @param path
+	 *            The path found, or <code>null</code> if there is none.
+	 */
+	synchronized void put(Board board, Key key, long version,
+			List<Direction> path) {
+		Map<Key, Entry> paths = boards.get(board);
+		if (paths == null) {
+			paths = newPaths();
+			boards.put(board, paths);
+		}
+		paths.put(key, new Entry(version, path));
+	}
+
+	/**
+	 * A query: the positions of the end points of a path on their board, the
+	 * class of the traveller and the search strategy.
+	 */
+	static final class Key {
+
+		/**
+		 * The column of the starting square.
+		 */
+		private final int fromX;
+
+		/**
+		 * The row of the starting square.
+		 */
+		private final int fromY;
+
+		/**
+		 * The column of the destination.
+		 */
+		private final int toX;
+
+		/**
+		 * The row of the destination.
+		 */
+		private final int toY;
+
+		/**
+		 * The class of the traveller, or <code>null</code> to ignore terrain.
+		 */
+		private final Class<?> traveller;
+
+		/**
+		 * The algorithm the path was found with.
+		 */
+		private final SearchStrategy strategy;
+
+		/**
+		 * Creates a new query.
+		 *
+		 * @param start
+		 *            The starting square.
+		 * @param destination
+		 *            The destination.
+		 * @param unit
+		 *            The traveller, or <code>null</code> to ignore terrain.
+		 * @param algorithm
+		 *            The algorithm to find the path with.
+		 */
+		Key(Square start, Square destination, Unit unit,
+				SearchStrategy algorithm) {
+			this.fromX = start.getX();
+			this.fromY = start.getY();
+			this.toX = destination.getX();
+			this.toY = destination.getY();
+			if (unit == null) {
+				this.traveller = null;
+			} else {
+				this.traveller = unit.getClass();
+			}
+			this.strategy = algorithm;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			return fromX == other.fromX && fromY == other.fromY
+					&& toX == other.toX && toY == other.toY
+					&& traveller == other.traveller
+					&& strategy == other.strategy;
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = fromX;
+			hash = hash * 31 + fromY;
+			hash = hash * 31 + toX;
+			hash = hash * 31 + toY;
+			hash = hash * 31 + System.identityHashCode(traveller);
+			return hash * 31 + strategy.hashCode();
+		}
+	}
+
+	/**
+	 * A cached answer.
+	 */
+	static final class Entry {
+
+		/**
+		 * The topology version of the board the path was found on.
+		 */
+		private final long version;
+
+		/**
+		 * The path, or <code>null</code> if there is none.
+		 */
+		private final List<Direction> path;
+
+		/**
+		 * Creates a new answer.
+		 *
+		 * @param topology
+		 *            The topology version of the board.
+		 * @param directions
+		 *            The path, or <code>null</code> if there is none.
+		 */
+		Entry(long topology, List<Direction> directions) {
+			this.version = topology;
+			if (directions == null) {
+				this.path = null;
+			} else {
+				this.path = Collections.unmodifiableList(
+						new ArrayList<>(directions));
+			}
+		}
+
+		/**
+		 * @return A copy of the path the caller may change, or
+		 *         <code>null</code> if there is none.
+		 */
+		List<Direction> path() {
+			if (path == null) {
+				return null;
+			}
+			return new ArrayList<>(path);
+		}
+	}
+}
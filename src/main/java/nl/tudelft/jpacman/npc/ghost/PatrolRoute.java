@@ -0,0 +1,306 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import nl.tudelft.jpacman.board.BitLayer;
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+
+/**
+ * A loop a ghost patrols in its home corner of a {@link Board} while it
+ * scatters. The loop starts at the square closest to the corner and is the
+ * shortest round trip through that square, or a step out and back if there is
+ * none. It is computed once per board and then replayed one move at a time, so
+ * a patrolling ghost only has to look up its next move.
+ * <p>
+ * Once the accessibility of the squares of the board may have changed, the
+ * route is no longer valid.
+ */
+public final class PatrolRoute {
+
+	/**
+	 * The corners of a board.
+	 */
+	public enum Corner {
+
+		/**
+		 * The top-left corner.
+		 */
+		NORTH_WEST(0, 0),
+
+		/**
+		 * The top-right corner.
+		 */
+		NORTH_EAST(1, 0),
+
+		/**
+		 * The bottom-left corner.
+		 */
+		SOUTH_WEST(0, 1),
+
+		/**
+		 * The bottom-right corner.
+		 */
+		SOUTH_EAST(1, 1);
+
+		/**
+		 * <code>1</code> if the corner is on the right, <code>0</code> if it
+		 * is on the left.
+		 */
+		private final int right;
+
+		/**
+		 * <code>1</code> if the corner is at the bottom, <code>0</code> if it
+		 * is at the top.
+		 */
+		private final int bottom;
+
+		Corner(int east, int south) {
+			this.right = east;
+			this.bottom = south;
+		}
+	}
+
+	/**
+	 * The board the route was computed for.
+	 */
+	private final Board board;
+
+	/**
+	 * The topology version of the board when the route was computed.
+	 */
+	private final long version;
+
+	/**
+	 * The squares of the loop, starting at the square closest to the corner.
+	 */
+	private final Square[] squares;
+
+	/**
+	 * The move to make on each square of the loop.
+	 */
+	private final Direction[] moves;
+
+	/**
+	 * The position of every square on the loop.
+	 */
+	private final Map<Square, Integer> positions;
+
+	private PatrolRoute(Board grid, List<Square> loop) {
+		this.board = grid;
+		this.version = grid.getTopologyVersion();
+		this.squares = loop.toArray(new Square[loop.size()]);
+		this.moves = new Direction[squares.length];
+		this.positions = new IdentityHashMap<>();
+		for (int i = 0; i < squares.length; i++) {
+			moves[i] = directionOf(squares[i], squares[(i + 1) % squares.length]);
+			positions.put(squares[i], i);
+		}
+	}
+
+	/**
+	 * Computes the patrol route of a corner.
+	 *
+	 * @param board
+	 *            The board to patrol.
+	 * @param traveller
+	 *            A representative of the units that will patrol the route.
+	 * @param corner
+	 *            The corner to patrol.
+	 * @return The route, or <code>null</code> if the traveller cannot move
+	 *         anywhere on the board.
+	 */
+	public static PatrolRoute create(Board board, Unit traveller,
+			Corner corner) {
+		assert board != null;
+		assert traveller != null;
+		assert corner != null;
+		Square home = home(board, traveller, corner);
+		if (home == null) {
+			return null;
+		}
+		List<Square> loop = shortestLoop(home, traveller);
+		if (loop.size() < 2) {
+			return null;
+		}
+		return new PatrolRoute(board, loop);
+	}
+
+	/**
+	 * @return The square of the route closest to its corner.
+	 */
+	public Square getHome() {
+		return squares[0];
+	}
+
+	/**
+	 * @return The number of moves of one round of the route.
+	 */
+	public int length() {
+		return squares.length;
+	}
+
+	/**
+	 * @return <code>true</code> iff the board did not change since the route
+	 *         was computed.
+	 */
+	public boolean isValid() {
+		return board.getTopologyVersion() == version;
+	}
+
+	/**
+	 * @param position
+	 *            A position on the route.
+	 * @param square
+	 *            The square of a unit.
+	 * @return <code>true</code> iff the unit is on the route at the position.
+	 */
+	boolean isAt(int position, Square square) {
+		return squares[position] == square;
+	}
+
+	/**
+	 * @param square
+	 *            The square to look up.
+	 * @return The position of the square on the route, or
+	 *         <code>-1</code> if it is not on the route.
+	 */
+	int positionOf(Square square) {
+		Integer position = positions.get(square);
+		if (position == null) {
+			return -1;
+		}
+		return position;
+	}
+
+	/**
+	 * @param position
+	 *            A position on the route.
+	 * @return The move to make at the position.
+	 */
+	Direction moveAt(int position) {
+		return moves[position];
+	}
+
+	/**
+	 * @param position
+	 *            A position on the route.
+	 * @return The position after making the move at the position.
+	 */
+	int next(int position) {
+		return (position + 1) % squares.length;
+	}
+
+	/**
+	 * Finds the accessible square closest to a corner, without wrapping
+	 * around the edges of the board.
+	 */
+	private static Square home(Board board, Unit traveller, Corner corner) {
+		int cornerX = corner.right * (board.getWidth() - 1);
+		int cornerY = corner.bottom * (board.getHeight() - 1);
+		BitLayer accessible = board.accessibleTo(traveller);
+		Square home = null;
+		int closest = Integer.MAX_VALUE;
+		for (int y = 0; y < board.getHeight(); y++) {
+			for (int x = 0; x < board.getWidth(); x++) {
+				int distance = Math.abs(x - cornerX) + Math.abs(y - cornerY);
+				if (distance < closest && accessible.get(x, y)) {
+					closest = distance;
+					home = board.squareAt(x, y);
+				}
+			}
+		}
+		return home;
+	}
+
+	/**
+	 * Searches breadth first from the home square, remembering through which
+	 * neighbour of home every square was reached. The first link found
+	 * between squares reached through different neighbours closes the
+	 * shortest loop through home.
+	 *
+	 * @return The squares of the loop starting at home, or home and one of
+	 *         its neighbours if there is no loop.
+	 */
+	private static List<Square> shortestLoop(Square home, Unit traveller) {
+		Map<Square, Square> parents = new IdentityHashMap<>();
+		Map<Square, Square> branches = new IdentityHashMap<>();
+		branches.put(home, home);
+		Queue<Square> queue = new ArrayDeque<>();
+		queue.add(home);
+		while (!queue.isEmpty()) {
+			Square current = queue.remove();
+			for (Direction d : SearchContext.DIRECTIONS) {
+				Square next = current.getSquareAt(d);
+				if (!next.isAccessibleTo(traveller)
+						|| next == parents.get(current)) {
+					continue;
+				}
+				if (!branches.containsKey(next)) {
+					parents.put(next, current);
+					branches.put(next, branchOf(home, current, next, branches));
+					queue.add(next);
+				} else if (branches.get(next) != branches.get(current)) {
+					return join(home, current, next, parents);
+				}
+			}
+		}
+		return outAndBack(home, traveller);
+	}
+
+	private static Square branchOf(Square home, Square current, Square next,
+			Map<Square, Square> branches) {
+		if (current == home) {
+			return next;
+		}
+		return branches.get(current);
+	}
+
+	/**
+	 * @return The path from home to one end of the closing link, followed by
+	 *         the path from the other end back to home.
+	 */
+	private static List<Square> join(Square home, Square end, Square other,
+			Map<Square, Square> parents) {
+		List<Square> loop = new ArrayList<>();
+		for (Square s = end; s != home; s = parents.get(s)) {
+			loop.add(s);
+		}
+		loop.add(home);
+		Collections.reverse(loop);
+		for (Square s = other; s != home; s = parents.get(s)) {
+			loop.add(s);
+		}
+		return loop;
+	}
+
+	private static List<Square> outAndBack(Square home, Unit traveller) {
+		List<Square> loop = new ArrayList<>();
+		loop.add(home);
+		for (Direction d : SearchContext.DIRECTIONS) {
+			Square next = home.getSquareAt(d);
+			if (next.isAccessibleTo(traveller) && next != home) {
+				loop.add(next);
+				return loop;
+			}
+		}
+		return loop;
+	}
+
+	private static Direction directionOf(Square from, Square to) {
+		for (Direction d : SearchContext.DIRECTIONS) {
+			if (from.getSquareAt(d) == to) {
+				return d;
+			}
+		}
+		throw new IllegalArgumentException("Squares are not neighbours.");
+	}
+}
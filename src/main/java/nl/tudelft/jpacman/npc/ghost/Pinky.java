@@ -1,6 +1,5 @@
 package nl.tudelft.jpacman.npc.ghost;
 
-import java.util.List;
 import java.util.Map;
 
 import nl.tudelft.jpacman.board.Direction;
@@ -71,6 +70,18 @@ public class Pinky extends Ghost {
 		super(spriteMap, MOVE_INTERVAL, INTERVAL_VARIATION);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * <p>
+	 * Pinky patrols the top-left corner of the maze.
+	 * </p>
+	 */
+	@Override
+	public PatrolRoute.Corner getHomeCorner() {
+		return PatrolRoute.Corner.NORTH_WEST;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * 
@@ -87,10 +98,18 @@ public class Pinky extends Ghost {
 	 */
 	@Override
 	public Direction nextMove() {
+		Direction patrol = scatterMove();
+		if (patrol != null) {
+			return patrol;
+		}
 		Unit player = Navigation.findNearest(Player.class, getSquare());
 		if (player == null) {
 			return randomMove();
 		}
+		Direction keep = committedMove(player);
+		if (keep != null) {
+			return keep;
+		}
 
 		Direction targetDirection = player.getDirection();
 		Square destination = player.getSquare();
@@ -98,11 +117,10 @@ public class Pinky extends Ghost {
 			destination = destination.getSquareAt(targetDirection);
 		}
 
-		List<Direction> path = Navigation.shortestPath(getSquare(),
-				destination, this);
-		if (path != null && !path.isEmpty()) {
-			return path.get(0);
+		Direction step = stepTowards(destination);
+		if (step != null) {
+			return commit(step, player);
 		}
-		return randomMove();
+		return commit(randomMove(), player);
 	}
 }
@@ -0,0 +1,125 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash table from the positions of squares on a board,
+ * <code>y * width + x</code>, to the indices a search assigned them. Keys and
+ * values are plain integers, so looking up and adding never allocates once
+ * the table has grown large enough.
+ */
+final class PositionTable {
+
+	/**
+	 * Marks an empty slot, and a position without an index.
+	 */
+	static final int ABSENT = -1;
+
+	/**
+	 * The multiplier spreading positions over the slots, the golden ratio as
+	 * a fraction of 2^32.
+	 */
+	private static final int SPREAD = 0x9e3779b9;
+
+	/**
+	 * The positions in every slot, or {@link #ABSENT}.
+	 */
+	private int[] keys;
+
+	/**
+	 * The index of the position in every slot.
+	 */
+	private int[] values;
+
+	/**
+	 * The number of positions in the table.
+	 */
+	private int size;
+
+	/**
+	 * Creates a new, empty table.
+	 *
+	 * @param capacity
+	 *            The number of slots, a power of two of at least two.
+	 */
+	PositionTable(int capacity) {
+		assert Integer.bitCount(capacity) == 1 && capacity > 1;
+		this.keys = new int[capacity];
+		this.values = new int[capacity];
+		Arrays.fill(keys, ABSENT);
+	}
+
+	/**
+	 * Removes all positions.
+	 */
+	void clear() {
+		if (size > 0) {
+			Arrays.fill(keys, ABSENT);
+			size = 0;
+		}
+	}
+
+	/**
+	 * @return The number of positions in the table.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @param position
+	 *            The position of a square, at least zero.
+	 * @return The index of the square, or {@link #ABSENT} if it has none.
+	 */
+	int get(int position) {
+		int mask = keys.length - 1;
+		for (int slot = slotOf(position); ; slot = (slot + 1) & mask) {
+			if (keys[slot] == position) {
+				return values[slot];
+			}
+			if (keys[slot] == ABSENT) {
+				return ABSENT;
+			}
+		}
+	}
+
+	/**
+	 * Adds the index of a square that is not in the table yet.
+	 *
+	 * @param position
+	 *            The position of the square, at least zero.
+	 * @param index
+	 *            The index of the square.
+	 */
+	void put(int position, int index) {
+		if (2 * (size + 1) > keys.length) {
+			rehash(keys.length * 2);
+		}
+		int mask = keys.length - 1;
+		int slot = slotOf(position);
+		while (keys[slot] != ABSENT) {
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = position;
+		values[slot] = index;
+		size++;
+	}
+
+	private int slotOf(int position) {
+		return (position * SPREAD) >>> Integer.numberOfLeadingZeros(keys.length - 1);
+	}
+
+	private void rehash(int capacity) {
+		int[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new int[capacity];
+		values = new int[capacity];
+		Arrays.fill(keys, ABSENT);
+		size = 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != ABSENT) {
+				put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+}
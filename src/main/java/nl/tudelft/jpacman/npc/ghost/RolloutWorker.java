@@ -0,0 +1,374 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs Monte Carlo tree search iterations for a {@link MonteCarloGhost} on a
+ * compact model of the chase: the ghost and the player it hunts, each on an
+ * index of a {@link SquareGraph}. The ghost moves first and the player answers
+ * with a random move, until the ghost catches the player or the horizon is
+ * reached. Moves are picked by UCT while their statistics are known and by a
+ * mostly greedy rollout policy after that.
+ * <p>
+ * The statistics of every state and move are kept in a transposition table of
+ * fixed size, in which a state replaces whatever was in its slot. The table,
+ * the path and the random generator belong to the worker and are reused on
+ * every search, so iterating allocates nothing. Workers of the same ghost
+ * search the same root at the same time, each with a table of its own, and
+ * their statistics of the first move are combined afterwards.
+ */
+final class RolloutWorker extends RecursiveAction {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The multiplier that spreads states over the table.
+	 */
+	private static final long SPREAD = 0x9E3779B97F4A7C15L;
+
+	/**
+	 * The weight of exploration in UCT.
+	 */
+	private static final double EXPLORATION = Math.sqrt(2.0);
+
+	/**
+	 * One in this many rollout moves of the ghost is random, the others bring
+	 * it as close to the player as possible.
+	 */
+	private static final int RANDOM_MOVES = 4;
+
+	/**
+	 * The number of iterations between two looks at the clock.
+	 */
+	private static final int CLOCK_INTERVAL = 16;
+
+	/**
+	 * The board the search runs on.
+	 */
+	private final SquareGraph graph;
+
+	/**
+	 * The width of the board.
+	 */
+	private final int width;
+
+	/**
+	 * The height of the board.
+	 */
+	private final int height;
+
+	/**
+	 * The largest number of moves of the ghost in one iteration.
+	 */
+	private final int horizon;
+
+	/**
+	 * The state in every slot of the table, or <code>0</code> if it is empty.
+	 */
+	private final long[] keys;
+
+	/**
+	 * The number of bits a spread state is shifted right to get its slot.
+	 */
+	private final int shift;
+
+	/**
+	 * The number of times every move of the state in every slot was tried,
+	 * at <code>slot * 4 + direction</code>.
+	 */
+	private final int[] visits;
+
+	/**
+	 * The sum of the rewards of every move of the state in every slot.
+	 */
+	private final double[] rewards;
+
+	/**
+	 * The moves of the current iteration, as positions in {@link #visits}.
+	 */
+	private final int[] path;
+
+	/**
+	 * The state in the slot of every move of the current iteration when the
+	 * move was made, as a later state of the iteration may take the slot.
+	 */
+	private final long[] pathKeys;
+
+	/**
+	 * The number of times every first move was tried in this search.
+	 */
+	private final int[] rootVisits = new int[SquareGraph.WAYS];
+
+	/**
+	 * The source of all random choices.
+	 */
+	private final SplittableRandom random;
+
+	/**
+	 * The square of the ghost at the root.
+	 */
+	private int ghostRoot;
+
+	/**
+	 * The square of the player at the root.
+	 */
+	private int playerRoot;
+
+	/**
+	 * The value of {@link System#nanoTime()} at which the search stops.
+	 */
+	private long deadline;
+
+	/**
+	 * The number of iterations in this search.
+	 */
+	private int iterations;
+
+	/**
+	 * Creates a worker.
+	 *
+	 * @param squares
+	 *            The board to search on.
+	 * @param boardWidth
+	 *            The width of the board.
+	 * @param boardHeight
+	 *            The height of the board.
+	 * @param moves
+	 *            The largest number of moves of the ghost in one iteration.
+	 * @param tableSize
+	 *            The number of states in the transposition table, a power of
+	 *            two.
+	 * @param seed
+	 *            The seed of the random choices.
+	 */
+	RolloutWorker(SquareGraph squares, int boardWidth, int boardHeight,
+			int moves, int tableSize, long seed) {
+		assert Integer.bitCount(tableSize) == 1;
+		this.graph = squares;
+		this.width = boardWidth;
+		this.height = boardHeight;
+		this.horizon = moves;
+		this.keys = new long[tableSize];
+		this.shift = Long.SIZE - Integer.numberOfTrailingZeros(tableSize);
+		this.visits = new int[tableSize * SquareGraph.WAYS];
+		this.rewards = new double[tableSize * SquareGraph.WAYS];
+		this.path = new int[moves];
+		this.pathKeys = new long[moves];
+		this.random = new SplittableRandom(seed);
+	}
+
+	/**
+	 * Prepares a new search.
+	 *
+	 * @param ghost
+	 *            The square of the ghost.
+	 * @param player
+	 *            The square of the player.
+	 * @param stop
+	 *            The value of {@link System#nanoTime()} at which to stop.
+	 */
+	void prepare(int ghost, int player, long stop) {
+		this.ghostRoot = ghost;
+		this.playerRoot = player;
+		this.deadline = stop;
+		this.iterations = 0;
+		for (int d = 0; d < SquareGraph.WAYS; d++) {
+			rootVisits[d] = 0;
+		}
+		reinitialize();
+	}
+
+	@Override
+	protected void compute() {
+		do {
+			iterate();
+			iterations++;
+		} while (iterations % CLOCK_INTERVAL != 0
+				|| System.nanoTime() - deadline < 0);
+	}
+
+	/**
+	 * @return The number of iterations of the last search.
+	 */
+	int getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * @param direction
+	 *            The ordinal of a first move.
+	 * @return The number of times the move was tried in the last search.
+	 */
+	int visitsOf(int direction) {
+		return rootVisits[direction];
+	}
+
+	/**
+	 * Runs one iteration: descends the known part of the tree, plays the rest
+	 * out and credits the reward to every known move on the way.
+	 */
+	private void iterate() {
+		int ghost = ghostRoot;
+		int player = playerRoot;
+		int known = 0;
+		boolean expanding = true;
+		for (int move = 0; move < horizon; move++) {
+			int direction;
+			if (expanding) {
+				int slot = slotOf(ghost, player);
+				direction = select(slot, ghost);
+				pathKeys[known] = keys[slot];
+				path[known++] = slot * SquareGraph.WAYS + direction;
+				expanding = visits[slot * SquareGraph.WAYS + direction] > 0;
+			} else {
+				direction = rolloutMove(ghost, player);
+			}
+			ghost = graph.neighbour(ghost, direction);
+			if (ghost == player) {
+				credit(known, 1.0 - (double) move / (2 * horizon));
+				return;
+			}
+			player = chanceMove(player);
+			if (ghost == player) {
+				credit(known, 1.0 - (double) move / (2 * horizon));
+				return;
+			}
+		}
+		credit(known, evaluate(ghost, player));
+	}
+
+	/**
+	 * Adds the reward of an iteration to the moves it knew, skipping those
+	 * whose state was evicted by a later state of the same iteration.
+	 */
+	private void credit(int known, double reward) {
+		for (int i = 0; i < known; i++) {
+			if (keys[path[i] / SquareGraph.WAYS] == pathKeys[i]) {
+				visits[path[i]]++;
+				rewards[path[i]] += reward;
+			}
+		}
+		rootVisits[path[0] % SquareGraph.WAYS]++;
+	}
+
+	/**
+	 * Finds the slot of a state in the table, evicting the state that was
+	 * in it if need be.
+	 */
+	private int slotOf(int ghost, int player) {
+		long key = (long) ghost * graph.size() + player + 1;
+		int slot = (int) ((key * SPREAD) >>> shift) & (keys.length - 1);
+		if (keys[slot] != key) {
+			keys[slot] = key;
+			int base = slot * SquareGraph.WAYS;
+			for (int d = 0; d < SquareGraph.WAYS; d++) {
+				visits[base + d] = 0;
+				rewards[base + d] = 0.0;
+			}
+		}
+		return slot;
+	}
+
+	/**
+	 * Picks the move of the ghost by UCT, trying every move once first.
+	 */
+	private int select(int slot, int ghost) {
+		int base = slot * SquareGraph.WAYS;
+		int total = 1;
+		for (int d = 0; d < SquareGraph.WAYS; d++) {
+			total += visits[base + d];
+		}
+		double logTotal = Math.log(total);
+		int best = SquareGraph.NONE;
+		double bestScore = Double.NEGATIVE_INFINITY;
+		int offset = random.nextInt(SquareGraph.WAYS);
+		for (int i = 0; i < SquareGraph.WAYS; i++) {
+			int d = (i + offset) % SquareGraph.WAYS;
+			if (graph.neighbour(ghost, d) == SquareGraph.NONE) {
+				continue;
+			}
+			int tried = visits[base + d];
+			if (tried == 0) {
+				return d;
+			}
+			double score = rewards[base + d] / tried
+					+ EXPLORATION * Math.sqrt(logTotal / tried);
+			if (score > bestScore) {
+				bestScore = score;
+				best = d;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Picks the rollout move of the ghost: mostly the one that brings it
+	 * closest to the player, sometimes a random one.
+	 */
+	private int rolloutMove(int ghost, int player) {
+		if (random.nextInt(RANDOM_MOVES) == 0) {
+			return randomMove(ghost);
+		}
+		int best = SquareGraph.NONE;
+		int closest = Integer.MAX_VALUE;
+		for (int d = 0; d < SquareGraph.WAYS; d++) {
+			int next = graph.neighbour(ghost, d);
+			if (next != SquareGraph.NONE) {
+				int distance = distance(next, player);
+				if (distance < closest) {
+					closest = distance;
+					best = d;
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Picks a random move, assuming there is at least one.
+	 */
+	private int randomMove(int square) {
+		int choice = random.nextInt(graph.degree(square));
+		for (int d = 0; d < SquareGraph.WAYS; d++) {
+			if (graph.neighbour(square, d) != SquareGraph.NONE) {
+				if (choice == 0) {
+					return d;
+				}
+				choice--;
+			}
+		}
+		return SquareGraph.NONE;
+	}
+
+	/**
+	 * Moves the player to a random neighbour, if it has any.
+	 */
+	private int chanceMove(int player) {
+		if (graph.degree(player) == 0) {
+			return player;
+		}
+		return graph.neighbour(player, randomMove(player));
+	}
+
+	/**
+	 * Rates a state in which the ghost did not catch the player, by how close
+	 * it got, below the reward of any catch.
+	 */
+	private double evaluate(int ghost, int player) {
+		double farthest = width / 2 + height / 2 + 1;
+		return (1.0 - distance(ghost, player) / farthest) / 2;
+	}
+
+	/**
+	 * Counts the steps between two squares regardless of walls, around the
+	 * edges of the board if that is shorter.
+	 */
+	private int distance(int from, int to) {
+		int a = graph.cellOf(from);
+		int b = graph.cellOf(to);
+		int dx = Math.abs(a % width - b % width);
+		int dy = Math.abs(a / width - b / width);
+		return Math.min(dx, width - dx) + Math.min(dy, height - dy);
+	}
+}
@@ -0,0 +1,76 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import java.util.Arrays;
+
+/**
+ * When ghosts scatter to patrol their home corners and when they chase. The
+ * schedule alternates between scatter and chase phases, starting with
+ * scatter, and chases forever after the last phase. Phases are counted in the
+ * moves of each ghost, so a schedule stands still while the game is paused
+ * and may be shared by any number of ghosts.
+ */
+public final class ScatterSchedule {
+
+	/**
+	 * The schedule of the arcade game, which scatters for 7, 7, 5 and 5
+	 * seconds with 20 seconds of chase in between, at four moves a second.
+	 */
+	public static final ScatterSchedule ARCADE = of(28, 80, 28, 80, 20, 80,
+			20);
+
+	/**
+	 * The number of moves the phases end after, in order.
+	 */
+	private final int[] ends;
+
+	private ScatterSchedule(int[] phaseEnds) {
+		this.ends = phaseEnds;
+	}
+
+	/**
+	 * Creates a schedule.
+	 *
+	 * @param phases
+	 *            The number of moves of every phase, alternating between
+	 *            scatter and chase and starting with scatter.
+	 * @return The new schedule.
+	 */
+	public static ScatterSchedule of(int... phases) {
+		int[] ends = new int[phases.length];
+		int total = 0;
+		for (int i = 0; i < phases.length; i++) {
+			assert phases[i] >= 0;
+			total += phases[i];
+			ends[i] = total;
+		}
+		return new ScatterSchedule(ends);
+	}
+
+	/**
+	 * @param move
+	 *            The number of moves a ghost made before.
+	 * @return <code>true</code> iff the ghost scatters on the move.
+	 */
+	public boolean isScatter(int move) {
+		int phase = Arrays.binarySearch(ends, move);
+		if (phase < 0) {
+			phase = -phase - 1;
+		} else {
+			phase++;
+			while (phase < ends.length && ends[phase] == move) {
+				phase++;
+			}
+		}
+		return phase < ends.length && phase % 2 == 0;
+	}
+
+	/**
+	 * @return The number of moves after which ghosts chase forever.
+	 */
+	public int length() {
+		if (ends.length == 0) {
+			return 0;
+		}
+		return ends[ends.length - 1];
+	}
+}
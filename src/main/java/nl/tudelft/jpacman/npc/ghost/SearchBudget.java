@@ -0,0 +1,169 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+
+/**
+ * A limit on the work a single ghost decision may spend searching for a
+ * path, in squares expanded, in time, or both. A search that runs out of
+ * budget settles for the best partial result it found so far, see
+ * {@link Navigation#firstStepWithin(Square, Square, Unit, SearchBudget)}. A
+ * budget counts the searches made within it and how many of them ran out,
+ * and may be shared by any number of ghosts.
+ */
+public final class SearchBudget {
+
+	/**
+	 * The number of squares expanded between two looks at the clock, a power
+	 * of two.
+	 */
+	private static final int CLOCK_INTERVAL = 64;
+
+	/**
+	 * The most squares a search may expand.
+	 */
+	private final int nodes;
+
+	/**
+	 * The most time a search may take, in nanoseconds.
+	 */
+	private final long nanos;
+
+	/**
+	 * The number of searches made within this budget.
+	 */
+	private final AtomicLong searches = new AtomicLong();
+
+	/**
+	 * The number of searches that ran out of budget.
+	 */
+	private final AtomicLong overruns = new AtomicLong();
+
+	private SearchBudget(int nodeLimit, long timeLimit) {
+		this.nodes = nodeLimit;
+		this.nanos = timeLimit;
+	}
+
+	/**
+	 * Creates a budget that limits the number of squares a search expands.
+	 *
+	 * @param nodes
+	 *            The most squares a search may expand, at least one.
+	 * @return The new budget.
+	 */
+	public static SearchBudget ofNodes(int nodes) {
+		return of(nodes, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Creates a budget that limits the time a search takes.
+	 *
+	 * @param time
+	 *            The most time a search may take.
+	 * @param unit
+	 *            The unit of the time.
+	 * @return The new budget.
+	 */
+	public static SearchBudget ofTime(long time, TimeUnit unit) {
+		return of(Integer.MAX_VALUE, time, unit);
+	}
+
+	/**
+	 * Creates a budget that limits both the number of squares a search
+	 * expands and the time it takes, whichever runs out first.
+	 *
+	 * @param nodes
+	 *            The most squares a search may expand, at least one.
+	 * @param time
+	 *            The most time a search may take.
+	 * @param unit
+	 *            The unit of the time.
+	 * @return The new budget.
+	 */
+	public static SearchBudget of(int nodes, long time, TimeUnit unit) {
+		assert nodes > 0;
+		assert time > 0;
+		return new SearchBudget(nodes, unit.toNanos(time));
+	}
+
+	/**
+	 * @return The most squares a search may expand.
+	 */
+	public int getNodeLimit() {
+		return nodes;
+	}
+
+	/**
+	 * @param unit
+	 *            The unit to express the time in.
+	 * @return The most time a search may take.
+	 */
+	public long getTimeLimit(TimeUnit unit) {
+		return unit.convert(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * @return The number of searches made within this budget.
+	 */
+	public long getSearches() {
+		return searches.get();
+	}
+
+	/**
+	 * @return The number of searches that ran out of budget and settled for
+	 *         a partial result.
+	 */
+	public long getOverruns() {
+		return overruns.get();
+	}
+
+	/**
+	 * Sets the numbers of searches and overruns back to zero.
+	 */
+	public void resetStatistics() {
+		searches.set(0);
+		overruns.set(0);
+	}
+
+	/**
+	 * Records the start of a search.
+	 *
+	 * @return The value of {@link System#nanoTime()} at which the search runs
+	 *         out of time.
+	 */
+	long start() {
+		searches.incrementAndGet();
+		if (nanos == Long.MAX_VALUE) {
+			return Long.MAX_VALUE;
+		}
+		return System.nanoTime() + nanos;
+	}
+
+	/**
+	 * Determines whether a search ran out of budget. Looks at the clock only
+	 * every {@link #CLOCK_INTERVAL} squares.
+	 *
+	 * @param expanded
+	 *            The number of squares the search expanded.
+	 * @param deadline
+	 *            The time returned by {@link #start()}.
+	 * @return <code>true</code> iff the search has to stop.
+	 */
+	boolean isExhausted(int expanded, long deadline) {
+		if (expanded >= nodes) {
+			return true;
+		}
+		return (expanded & (CLOCK_INTERVAL - 1)) == 0
+				&& deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0;
+	}
+
+	/**
+	 * Records a search that ran out of budget.
+	 */
+	void overrun() {
+		overruns.incrementAndGet();
+	}
+}
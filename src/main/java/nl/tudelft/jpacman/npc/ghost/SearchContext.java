@@ -0,0 +1,764 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.IndexedBoard;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+
+/**
+ * Reusable scratch space for the path searches of
+ * {@link Navigation}. Every thread gets its own context, obtained through
+ * {@link #current()}, so a search never has to lock and never allocates per
+ * square once the squares it visits have been seen before.
+ * <p>
+ * Squares are identified by an index. The squares of the board a search
+ * starts on are indexed by their position, <code>y * width + x</code>, or
+ * for boards of more than {@link #DIRECT_LIMIT} squares by an index assigned
+ * to their position the first time a search reaches them. Either way the
+ * context holds on to positions rather than squares, so it does not keep
+ * the board or its squares alive. Only squares that are not on that board
+ * are assigned an index by their identity, which is forgotten when a search
+ * starts on another board.
+ * <p>
+ * On an {@link IndexedBoard} searches step from square to square by their
+ * position and look up whether they are accessible or occupied without
+ * square objects, which such a board would have to create. On other boards
+ * the squares are asked for their neighbours. A search only deals with the
+ * indices: a
+ * queue of indices, an array of generation stamps to mark visited squares
+ * and arrays with the parent and the direction taken to reach every square.
+ * Best first searches additionally use a binary heap of squares ordered by
+ * their priority, and keep the cost of reaching every square. Bidirectional
+ * searches have a second queue and keep, for every square reached from the
+ * destination, the square it leads to.
+ */
+final class SearchContext {
+
+	/**
+	 * The directions, cached as {@link Direction#values()} copies its array on
+	 * every call.
+	 */
+	static final Direction[] DIRECTIONS = Direction.values();
+
+	/**
+	 * Marks a missing or inaccessible neighbour.
+	 */
+	static final int NONE = -1;
+
+	/**
+	 * The number of squares a context initially has room for.
+	 */
+	private static final int INITIAL_CAPACITY = 1024;
+
+	/**
+	 * The number of squares after which a context forgets all assigned
+	 * indices before it starts a new search, so squares of a very large board
+	 * do not pile up.
+	 */
+	private static final int MAX_SQUARES = 1 << 22;
+
+	/**
+	 * The largest number of squares of a board of which the squares are
+	 * indexed by their position directly, which takes room for every square
+	 * of the board in every context.
+	 */
+	static final int DIRECT_LIMIT = 1 << 16;
+
+	/**
+	 * The search context of every thread.
+	 */
+	private static final ThreadLocal<SearchContext> CONTEXTS =
+			new ThreadLocal<SearchContext>() {
+				@Override
+				protected SearchContext initialValue() {
+					return new SearchContext();
+				}
+			};
+
+	/**
+	 * The board of the current search, or an empty reference if it started
+	 * on a square that is not on a board.
+	 */
+	private WeakReference<Board> board = new WeakReference<>(null);
+
+	/**
+	 * Whether the board of the current search is an {@link IndexedBoard}.
+	 */
+	private boolean indexed;
+
+	/**
+	 * The number of columns of the board of the current search.
+	 */
+	private int width;
+
+	/**
+	 * The number of rows of the board of the current search.
+	 */
+	private int height;
+
+	/**
+	 * The number of indices taken by the squares of the board indexed by
+	 * their position directly, or zero if the board is too large for that.
+	 */
+	private int base;
+
+	/**
+	 * The number of indices assigned from {@link #base} onwards.
+	 */
+	private int assigned;
+
+	/**
+	 * The index assigned to the position of every square of a board too large
+	 * to index by position directly.
+	 */
+	private final PositionTable positions = new PositionTable(INITIAL_CAPACITY);
+
+	/**
+	 * The index of every square seen so far that is not on the board of the
+	 * current search.
+	 */
+	private final Map<Square, Integer> strangers = new IdentityHashMap<>();
+
+	/**
+	 * The position on the board of every assigned index, or
+	 * {@link PositionTable#ABSENT} for squares that are not on the board, by
+	 * index minus {@link #base}.
+	 */
+	private int[] assignedPositions = new int[INITIAL_CAPACITY];
+
+	/**
+	 * The squares that are not on the board of every assigned index, by index
+	 * minus {@link #base}.
+	 */
+	private Square[] assignedSquares = new Square[INITIAL_CAPACITY];
+
+	/**
+	 * The generation in which every square was last visited.
+	 */
+	private int[] visited = new int[INITIAL_CAPACITY];
+
+	/**
+	 * The index of the square every square was reached from.
+	 */
+	private int[] parents = new int[INITIAL_CAPACITY];
+
+	/**
+	 * The ordinal of the direction every square was reached in.
+	 */
+	private byte[] directions = new byte[INITIAL_CAPACITY];
+
+	/**
+	 * The generation in which every square was last closed by a best first
+	 * search.
+	 */
+	private int[] closed = new int[INITIAL_CAPACITY];
+
+	/**
+	 * The number of steps it took to reach every square.
+	 */
+	private int[] costs = new int[INITIAL_CAPACITY];
+
+	/**
+	 * The generation of the current search.
+	 */
+	private int generation;
+
+	/**
+	 * The squares to expand.
+	 */
+	private final IndexQueue queue = new IndexQueue(INITIAL_CAPACITY);
+
+	/**
+	 * The generation in which every square was last reached by the backward
+	 * half of a bidirectional search.
+	 */
+	private int[] reached = new int[INITIAL_CAPACITY];
+
+	/**
+	 * The index of the square every square reached backwards leads to, or
+	 * <code>-1</code> for the destination.
+	 */
+	private int[] successors = new int[INITIAL_CAPACITY];
+
+	/**
+	 * The ordinal of the direction leading from every square reached
+	 * backwards to its successor.
+	 */
+	private byte[] exits = new byte[INITIAL_CAPACITY];
+
+	/**
+	 * The squares to expand backwards in a bidirectional search.
+	 */
+	private final IndexQueue backwardQueue = new IndexQueue(INITIAL_CAPACITY);
+
+	/**
+	 * The open squares of a best first search.
+	 */
+	private final IndexHeap heap = new IndexHeap(INITIAL_CAPACITY);
+
+	private SearchContext() {
+	}
+
+	/**
+	 * @return The search context of the current thread.
+	 */
+	static SearchContext current() {
+		return CONTEXTS.get();
+	}
+
+	/**
+	 * Starts a new search, forgetting all visited squares and emptying the
+	 * queue. If the search starts on another board than the previous one, the
+	 * assigned indices are forgotten as well.
+	 *
+	 * @param start
+	 *            The square the search starts from.
+	 */
+	void begin(Square start) {
+		Board next = start.getBoard();
+		if (next != board.get() || assigned > MAX_SQUARES) {
+			forget(next);
+		}
+		generation++;
+		if (generation == 0) {
+			Arrays.fill(visited, 0);
+			Arrays.fill(closed, 0);
+			Arrays.fill(reached, 0);
+			generation = 1;
+		}
+		queue.clear();
+		backwardQueue.clear();
+		heap.clear();
+	}
+
+	private void forget(Board next) {
+		Arrays.fill(assignedSquares, 0, assigned, null);
+		assigned = 0;
+		strangers.clear();
+		positions.clear();
+		board = new WeakReference<>(next);
+		indexed = next instanceof IndexedBoard;
+		width = 0;
+		height = 0;
+		base = 0;
+		if (next != null) {
+			width = next.getWidth();
+			height = next.getHeight();
+			int cells = width * height;
+			if (cells <= DIRECT_LIMIT) {
+				base = cells;
+				ensureCapacity(base);
+			}
+		}
+	}
+
+	/**
+	 * Returns the index of a square, assigning it one if it has not been seen
+	 * before.
+	 *
+	 * @param square
+	 *            The square to look up.
+	 * @return The index of the square.
+	 */
+	int indexOf(Square square) {
+		Board current = square.getBoard();
+		if (current != null && current == board.get()) {
+			return indexAt(square.getY() * width + square.getX());
+		}
+		Integer index = strangers.get(square);
+		if (index != null) {
+			return index;
+		}
+		int next = assign(PositionTable.ABSENT, square);
+		strangers.put(square, next);
+		return next;
+	}
+
+	/**
+	 * Returns the index of the square at a position on the board of the
+	 * current search, assigning it one if need be.
+	 */
+	private int indexAt(int position) {
+		if (position < base) {
+			return position;
+		}
+		int index = positions.get(position);
+		if (index == PositionTable.ABSENT) {
+			index = assign(position, null);
+			positions.put(position, index);
+		}
+		return index;
+	}
+
+	/**
+	 * @return The position on the board of the current search of the square
+	 *         with an index, or {@link PositionTable#ABSENT} if it is not on
+	 *         that board.
+	 */
+	private int positionOf(int index) {
+		if (index < base) {
+			return index;
+		}
+		return assignedPositions[index - base];
+	}
+
+	private int assign(int position, Square square) {
+		if (assigned == assignedPositions.length) {
+			assignedPositions = Arrays.copyOf(assignedPositions, assigned * 2);
+			assignedSquares = Arrays.copyOf(assignedSquares, assigned * 2);
+		}
+		assignedPositions[assigned] = position;
+		assignedSquares[assigned] = square;
+		assigned++;
+		ensureCapacity(base + assigned);
+		return base + assigned - 1;
+	}
+
+	private void ensureCapacity(int needed) {
+		int capacity = visited.length;
+		while (capacity < needed) {
+			capacity *= 2;
+		}
+		if (capacity == visited.length) {
+			return;
+		}
+		visited = Arrays.copyOf(visited, capacity);
+		parents = Arrays.copyOf(parents, capacity);
+		directions = Arrays.copyOf(directions, capacity);
+		closed = Arrays.copyOf(closed, capacity);
+		costs = Arrays.copyOf(costs, capacity);
+		reached = Arrays.copyOf(reached, capacity);
+		successors = Arrays.copyOf(successors, capacity);
+		exits = Arrays.copyOf(exits, capacity);
+	}
+
+	/**
+	 * @return The number of squares that are not on the board of the current
+	 *         search this context holds on to.
+	 */
+	int heldSquares() {
+		return strangers.size();
+	}
+
+	/**
+	 * @param index
+	 *            The index of a square.
+	 * @return The square with that index.
+	 */
+	Square squareAt(int index) {
+		int position = index;
+		if (index >= base) {
+			Square square = assignedSquares[index - base];
+			if (square != null) {
+				return square;
+			}
+			position = assignedPositions[index - base];
+		}
+		return board.get().squareAt(position % width, position / width);
+	}
+
+	/**
+	 * Returns the square with an index to step from, unless the search can
+	 * step from it by its position.
+	 *
+	 * @param index
+	 *            The index of a square.
+	 * @return The square with that index, or <code>null</code> if it is a
+	 *         square of an {@link IndexedBoard}.
+	 */
+	Square stepFrom(int index) {
+		if (indexed && positionOf(index) != PositionTable.ABSENT) {
+			return null;
+		}
+		return squareAt(index);
+	}
+
+	/**
+	 * Steps from a square to its neighbour, if the traveller can occupy it.
+	 *
+	 * @param index
+	 *            The index of the square to step from.
+	 * @param square
+	 *            The square to step from, as given by {@link #stepFrom(int)}.
+	 * @param direction
+	 *            The direction to step in.
+	 * @param traveller
+	 *            The unit stepping, or <code>null</code> to ignore terrain.
+	 * @return The index of the neighbour, or {@link #NONE} if there is no
+	 *         neighbour the traveller can occupy.
+	 */
+	int step(int index, Square square, Direction direction, Unit traveller) {
+		if (square == null) {
+			IndexedBoard indices = (IndexedBoard) board.get();
+			int next = indices.neighbourOf(positionOf(index), direction);
+			if (next == IndexedBoard.ELSEWHERE) {
+				return step(index, squareAt(index), direction, traveller);
+			}
+			if (traveller != null && !indices.isAccessible(next, traveller)) {
+				return NONE;
+			}
+			return indexAt(next);
+		}
+		Square target = square.getSquareAt(direction);
+		if (target == null
+				|| (traveller != null && !target.isAccessibleTo(traveller))) {
+			return NONE;
+		}
+		return indexOf(target);
+	}
+
+	/**
+	 * Steps back from a square to the neighbour that leads to it, regardless
+	 * of terrain.
+	 *
+	 * @param index
+	 *            The index of the square to step back from.
+	 * @param square
+	 *            The square to step back from, as given by
+	 *            {@link #stepFrom(int)}.
+	 * @param direction
+	 *            The direction leading from the neighbour to the square.
+	 * @return The index of the neighbour, or {@link #NONE} if the neighbour
+	 *         in the opposite direction does not lead back to the square.
+	 */
+	int stepBack(int index, Square square, Direction direction) {
+		Direction back = DIRECTIONS[SquareGraph.opposite(direction.ordinal())];
+		if (square == null) {
+			IndexedBoard indices = (IndexedBoard) board.get();
+			int position = positionOf(index);
+			int source = indices.neighbourOf(position, back);
+			if (source == IndexedBoard.ELSEWHERE) {
+				return stepBack(index, squareAt(index), direction);
+			}
+			if (indices.neighbourOf(source, direction) != position) {
+				return NONE;
+			}
+			return indexAt(source);
+		}
+		Square source = square.getSquareAt(back);
+		if (source == null || source.getSquareAt(direction) != square) {
+			return NONE;
+		}
+		return indexOf(source);
+	}
+
+	/**
+	 * @param index
+	 *            The index of a square.
+	 * @param traveller
+	 *            The unit to grant or deny access, or <code>null</code> to
+	 *            ignore terrain.
+	 * @return <code>true</code> iff the traveller can occupy the square.
+	 */
+	boolean isPassable(int index, Unit traveller) {
+		if (traveller == null) {
+			return true;
+		}
+		int position = positionOf(index);
+		if (indexed && position != PositionTable.ABSENT) {
+			return ((IndexedBoard) board.get()).isAccessible(position, traveller);
+		}
+		return squareAt(index).isAccessibleTo(traveller);
+	}
+
+	/**
+	 * @param index
+	 *            The index of a square.
+	 * @return The square with that index if it has occupants, or
+	 *         <code>null</code> if it has none.
+	 */
+	Square occupiedAt(int index) {
+		int position = positionOf(index);
+		if (indexed && position != PositionTable.ABSENT
+				&& ((IndexedBoard) board.get()).occupantCount(position) == 0) {
+			return null;
+		}
+		Square square = squareAt(index);
+		if (square.occupantCount() == 0) {
+			return null;
+		}
+		return square;
+	}
+
+	/**
+	 * Estimates the number of steps from a square to a destination, like
+	 * {@link Navigation#estimate(Square, Square)}.
+	 *
+	 * @param index
+	 *            The index of the square.
+	 * @param to
+	 *            The destination.
+	 * @return The least number of steps needed.
+	 */
+	int estimate(int index, Square to) {
+		int position = positionOf(index);
+		if (position == PositionTable.ABSENT || to.getBoard() != board.get()) {
+			return Navigation.estimate(squareAt(index), to);
+		}
+		int dx = Math.abs(position % width - to.getX());
+		int dy = Math.abs(position / width - to.getY());
+		return Math.min(dx, width - dx) + Math.min(dy, height - dy);
+	}
+
+	/**
+	 * Marks a square as visited in the current search, unless it already was.
+	 *
+	 * @param index
+	 *            The index of the square to visit.
+	 * @param parent
+	 *            The index of the square it was reached from, or
+	 *            <code>-1</code> for the start of the search.
+	 * @param direction
+	 *            The direction it was reached in, or <code>null</code> for
+	 *            the start of the search.
+	 * @return <code>true</code> iff the square was not visited before in the
+	 *         current search.
+	 */
+	boolean visit(int index, int parent, Direction direction) {
+		if (visited[index] == generation) {
+			return false;
+		}
+		visited[index] = generation;
+		parents[index] = parent;
+		if (direction != null) {
+			directions[index] = (byte) direction.ordinal();
+		}
+		return true;
+	}
+
+	/**
+	 * Records a way to reach a square in a best first search, if it is
+	 * cheaper than any way found before and the square is not closed yet.
+	 *
+	 * @param index
+	 *            The index of the square.
+	 * @param parent
+	 *            The index of the square it is reached from, or
+	 *            <code>-1</code> for the start of the search.
+	 * @param direction
+	 *            The direction it is reached in, or <code>null</code> for
+	 *            the start of the search.
+	 * @param cost
+	 *            The number of steps it takes to reach the square this way.
+	 * @return <code>true</code> iff this is the cheapest way found so far.
+	 */
+	boolean relax(int index, int parent, Direction direction, int cost) {
+		if (closed[index] == generation
+				|| (visited[index] == generation && costs[index] <= cost)) {
+			return false;
+		}
+		visited[index] = generation;
+		parents[index] = parent;
+		costs[index] = cost;
+		if (direction != null) {
+			directions[index] = (byte) direction.ordinal();
+		}
+		return true;
+	}
+
+	/**
+	 * Closes a square in a best first search, meaning the cheapest way to
+	 * reach it is known.
+	 *
+	 * @param index
+	 *            The index of the square.
+	 * @return <code>true</code> iff the square was not closed before.
+	 */
+	boolean close(int index) {
+		if (closed[index] == generation) {
+			return false;
+		}
+		closed[index] = generation;
+		return true;
+	}
+
+	/**
+	 * @param index
+	 *            The index of a square reached in the current search.
+	 * @return The number of steps it took to reach the square.
+	 */
+	int costOf(int index) {
+		return costs[index];
+	}
+
+	/**
+	 * Adds a square to the heap of open squares.
+	 *
+	 * @param index
+	 *            The index of the square.
+	 * @param priority
+	 *            The priority of the square, lowest first.
+	 */
+	void push(int index, int priority) {
+		heap.push(index, priority);
+	}
+
+	/**
+	 * Removes the square with the lowest priority from the heap.
+	 *
+	 * @return The index of the square.
+	 */
+	int pop() {
+		return heap.pop();
+	}
+
+	/**
+	 * @return <code>true</code> iff there are no open squares left.
+	 */
+	boolean isHeapEmpty() {
+		return heap.isEmpty();
+	}
+
+	/**
+	 * Adds a square to the end of the queue.
+	 *
+	 * @param index
+	 *            The index of the square.
+	 */
+	void enqueue(int index) {
+		queue.enqueue(index);
+	}
+
+	/**
+	 * Removes the square at the front of the queue.
+	 *
+	 * @return The index of the square.
+	 */
+	int dequeue() {
+		return queue.dequeue();
+	}
+
+	/**
+	 * @return <code>true</code> iff there are no squares left to expand.
+	 */
+	boolean isQueueEmpty() {
+		return queue.isEmpty();
+	}
+
+	/**
+	 * @return The number of squares left to expand.
+	 */
+	int queueSize() {
+		return queue.size();
+	}
+
+	/**
+	 * @param index
+	 *            The index of a square.
+	 * @return <code>true</code> iff the square was visited in the current
+	 *         search.
+	 */
+	boolean isVisited(int index) {
+		return visited[index] == generation;
+	}
+
+	/**
+	 * Marks a square as reached by the backward half of a bidirectional
+	 * search, unless it already was.
+	 *
+	 * @param index
+	 *            The index of the square to reach.
+	 * @param successor
+	 *            The index of the square it leads to, or <code>-1</code> for
+	 *            the destination of the search.
+	 * @param direction
+	 *            The direction leading to the successor, or <code>null</code>
+	 *            for the destination of the search.
+	 * @return <code>true</code> iff the square was not reached backwards
+	 *         before in the current search.
+	 */
+	boolean visitBackward(int index, int successor, Direction direction) {
+		if (reached[index] == generation) {
+			return false;
+		}
+		reached[index] = generation;
+		successors[index] = successor;
+		if (direction != null) {
+			exits[index] = (byte) direction.ordinal();
+		}
+		return true;
+	}
+
+	/**
+	 * @param index
+	 *            The index of a square.
+	 * @return <code>true</code> iff the square was reached by the backward
+	 *         half of the current search.
+	 */
+	boolean isVisitedBackward(int index) {
+		return reached[index] == generation;
+	}
+
+	/**
+	 * Adds a square to the end of the backward queue.
+	 *
+	 * @param index
+	 *            The index of the square.
+	 */
+	void enqueueBackward(int index) {
+		backwardQueue.enqueue(index);
+	}
+
+	/**
+	 * Removes the square at the front of the backward queue.
+	 *
+	 * @return The index of the square.
+	 */
+	int dequeueBackward() {
+		return backwardQueue.dequeue();
+	}
+
+	/**
+	 * @return The number of squares left to expand backwards.
+	 */
+	int backwardQueueSize() {
+		return backwardQueue.size();
+	}
+
+	/**
+	 * Returns the directions taken in the current search from its start to a
+	 * visited square.
+	 *
+	 * @param index
+	 *            The index of the visited square.
+	 * @return The directions from the start of the search to the square.
+	 */
+	List<Direction> pathTo(int index) {
+		int length = 0;
+		for (int i = index; parents[i] >= 0; i = parents[i]) {
+			length++;
+		}
+		List<Direction> path = new ArrayList<>(length);
+		for (int i = index; parents[i] >= 0; i = parents[i]) {
+			path.add(DIRECTIONS[directions[i]]);
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
+	/**
+	 * Returns the directions of a path found by a bidirectional search: the
+	 * directions taken from the start to a square visited by both halves,
+	 * followed by those leading from there to the destination.
+	 *
+	 * @param meet
+	 *            The index of the square where both halves met.
+	 * @return The directions from the start of the search to its destination.
+	 */
+	List<Direction> pathThrough(int meet) {
+		List<Direction> path = pathTo(meet);
+		for (int i = meet; successors[i] >= 0; i = successors[i]) {
+			path.add(DIRECTIONS[exits[i]]);
+		}
+		return path;
+	}
+}
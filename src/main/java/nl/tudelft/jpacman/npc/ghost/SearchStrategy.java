@@ -0,0 +1,23 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+/**
+ * The algorithms {@link Navigation} can find shortest paths with. All of them
+ * find paths of the same length, they differ in how many squares they look at
+ * to find one.
+ */
+public enum SearchStrategy {
+
+	/**
+	 * Breadth first search, expanding squares in order of their distance to
+	 * the start until it reaches the destination.
+	 */
+	BREADTH_FIRST,
+
+	/**
+	 * A* search, expanding squares in order of their distance to the start
+	 * plus the shortest conceivable distance to the destination, taking into
+	 * account that the board wraps around its edges. Usually expands far fewer
+	 * squares than breadth first search when the destination is far away.
+	 */
+	A_STAR
+}
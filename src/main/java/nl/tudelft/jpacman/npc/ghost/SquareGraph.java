@@ -0,0 +1,249 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import java.util.Arrays;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.IndexedBoard;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+
+/**
+ * The squares of a {@link Board} a traveller can occupy, numbered and linked
+ * to their accessible neighbours with plain indices. This is the common
+ * ground of the navigation structures that are computed once per board.
+ * Squares are looked up by their position, so the graph does not hold on to
+ * them, and the graph of an {@link IndexedBoard} is built from its indices
+ * without asking it for squares.
+ */
+final class SquareGraph {
+
+	/**
+	 * Marks a missing neighbour or an unreachable square.
+	 */
+	static final int NONE = -1;
+
+	/**
+	 * The number of neighbours of every square.
+	 */
+	static final int WAYS = SearchContext.DIRECTIONS.length;
+
+	/**
+	 * The ordinal of the opposite of every direction, by ordinal.
+	 */
+	private static final int[] OPPOSITES = new int[WAYS];
+
+	static {
+		for (Direction d : SearchContext.DIRECTIONS) {
+			for (Direction o : SearchContext.DIRECTIONS) {
+				if (o.getDeltaX() == -d.getDeltaX()
+						&& o.getDeltaY() == -d.getDeltaY()) {
+					OPPOSITES[d.ordinal()] = o.ordinal();
+				}
+			}
+		}
+	}
+
+	/**
+	 * The board of the squares.
+	 */
+	private final Board board;
+
+	/**
+	 * The index of the square at every position on the board, or
+	 * {@link #NONE} if that square is not accessible.
+	 */
+	private final int[] indices;
+
+	/**
+	 * The index of the neighbour of every square in every direction, or
+	 * {@link #NONE} if that neighbour is not accessible. The neighbour of
+	 * square <code>i</code> in direction <code>d</code> is stored at
+	 * <code>i * 4 + d.ordinal()</code>.
+	 */
+	private final int[] neighbours;
+
+	/**
+	 * The position of every square on the board, as
+	 * <code>y * width + x</code>.
+	 */
+	private final int[] cells;
+
+	private SquareGraph(Board grid, int[] squareIndices, int[] links,
+			int[] positions) {
+		this.board = grid;
+		this.indices = squareIndices;
+		this.neighbours = links;
+		this.cells = positions;
+	}
+
+	/**
+	 * Numbers and links all squares of the board that are accessible to the
+	 * traveller.
+	 *
+	 * @param board
+	 *            The board to create the graph for.
+	 * @param traveller
+	 *            A representative of the units walking the graph.
+	 * @return The graph of accessible squares.
+	 */
+	static SquareGraph create(Board board, Unit traveller) {
+		assert board != null;
+		assert traveller != null;
+
+		int[] indices = new int[board.getWidth() * board.getHeight()];
+		int[] positions = new int[indices.length];
+		int size = 0;
+		for (int position = 0; position < indices.length; position++) {
+			indices[position] = NONE;
+			if (isAccessible(board, position, traveller)) {
+				positions[size] = position;
+				indices[position] = size++;
+			}
+		}
+		int[] links = new int[size * WAYS];
+		for (int i = 0; i < size; i++) {
+			for (Direction d : SearchContext.DIRECTIONS) {
+				int n = neighbourOf(board, positions[i], d);
+				int slot = i * WAYS + d.ordinal();
+				if (n == NONE) {
+					links[slot] = NONE;
+				} else {
+					links[slot] = indices[n];
+				}
+			}
+		}
+		return new SquareGraph(board, indices, links,
+				Arrays.copyOf(positions, size));
+	}
+
+	private static boolean isAccessible(Board board, int position,
+			Unit traveller) {
+		if (board instanceof IndexedBoard) {
+			return ((IndexedBoard) board).isAccessible(position, traveller);
+		}
+		return squareAt(board, position).isAccessibleTo(traveller);
+	}
+
+	/**
+	 * @return The position of the neighbour of the square at a position, or
+	 *         {@link #NONE} if it is not on the board.
+	 */
+	private static int neighbourOf(Board board, int position,
+			Direction direction) {
+		if (board instanceof IndexedBoard) {
+			int n = ((IndexedBoard) board).neighbourOf(position, direction);
+			if (n == IndexedBoard.ELSEWHERE) {
+				return NONE;
+			}
+			return n;
+		}
+		Square n = squareAt(board, position).getSquareAt(direction);
+		if (n == null || n.getBoard() != board) {
+			return NONE;
+		}
+		return n.getY() * board.getWidth() + n.getX();
+	}
+
+	private static Square squareAt(Board board, int position) {
+		return board.squareAt(position % board.getWidth(),
+				position / board.getWidth());
+	}
+
+	/**
+	 * @return The number of accessible squares.
+	 */
+	int size() {
+		return cells.length;
+	}
+
+	/**
+	 * @param square
+	 *            The square to look up.
+	 * @return The index of the square, or {@link #NONE} if it is not part of
+	 *         this graph.
+	 */
+	int indexOf(Square square) {
+		if (square == null || square.getBoard() != board) {
+			return NONE;
+		}
+		return indices[square.getY() * board.getWidth() + square.getX()];
+	}
+
+	/**
+	 * @param index
+	 *            The index of a square.
+	 * @param direction
+	 *            The ordinal of a direction.
+	 * @return The index of the accessible neighbour in that direction, or
+	 *         {@link #NONE} if there is none.
+	 */
+	int neighbour(int index, int direction) {
+		return neighbours[index * WAYS + direction];
+	}
+
+	/**
+	 * @param index
+	 *            The index of a square.
+	 * @return The position of the square on the board, as
+	 *         <code>y * width + x</code>.
+	 */
+	int cellOf(int index) {
+		return cells[index];
+	}
+
+	/**
+	 * @param index
+	 *            The index of a square.
+	 * @return The number of accessible neighbours of the square.
+	 */
+	int degree(int index) {
+		int degree = 0;
+		for (int d = 0; d < WAYS; d++) {
+			if (neighbours[index * WAYS + d] != NONE) {
+				degree++;
+			}
+		}
+		return degree;
+	}
+
+	/**
+	 * @param direction
+	 *            The ordinal of a direction.
+	 * @return The ordinal of the opposite direction.
+	 */
+	static int opposite(int direction) {
+		return OPPOSITES[direction];
+	}
+
+	/**
+	 * Computes the distance of every square to the target with a breadth
+	 * first search starting at the target. As squares are linked in both
+	 * directions, this is also the distance from the target to every square.
+	 *
+	 * @param target
+	 *            The index of the target square.
+	 * @param row
+	 *            The array to fill with the distance of every square, or
+	 *            {@link #NONE} for squares that cannot reach the target.
+	 * @param queue
+	 *            Scratch space for the search, as large as the graph.
+	 */
+	void flood(int target, int[] row, int[] queue) {
+		Arrays.fill(row, NONE);
+		row[target] = 0;
+		queue[0] = target;
+		int head = 0;
+		int tail = 1;
+		while (head < tail) {
+			int current = queue[head++];
+			for (int d = 0; d < WAYS; d++) {
+				int next = neighbours[current * WAYS + d];
+				if (next != NONE && row[next] == NONE) {
+					row[next] = row[current] + 1;
+					queue[tail++] = next;
+				}
+			}
+		}
+	}
+}
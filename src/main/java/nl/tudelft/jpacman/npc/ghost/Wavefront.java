@@ -0,0 +1,410 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import java.util.Arrays;
+
+import nl.tudelft.jpacman.board.BitLayer;
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+
+/**
+ * A breadth first search over a {@link Board} that works on bit masks instead
+ * of single squares. Every row of the board is stored as a sequence of
+ * <code>long</code> words with one bit per square the traveller can occupy.
+ * The search keeps its frontier and visited squares in the same layout and
+ * computes each next layer with a handful of shifts, ands and ors per word,
+ * dealing with 64 squares at a time. Only the rows the frontier can have
+ * reached are touched.
+ * <p>
+ * Searches grow from the destination towards the start, so the first step
+ * is the neighbour of the start in the last layer before the start was
+ * reached. The wavefront assumes the squares of the board are linked around
+ * its edges as {@link nl.tudelft.jpacman.board.BoardFactory} does, and like
+ * {@link DistanceOracle} that accessibility does not change during the game.
+ */
+public final class Wavefront implements Navigator {
+
+	/**
+	 * The number of bits needed to address a square within a word.
+	 */
+	private static final int ADDRESS_BITS = 6;
+
+	/**
+	 * The mask extracting the position within a word from an x coordinate.
+	 */
+	private static final int BIT_MASK = Long.SIZE - 1;
+
+	/**
+	 * The board the masks were computed for.
+	 */
+	private final Board board;
+
+	/**
+	 * The width of the board.
+	 */
+	private final int width;
+
+	/**
+	 * The height of the board.
+	 */
+	private final int height;
+
+	/**
+	 * The number of words per row.
+	 */
+	private final int words;
+
+	/**
+	 * The squares the traveller can occupy, row by row.
+	 */
+	private final long[] passable;
+
+	/**
+	 * Scratch space for the searches of every thread.
+	 */
+	private final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+		@Override
+		protected Scratch initialValue() {
+			return new Scratch(words, width, height);
+		}
+	};
+
+	private Wavefront(Board grid, Unit traveller) {
+		this.board = grid;
+		this.width = grid.getWidth();
+		this.height = grid.getHeight();
+		this.words = (width + BIT_MASK) >>> ADDRESS_BITS;
+		this.passable = new long[height * words];
+		BitLayer accessible = grid.accessibleTo(traveller);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (accessible.get(x, y)) {
+					passable[y * words + (x >>> ADDRESS_BITS)] |= bit(x);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Packs the squares of a board a traveller can occupy into bit masks.
+	 *
+	 * @param board
+	 *            The board to search.
+	 * @param traveller
+	 *            A representative of the units that will navigate with the
+	 *            masks.
+	 * @return The wavefront search for the board.
+	 */
+	public static Wavefront create(Board board, Unit traveller) {
+		assert board != null;
+		assert traveller != null;
+		return new Wavefront(board, traveller);
+	}
+
+	/**
+	 * Determines whether a square is on the board of this search and can be
+	 * occupied by the traveller.
+	 *
+	 * @param square
+	 *            The square to start from.
+	 * @return <code>true</code> iff the square is accessible.
+	 */
+	@Override
+	public boolean covers(Square square) {
+		return square.getBoard() == board
+				&& isSet(passable, square.getX(), square.getY());
+	}
+
+	@Override
+	public int distance(Square from, Square to) {
+		return search(from, to, scratch.get());
+	}
+
+	@Override
+	public Direction firstStep(Square from, Square to) {
+		Scratch space = scratch.get();
+		if (search(from, to, space) <= 0) {
+			return null;
+		}
+		return SearchContext.DIRECTIONS[space.direction];
+	}
+
+	@Override
+	public Direction firstStep(Square from, Square to, int[] length) {
+		Scratch space = scratch.get();
+		length[0] = search(from, to, space);
+		if (length[0] <= 0) {
+			return null;
+		}
+		return SearchContext.DIRECTIONS[space.direction];
+	}
+
+	/**
+	 * Computes the distance of every square of the board to the target.
+	 *
+	 * @param target
+	 *            The square to flood from.
+	 * @param distances
+	 *            The array to fill with the distance of the square at
+	 *            <code>x,y</code> at <code>y * width + x</code>, or
+	 *            <code>-1</code> for squares that cannot reach the target.
+	 */
+	void flood(Square target, int[] distances) {
+		Arrays.fill(distances, SquareGraph.NONE);
+		if (!covers(target)) {
+			return;
+		}
+		Scratch space = scratch.get();
+		space.begin(target.getX(), target.getY());
+		space.distances = distances;
+		distances[target.getY() * width + target.getX()] = 0;
+		int layer = 0;
+		while (advance(space, target.getY(), layer)) {
+			layer++;
+		}
+		space.distances = null;
+	}
+
+	/**
+	 * Searches from the destination until the start is next to the frontier,
+	 * leaving the first step in the scratch space.
+	 *
+	 * @return The number of steps between the squares, or <code>-1</code> if
+	 *         there is no path between them.
+	 */
+	private int search(Square from, Square to, Scratch space) {
+		space.direction = SquareGraph.NONE;
+		if (from.getBoard() != board || !covers(to)) {
+			return SquareGraph.NONE;
+		}
+		if (from == to) {
+			return 0;
+		}
+		space.begin(to.getX(), to.getY());
+		for (int layer = 0;; layer++) {
+			int step = adjacent(space.frontier, from.getX(), from.getY());
+			if (step != SquareGraph.NONE) {
+				space.direction = step;
+				return layer + 1;
+			}
+			if (!advance(space, to.getY(), layer)) {
+				return SquareGraph.NONE;
+			}
+		}
+	}
+
+	/**
+	 * @return The ordinal of the direction in which a square has a neighbour
+	 *         in the frontier, or <code>-1</code> if it has none.
+	 */
+	private int adjacent(long[] frontier, int x, int y) {
+		for (Direction d : SearchContext.DIRECTIONS) {
+			int nx = Math.floorMod(x + d.getDeltaX(), width);
+			int ny = Math.floorMod(y + d.getDeltaY(), height);
+			if (isSet(frontier, nx, ny)) {
+				return d.ordinal();
+			}
+		}
+		return SquareGraph.NONE;
+	}
+
+	/**
+	 * Computes the next layer of a search from the current frontier and makes
+	 * it the new frontier. Squares in a layer are at most as many rows away
+	 * from the origin as the layer number, so only those rows are computed.
+	 *
+	 * @param space
+	 *            The scratch space of the search.
+	 * @param origin
+	 *            The row the search started in.
+	 * @param layer
+	 *            The number of the current frontier.
+	 * @return <code>true</code> iff the new frontier is not empty.
+	 */
+	private boolean advance(Scratch space, int origin, int layer) {
+		int reach = layer + 1;
+		boolean grew = false;
+		if (2 * reach + 1 >= height) {
+			for (int y = 0; y < height; y++) {
+				grew |= advanceRow(space, y, reach);
+			}
+		} else {
+			for (int dy = -reach; dy <= reach; dy++) {
+				grew |= advanceRow(space, Math.floorMod(origin + dy, height), reach);
+			}
+		}
+		long[] frontier = space.frontier;
+		space.frontier = space.next;
+		space.next = frontier;
+		return grew;
+	}
+
+	/**
+	 * Computes one row of the next layer: the squares next to the frontier
+	 * in the same row, wrapping around its ends, or in the rows above and
+	 * below, that can be occupied and were not visited before.
+	 *
+	 * @return <code>true</code> iff the row of the next layer is not empty.
+	 */
+	private boolean advanceRow(Scratch space, int y, int distance) {
+		long[] frontier = space.frontier;
+		int base = y * words;
+		int above = Math.floorMod(y - 1, height) * words;
+		int below = (y + 1) % height * words;
+		boolean grew = false;
+		for (int w = 0; w < words; w++) {
+			long bits = frontier[base + w];
+			long east = bits << 1;
+			long west = bits >>> 1;
+			if (w > 0) {
+				east |= frontier[base + w - 1] >>> BIT_MASK;
+			}
+			if (w + 1 < words) {
+				west |= frontier[base + w + 1] << BIT_MASK;
+			}
+			long spread = east | west | frontier[above + w] | frontier[below + w];
+			long fresh = spread & passable[base + w] & ~space.visited[base + w];
+			space.next[base + w] = fresh;
+			if (fresh != 0) {
+				space.reach(fresh, base + w, distance);
+				grew = true;
+			}
+		}
+		int last = width - 1;
+		if (isSet(frontier, last, y)) {
+			grew |= wrap(space, 0, y, distance);
+		}
+		if (isSet(frontier, 0, y)) {
+			grew |= wrap(space, last, y, distance);
+		}
+		return grew;
+	}
+
+	/**
+	 * Adds a square reached around the edge of the board to the next layer.
+	 *
+	 * @return <code>true</code> iff the square was not visited before.
+	 */
+	private boolean wrap(Scratch space, int x, int y, int distance) {
+		int index = y * words + (x >>> ADDRESS_BITS);
+		long fresh = bit(x) & passable[index] & ~space.visited[index];
+		if (fresh == 0) {
+			return false;
+		}
+		space.next[index] |= fresh;
+		space.reach(fresh, index, distance);
+		return true;
+	}
+
+	private boolean isSet(long[] masks, int x, int y) {
+		return (masks[y * words + (x >>> ADDRESS_BITS)] & bit(x)) != 0;
+	}
+
+	private static long bit(int x) {
+		return 1L << (x & BIT_MASK);
+	}
+
+	/**
+	 * The scratch space of the searches of a single thread.
+	 */
+	private static final class Scratch {
+
+		/**
+		 * The squares reached so far.
+		 */
+		private final long[] visited;
+
+		/**
+		 * The squares of the current layer.
+		 */
+		private long[] frontier;
+
+		/**
+		 * The squares of the layer being computed.
+		 */
+		private long[] next;
+
+		/**
+		 * The distances to fill in, or <code>null</code> if the search only
+		 * looks for the first step.
+		 */
+		private int[] distances;
+
+		/**
+		 * The number of words per row.
+		 */
+		private final int words;
+
+		/**
+		 * The width of the board.
+		 */
+		private final int width;
+
+		/**
+		 * The ordinal of the first step of the last search, or
+		 * {@link SquareGraph#NONE} if there is none.
+		 */
+		private int direction;
+
+		/**
+		 * Creates scratch space for a board.
+		 *
+		 * @param rowWords
+		 *            The number of words per row.
+		 * @param columns
+		 *            The width of the board.
+		 * @param rows
+		 *            The height of the board.
+		 */
+		Scratch(int rowWords, int columns, int rows) {
+			this.words = rowWords;
+			this.width = columns;
+			int size = rowWords * rows;
+			this.visited = new long[size];
+			this.frontier = new long[size];
+			this.next = new long[size];
+		}
+
+		/**
+		 * Starts a new search with a single square in the frontier.
+		 *
+		 * @param x
+		 *            The x coordinate of the square.
+		 * @param y
+		 *            The y coordinate of the square.
+		 */
+		void begin(int x, int y) {
+			Arrays.fill(visited, 0L);
+			Arrays.fill(frontier, 0L);
+			Arrays.fill(next, 0L);
+			int index = y * words + (x >>> ADDRESS_BITS);
+			visited[index] = bit(x);
+			frontier[index] = bit(x);
+		}
+
+		/**
+		 * Marks squares as visited, recording their distance if the search
+		 * fills in distances.
+		 *
+		 * @param fresh
+		 *            The squares reached, as bits of a word.
+		 * @param index
+		 *            The index of the word.
+		 * @param distance
+		 *            The number of steps it took to reach the squares.
+		 */
+		void reach(long fresh, int index, int distance) {
+			visited[index] |= fresh;
+			if (distances == null) {
+				return;
+			}
+			int y = index / words;
+			int offset = (index % words) << ADDRESS_BITS;
+			for (long bits = fresh; bits != 0; bits &= bits - 1) {
+				int x = offset + Long.numberOfTrailingZeros(bits);
+				distances[y * width + x] = distance;
+			}
+		}
+	}
+}
@@ -53,7 +53,8 @@ public class ImageSprite implements Sprite {
 
 	/**
 	 * Creates a new, empty image of the given width and height. Its
-	 * transparency will be a bitmask, so no try ARGB image.
+	 * transparency will be a bitmask, so no try ARGB image. Without a screen,
+	 * as when benchmarking on a build server, a plain ARGB image is used.
 	 * 
 	 * @param width
 	 *            The width of the new image.
@@ -62,6 +63,9 @@ public class ImageSprite implements Sprite {
 	 * @return The new, empty image.
 	 */
 	private BufferedImage newImage(int width, int height) {
+		if (GraphicsEnvironment.isHeadless()) {
+			return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		}
 		GraphicsConfiguration gc = GraphicsEnvironment
 				.getLocalGraphicsEnvironment().getDefaultScreenDevice()
 				.getDefaultConfiguration();
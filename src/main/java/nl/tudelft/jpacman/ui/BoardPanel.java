@@ -8,7 +8,6 @@ import javax.swing.JPanel;
 
 import nl.tudelft.jpacman.board.Board;
 import nl.tudelft.jpacman.board.Square;
-import nl.tudelft.jpacman.board.Unit;
 import nl.tudelft.jpacman.game.Game;
 
 /**
@@ -113,8 +112,8 @@ class BoardPanel extends JPanel {
 	 */
 	private void render(Square square, Graphics g, int x, int y, int w, int h) {
 		square.getSprite().draw(g, x, y, w, h);
-		for (Unit unit : square.getOccupants()) {
-			unit.getSprite().draw(g, x, y, w, h);
+		for (int i = 0; i < square.occupantCount(); i++) {
+			square.getOccupant(i).getSprite().draw(g, x, y, w, h);
 		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,95 @@
+package nl.tudelft.jpacman.board;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import nl.tudelft.jpacman.sprite.PacManSprites;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the bit layers a {@link Board} keeps of its units and its walls.
+ */
+@SuppressWarnings({"magicnumber", "PMD.TooManyStaticImports"})
+public class BitLayerTest {
+
+	/**
+	 * A board of nine columns and eight rows, more squares than fit in a
+	 * word, with a wall in the last square.
+	 */
+	private Board board;
+
+	/**
+	 * Creates the board under test.
+	 */
+	@Before
+	public void setUp() {
+		BoardFactory factory = new BoardFactory(new PacManSprites());
+		Square[][] grid = new Square[9][8];
+		for (int x = 0; x < grid.length; x++) {
+			for (int y = 0; y < grid[x].length; y++) {
+				grid[x][y] = factory.createGround();
+			}
+		}
+		grid[8][7] = factory.createWall();
+		board = factory.createBoard(grid);
+	}
+
+	/**
+	 * Verifies a layer follows units of its type as they arrive, move and
+	 * leave, across the boundary between two words.
+	 */
+	@Test
+	public void testOccupied() {
+		Unit unit = new BasicUnit();
+		unit.occupy(board.squareAt(0, 0));
+		BitLayer layer = board.layerOf(BasicUnit.class);
+		assertTrue(layer.get(0, 0));
+
+		unit.occupy(board.squareAt(1, 7));
+		assertFalse(layer.get(0, 0));
+		assertTrue(layer.get(1, 7));
+		assertEquals(1, layer.count());
+		assertEquals(64, layer.nextSet(0));
+
+		unit.leaveSquare();
+		assertEquals(0, layer.count());
+		assertEquals(-1, layer.nextSet(0));
+		assertSame(layer, board.layerOf(BasicUnit.class));
+	}
+
+	/**
+	 * Verifies the bit of a square stays set while another unit of the type
+	 * is still on it.
+	 */
+	@Test
+	public void testShared() {
+		BitLayer layer = board.layerOf(Unit.class);
+		Unit first = new BasicUnit();
+		Unit second = new BasicUnit();
+		first.occupy(board.squareAt(3, 2));
+		second.occupy(board.squareAt(3, 2));
+
+		first.occupy(board.squareAt(4, 2));
+		assertTrue(layer.get(3, 2));
+		assertEquals(2, layer.count());
+
+		second.leaveSquare();
+		assertFalse(layer.get(3, 2));
+		assertEquals(4 + 2 * 9, layer.nextSet(0));
+	}
+
+	/**
+	 * Verifies the accessible layer leaves out the wall.
+	 */
+	@Test
+	public void testAccessible() {
+		BitLayer layer = board.accessibleTo(new BasicUnit());
+		assertEquals(71, layer.count());
+		assertFalse(layer.get(8, 7));
+		assertEquals(2, layer.wordCount());
+	}
+}
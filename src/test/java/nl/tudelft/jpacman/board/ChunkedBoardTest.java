@@ -0,0 +1,214 @@
+package nl.tudelft.jpacman.board;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+
+import com.google.common.base.Strings;
+
+import nl.tudelft.jpacman.level.Level;
+import nl.tudelft.jpacman.level.Pellet;
+import nl.tudelft.jpacman.npc.ghost.BoardFixtures;
+import nl.tudelft.jpacman.npc.ghost.Navigation;
+import nl.tudelft.jpacman.sprite.PacManSprites;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the chunks and links of a {@link ChunkedBoard} and a level parsed
+ * onto one.
+ */
+@SuppressWarnings({"magicnumber", "PMD.TooManyStaticImports"})
+public class ChunkedBoardTest {
+
+	/**
+	 * The factory creating chunked boards.
+	 */
+	private BoardFactory factory;
+
+	/**
+	 * A board of five columns and three rows in chunks of two by two, of
+	 * which one is kept, with a wall at <code>2,1</code>.
+	 */
+	private ChunkedBoard board;
+
+	/**
+	 * Creates the board under test.
+	 */
+	@Before
+	public void setUp() {
+		factory = new BoardFactory(new PacManSprites()).withChunkedBoards(true);
+		boolean[][] walls = new boolean[5][3];
+		walls[2][1] = true;
+		board = factory.createChunkedBoard(walls, 2, 1);
+	}
+
+	/**
+	 * Verifies squares are linked across the edges of chunks and around the
+	 * edges of the board, including the partial chunks at the far edges.
+	 */
+	@Test
+	public void testLinks() {
+		assertEquals(6, board.chunkCount());
+		Square corner = board.squareAt(0, 0);
+		assertSame(board.squareAt(1, 0), corner.getSquareAt(Direction.EAST));
+		assertSame(board.squareAt(4, 0), corner.getSquareAt(Direction.WEST));
+		assertSame(board.squareAt(0, 2), corner.getSquareAt(Direction.NORTH));
+		Square edge = board.squareAt(1, 1);
+		assertSame(board.squareAt(2, 1), edge.getSquareAt(Direction.EAST));
+		assertSame(board.squareAt(1, 2), edge.getSquareAt(Direction.SOUTH));
+		assertSame(edge, edge.getSquareAt(Direction.EAST)
+				.getSquareAt(Direction.WEST));
+		assertEquals(4, edge.getSquareAt(Direction.EAST)
+				.getSquareAt(Direction.EAST).getSquareAt(Direction.EAST)
+				.getX());
+	}
+
+	/**
+	 * Verifies a square can be linked to another neighbour, and keeps that
+	 * link after its chunk was evicted.
+	 */
+	@Test
+	public void testRelink() {
+		Square tunnel = board.squareAt(4, 2);
+		board.squareAt(0, 0).link(tunnel, Direction.EAST);
+		assertSame(tunnel, board.squareAt(0, 0).getSquareAt(Direction.EAST));
+		assertSame(board.squareAt(0, 1),
+				board.squareAt(0, 0).getSquareAt(Direction.SOUTH));
+
+		board.squareAt(2, 2);
+		board.squareAt(2, 0);
+		assertSame(tunnel, board.squareAt(0, 0).getSquareAt(Direction.EAST));
+		assertSame(board.squareAt(0, 0),
+				board.squareAt(1, 0).getSquareAt(Direction.WEST));
+	}
+
+	/**
+	 * Verifies squares behave like their kind, which can be looked up
+	 * without creating chunks.
+	 */
+	@Test
+	public void testKinds() {
+		Unit unit = new BasicUnit();
+		BitLayer accessible = board.accessibleTo(unit);
+		assertEquals(14, accessible.count());
+		assertEquals(0, board.getMaterializations());
+		assertFalse(board.squareAt(2, 1).isAccessibleTo(unit));
+		assertTrue(board.squareAt(3, 1).isAccessibleTo(unit));
+	}
+
+	/**
+	 * Verifies only the most recent chunks are kept awake, besides a chunk
+	 * with a unit on it, which keeps its squares.
+	 */
+	@Test
+	public void testEviction() {
+		Unit unit = new BasicUnit();
+		Square start = board.squareAt(0, 0);
+		unit.occupy(start);
+		for (int x = 0; x < board.getWidth(); x++) {
+			for (int y = 0; y < board.getHeight(); y++) {
+				board.squareAt(x, y);
+			}
+		}
+		assertEquals(2, board.residentChunks());
+		assertEquals(6, board.getMaterializations());
+
+		assertSame(start, board.squareAt(0, 0));
+		assertSame(unit, board.squareAt(1, 1).getSquareAt(Direction.WEST)
+				.getSquareAt(Direction.NORTH).getOccupant(0));
+		assertEquals(6, board.getMaterializations());
+	}
+
+	/**
+	 * Verifies an evicted chunk nobody refers to is collected, and gets new
+	 * square objects when it is used again.
+	 */
+	@Test
+	public void testCollection() {
+		WeakReference<Square> reference =
+				new WeakReference<>(board.squareAt(0, 0));
+		board.squareAt(4, 2);
+		assertEquals(2, board.getMaterializations());
+
+		for (int i = 0; i < 50 && reference.get() != null; i++) {
+			System.gc();
+		}
+		assertNull(reference.get());
+		board.squareAt(0, 0);
+		assertEquals(3, board.getMaterializations());
+	}
+
+	/**
+	 * Verifies a board far too large for square objects only creates the
+	 * chunks that are used.
+	 */
+	@Test
+	public void testHugeBoard() {
+		ChunkedBoard huge = factory.createChunkedBoard(new boolean[2048][2048]);
+		Unit unit = new BasicUnit();
+		unit.occupy(huge.squareAt(0, 0));
+		unit.occupy(unit.getSquare().getSquareAt(Direction.NORTH));
+
+		assertEquals(2047, unit.getSquare().getY());
+		assertEquals(2, huge.getMaterializations());
+		assertTrue(huge.layerOf(BasicUnit.class).get(0, 2047));
+		assertTrue(huge.getStateHash() != 0L);
+	}
+
+	/**
+	 * Verifies a parsed level on a chunked board can be played and
+	 * navigated.
+	 */
+	@Test
+	public void testParsedLevel() {
+		Level level = BoardFixtures.parseLevel(factory, "#######",
+				"#P . G#", "#######");
+		assertTrue(level.getBoard() instanceof ChunkedBoard);
+		assertEquals(1, level.remainingPellets());
+
+		Board parsed = level.getBoard();
+		List<Direction> path = Navigation.shortestPath(parsed.squareAt(1, 1),
+				parsed.squareAt(5, 1), new BasicUnit());
+		assertEquals(4, path.size());
+	}
+
+	/**
+	 * Verifies pellets do not keep an evicted chunk of a level from being
+	 * collected, and are still counted and found while their chunk is gone.
+	 */
+	@Test
+	public void testCollectionWithPellets() {
+		int width = ChunkedBoard.DEFAULT_CHUNK_SIZE
+				* (ChunkedBoard.DEFAULT_RESIDENT_CHUNKS + 2);
+		String wall = Strings.repeat("#", width);
+		Level level = BoardFixtures.parseLevel(factory, wall,
+				"G" + Strings.repeat(".", width - 1), wall);
+		ChunkedBoard chunked = (ChunkedBoard) level.getBoard();
+		assertEquals(width - 1, level.remainingPellets());
+
+		WeakReference<Square> reference =
+				new WeakReference<>(chunked.squareAt(100, 1));
+		assertEquals(1, reference.get().occupantCount());
+		for (int x = 0; x < width; x += chunked.getChunkSize()) {
+			chunked.squareAt(x, 1);
+		}
+		for (int i = 0; i < 50 && reference.get() != null; i++) {
+			System.gc();
+		}
+		assertNull(reference.get());
+		assertTrue(chunked.materializedChunks() < chunked.chunkCount());
+
+		assertEquals(width - 1, level.remainingPellets());
+		assertEquals(width - 1, chunked.layerOf(Pellet.class).count());
+		assertEquals(1, chunked.occupantCount(width + 100));
+		assertTrue(Navigation.findUnit(Pellet.class,
+				chunked.squareAt(100, 1)) instanceof Pellet);
+	}
+}
@@ -0,0 +1,154 @@
+package nl.tudelft.jpacman.board;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import nl.tudelft.jpacman.level.Level;
+import nl.tudelft.jpacman.level.Pellet;
+import nl.tudelft.jpacman.npc.ghost.BoardFixtures;
+import nl.tudelft.jpacman.npc.ghost.DistanceOracle;
+import nl.tudelft.jpacman.npc.ghost.Ghost;
+import nl.tudelft.jpacman.npc.ghost.Navigation;
+import nl.tudelft.jpacman.npc.ghost.SearchStrategy;
+import nl.tudelft.jpacman.sprite.PacManSprites;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the squares of a {@link CompactBoard} and a level parsed onto one.
+ */
+@SuppressWarnings({"magicnumber", "PMD.TooManyStaticImports"})
+public class CompactBoardTest {
+
+	/**
+	 * The factory creating compact boards.
+	 */
+	private BoardFactory factory;
+
+	/**
+	 * A board of three columns and two rows with a wall in the middle of
+	 * the top row.
+	 */
+	private CompactBoard board;
+
+	/**
+	 * Creates the board under test.
+	 */
+	@Before
+	public void setUp() {
+		factory = new BoardFactory(new PacManSprites()).withCompactBoards(true);
+		board = factory.createCompactBoard(new boolean[][] {{false, false},
+				{true, false}, {false, false}});
+	}
+
+	/**
+	 * Verifies squares are linked around the edges and keep their identity
+	 * while in use.
+	 */
+	@Test
+	public void testLinks() {
+		Square corner = board.squareAt(0, 0);
+		assertSame(corner, board.squareAt(0));
+		assertSame(board.squareAt(2, 0), corner.getSquareAt(Direction.WEST));
+		assertSame(board.squareAt(0, 1), corner.getSquareAt(Direction.NORTH));
+		assertSame(corner, corner.getSquareAt(Direction.EAST)
+				.getSquareAt(Direction.WEST));
+		assertEquals(4, board.indexOf(board.squareAt(1, 1)));
+		assertEquals(5, board.neighbourOf(3, Direction.WEST));
+	}
+
+	/**
+	 * Verifies a square can be linked to another square of the board.
+	 */
+	@Test
+	public void testRelink() {
+		Square corner = board.squareAt(0, 0);
+		corner.link(board.squareAt(2, 1), Direction.EAST);
+		assertSame(board.squareAt(2, 1), corner.getSquareAt(Direction.EAST));
+	}
+
+	/**
+	 * Verifies a square cannot be linked to a square that is not on the
+	 * board.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testLinkElsewhere() {
+		board.squareAt(0, 0).link(factory.createGround(), Direction.EAST);
+	}
+
+	/**
+	 * Verifies squares behave like the kind they are.
+	 */
+	@Test
+	public void testKinds() {
+		Unit unit = new BasicUnit();
+		assertFalse(board.squareAt(1, 0).isAccessibleTo(unit));
+		assertTrue(board.squareAt(1, 1).isAccessibleTo(unit));
+		assertFalse(board.isAccessible(1, unit));
+	}
+
+	/**
+	 * Verifies occupants are counted as they come and go.
+	 */
+	@Test
+	public void testOccupancy() {
+		Unit unit = new BasicUnit();
+		unit.occupy(board.squareAt(0, 1));
+		assertEquals(1, board.occupantCount(3));
+		assertEquals(1, board.unitsOf(BasicUnit.class).size());
+
+		unit.occupy(board.squareAt(2, 1));
+		assertEquals(0, board.occupantCount(3));
+		assertEquals(1, board.occupantCount(5));
+		assertTrue(board.squareAt(2, 1).getOccupants().contains(unit));
+	}
+
+	/**
+	 * Verifies a parsed level on a compact board can be navigated, and only
+	 * has views of the squares with something on them.
+	 */
+	@Test
+	public void testParsedLevel() {
+		Level level = BoardFixtures.parseLevel(factory, "#######",
+				"#P . G#", "#######");
+		assertTrue(level.getBoard() instanceof CompactBoard);
+		CompactBoard compact = (CompactBoard) level.getBoard();
+		assertTrue(compact.viewCount() <= 3);
+		assertEquals(1, level.remainingPellets());
+
+		List<Direction> path = Navigation.shortestPath(compact.squareAt(1, 1),
+				compact.squareAt(5, 1), new BasicUnit());
+		assertEquals(4, path.size());
+	}
+
+	/**
+	 * Verifies searching a compact board by its indices does not create
+	 * views of the squares on the way.
+	 */
+	@Test
+	public void testSearchWithoutViews() {
+		Level level = BoardFixtures.parseLevel(factory,
+				"##############################",
+				"#G    #       #      #       #",
+				"# ### # ##### # #### # ##### #",
+				"#   #   #       #      #    .#",
+				"##############################");
+		CompactBoard compact = (CompactBoard) level.getBoard();
+		Unit ghost = compact.unitsOf(Ghost.class).iterator().next();
+		Square from = ghost.getSquare();
+		Square to = compact.squareAt(28, 3);
+		int views = compact.viewCount();
+		for (SearchStrategy strategy : SearchStrategy.values()) {
+			assertEquals(41, Navigation.shortestPath(from, to, ghost, strategy)
+					.size());
+		}
+		assertSame(to, Navigation.findNearest(Pellet.class, from).getSquare());
+		assertEquals(41, DistanceOracle.create(compact, ghost).distance(from, to));
+		assertEquals(views, compact.viewCount());
+	}
+}
@@ -1,10 +1,14 @@
 package nl.tudelft.jpacman.board;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
+import java.util.List;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -65,4 +69,62 @@ public class SquareTest {
 		Object[] occupantsAsArray = square.getOccupants().toArray();
 		assertArrayEquals(new Object[] { o1, o2 }, occupantsAsArray);
 	}
+
+	/**
+	 * Assert that the occupant view follows the square without copying.
+	 */
+	@Test
+	public void testOccupantView() {
+		Unit o1 = mock(Unit.class);
+		Unit o2 = mock(Unit.class);
+		List<Unit> view = square.getOccupantView();
+		square.put(o1);
+		square.put(o2);
+		square.remove(o1);
+
+		assertSame(view, square.getOccupantView());
+		assertArrayEquals(new Object[] { o2 }, view.toArray());
+	}
+
+	/**
+	 * Assert that the occupant view cannot be used to change the square.
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public void testOccupantViewReadOnly() {
+		square.getOccupantView().add(mock(Unit.class));
+	}
+
+	/**
+	 * Assert that occupants can be read by their position.
+	 */
+	@Test
+	public void testOccupantByIndex() {
+		Unit o1 = mock(Unit.class);
+		Unit o2 = mock(Unit.class);
+		square.put(o1);
+		square.put(o2);
+
+		assertEquals(2, square.occupantCount());
+		assertSame(o1, square.getOccupant(0));
+		assertSame(o2, square.getOccupant(1));
+	}
+
+	/**
+	 * Assert that the order of appearance is kept when more units occupy the
+	 * square than it stores inline, and when some of them leave.
+	 */
+	@Test
+	public void testManyOccupants() {
+		Unit[] units = new Unit[5];
+		for (int i = 0; i < units.length; i++) {
+			units[i] = mock(Unit.class);
+			square.put(units[i]);
+		}
+		square.remove(units[1]);
+		square.remove(units[3]);
+
+		assertArrayEquals(new Object[] { units[0], units[2], units[4] },
+				square.getOccupants().toArray());
+		assertFalse(square.remove(units[3]));
+	}
 }
@@ -0,0 +1,107 @@
+package nl.tudelft.jpacman.board;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that the state hash of a {@link Board} follows its units as they
+ * move, turn and leave.
+ */
+public class StateHashTest {
+
+	/**
+	 * The board under test.
+	 */
+	private Board board;
+
+	/**
+	 * A unit that was on the board before the board was created.
+	 */
+	private final Unit early = new BasicUnit();
+
+	/**
+	 * Creates a board of three squares, the first of which is occupied.
+	 */
+	@Before
+	public void setUp() {
+		board = createBoard(early);
+	}
+
+	private static Board createBoard(Unit occupant) {
+		Square s1 = new BasicSquare();
+		occupant.occupy(s1);
+		return new Board(new Square[][] {{s1}, {new BasicSquare()},
+				{new BasicSquare()}});
+	}
+
+	/**
+	 * Verifies the hash returns to its value when a unit moves back, and
+	 * boards in the same state have the same hash.
+	 */
+	@Test
+	public void testMoveAndReturn() {
+		long start = board.getStateHash();
+		assertEquals(start, createBoard(new BasicUnit()).getStateHash());
+
+		early.occupy(board.squareAt(1, 0));
+		long moved = board.getStateHash();
+		assertNotEquals(start, moved);
+
+		early.occupy(board.squareAt(0, 0));
+		assertEquals(start, board.getStateHash());
+	}
+
+	/**
+	 * Verifies turning a unit changes the hash.
+	 */
+	@Test
+	public void testTurn() {
+		long start = board.getStateHash();
+		early.setDirection(Direction.NORTH);
+		assertNotEquals(start, board.getStateHash());
+
+		early.setDirection(Direction.EAST);
+		assertEquals(start, board.getStateHash());
+	}
+
+	/**
+	 * Verifies the hash does not depend on the order in which units arrive,
+	 * and an empty board hashes to zero.
+	 */
+	@Test
+	public void testOrderAndLeave() {
+		Unit late = new BasicUnit();
+		late.occupy(board.squareAt(2, 0));
+		long both = board.getStateHash();
+
+		late.leaveSquare();
+		early.leaveSquare();
+		assertEquals(0L, board.getStateHash());
+
+		late.occupy(board.squareAt(0, 0));
+		early.occupy(board.squareAt(2, 0));
+		assertEquals(both, board.getStateHash());
+	}
+
+	/**
+	 * Verifies the keys of neighbouring squares differ and cancel out when
+	 * toggled twice.
+	 */
+	@Test
+	public void testKeys() {
+		StateHash hash = new StateHash();
+		Unit unit = new BasicUnit();
+		hash.toggle(unit, 0, Direction.NORTH);
+		long first = hash.get();
+		hash.toggle(unit, 0, Direction.NORTH);
+		assertEquals(0L, hash.get());
+
+		hash.toggle(unit, 1, Direction.NORTH);
+		assertNotEquals(0L, first);
+		assertNotEquals(first, hash.get());
+		assertNotEquals(first ^ 1L, hash.get());
+	}
+}
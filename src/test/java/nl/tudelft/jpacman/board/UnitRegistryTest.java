@@ -0,0 +1,62 @@
+package nl.tudelft.jpacman.board;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that a {@link Board} keeps track of the units on it as they
+ * occupy and leave its squares.
+ */
+public class UnitRegistryTest {
+
+	/**
+	 * The board under test.
+	 */
+	private Board board;
+
+	/**
+	 * A unit that was on the board before the board was created.
+	 */
+	private final Unit early = new BasicUnit();
+
+	/**
+	 * Creates a board of two squares, one of which is occupied.
+	 */
+	@Before
+	public void setUp() {
+		Square s1 = new BasicSquare();
+		Square s2 = new BasicSquare();
+		early.occupy(s1);
+		board = new Board(new Square[][] {{s1}, {s2}});
+	}
+
+	/**
+	 * Verifies units occupying squares before the board existed are found.
+	 */
+	@Test
+	public void testInitialOccupants() {
+		assertEquals(1, board.unitsOf(BasicUnit.class).size());
+		assertTrue(board.unitsOf(Unit.class).contains(early));
+	}
+
+	/**
+	 * Verifies units are found after moving onto the board and are no longer
+	 * found after leaving it.
+	 */
+	@Test
+	public void testEnterAndLeave() {
+		Unit late = new BasicUnit();
+		late.occupy(board.squareAt(1, 0));
+		assertEquals(2, board.unitsOf(BasicUnit.class).size());
+
+		late.occupy(board.squareAt(0, 0));
+		assertEquals(2, board.unitsOf(BasicUnit.class).size());
+
+		late.leaveSquare();
+		early.leaveSquare();
+		assertTrue(board.unitsOf(BasicUnit.class).isEmpty());
+	}
+}
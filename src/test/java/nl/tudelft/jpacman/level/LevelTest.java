@@ -1,5 +1,6 @@
 package nl.tudelft.jpacman.level;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
@@ -8,9 +9,12 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.spy;
 import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.BoardFactory;
 import nl.tudelft.jpacman.board.Square;
 import nl.tudelft.jpacman.level.Level.LevelObserver;
 import nl.tudelft.jpacman.npc.NPC;
+import nl.tudelft.jpacman.npc.ghost.GhostFactory;
+import nl.tudelft.jpacman.sprite.PacManSprites;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -218,4 +222,21 @@ public class LevelTest {
 	public void isAnyPlayerAlive() {
 		assertFalse(level.isAnyPlayerAlive());
 	}
+
+	/**
+	 * Validates that pellets sharing a square are counted one by one.
+	 */
+	@Test
+	public void remainingPelletsOnOneSquare() {
+		PacManSprites sprites = new PacManSprites();
+		BoardFactory boards = new BoardFactory(sprites);
+		LevelFactory levels = new LevelFactory(sprites, new GhostFactory(sprites));
+		Square square = boards.createGround();
+		Board real = boards.createBoard(new Square[][] {{square}});
+		levels.createPellet().occupy(square);
+		levels.createPellet().occupy(square);
+		Level pellets = new Level(real, Lists.<NPC>newArrayList(),
+				Lists.newArrayList(square), collisions);
+		assertEquals(2, pellets.remainingPellets());
+	}
 }
@@ -0,0 +1,256 @@
+package nl.tudelft.jpacman.level;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.BoardFactory;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.npc.NPC;
+import nl.tudelft.jpacman.sprite.PacManSprites;
+import nl.tudelft.jpacman.sprite.Sprite;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Tests the NPCs of a {@link Level} moving in ticks.
+ */
+@SuppressWarnings({"magicnumber", "PMD.TooManyStaticImports"})
+public class TickModeTest {
+
+	/**
+	 * A tick length long enough for the scheduler never to tick in a test.
+	 */
+	private static final long NEVER = TimeUnit.HOURS.toMillis(1);
+
+	/**
+	 * The pool the NPCs decide on.
+	 */
+	private final ForkJoinPool pool = new ForkJoinPool(2);
+
+	/**
+	 * The collisions of the level, recording the order of the moves.
+	 */
+	private final CollisionMap collisions = mock(CollisionMap.class);
+
+	/**
+	 * A row of four squares.
+	 */
+	private Board board;
+
+	/**
+	 * Sets up the row of squares.
+	 */
+	@Before
+	public void setUp() {
+		BoardFactory factory = new BoardFactory(new PacManSprites());
+		Square[][] grid = new Square[4][1];
+		for (int x = 0; x < grid.length; x++) {
+			grid[x][0] = factory.createGround();
+		}
+		board = factory.createBoard(grid);
+	}
+
+	/**
+	 * Shuts down the pool.
+	 */
+	@After
+	public void tearDown() {
+		pool.shutdownNow();
+	}
+
+	/**
+	 * Verifies the NPCs that are due decide on the pool and move in the
+	 * order they were given to the level, each bumping into a bystander.
+	 */
+	@Test
+	public void testDecideInParallelMoveInOrder() {
+		Walker east = new Walker(Direction.EAST, 0L);
+		Walker west = new Walker(Direction.WEST, 0L);
+		Walker first = new Walker(null, 0L);
+		Walker second = new Walker(null, 0L);
+		east.occupy(board.squareAt(0, 0));
+		first.occupy(board.squareAt(1, 0));
+		second.occupy(board.squareAt(2, 0));
+		west.occupy(board.squareAt(3, 0));
+		Level level = start(west, east);
+
+		level.tick(System.currentTimeMillis());
+		level.stop();
+
+		assertEquals(board.squareAt(1, 0), east.getSquare());
+		assertEquals(board.squareAt(2, 0), west.getSquare());
+		assertTrue(east.decider instanceof ForkJoinWorkerThread);
+		assertTrue(west.decider instanceof ForkJoinWorkerThread);
+		InOrder order = inOrder(collisions);
+		order.verify(collisions).collide(west, second);
+		order.verify(collisions).collide(east, first);
+	}
+
+	/**
+	 * Verifies other units can move while the NPCs decide.
+	 */
+	@Test
+	public void testMovesWhileDeciding() {
+		final Walker other = new Walker(null, NEVER);
+		final Walker waiting = new Walker(null, 0L);
+		other.occupy(board.squareAt(2, 0));
+		waiting.occupy(board.squareAt(0, 0));
+		final Level level = start(waiting, other);
+		final Thread mover = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				level.move(other, Direction.EAST);
+			}
+		});
+		waiting.meanwhile = new Runnable() {
+			@Override
+			public void run() {
+				mover.start();
+				try {
+					mover.join(TimeUnit.SECONDS.toMillis(5));
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+
+		level.tick(System.currentTimeMillis());
+		level.stop();
+
+		assertEquals(1, waiting.decisions);
+		assertFalse(mover.isAlive());
+		assertEquals(board.squareAt(3, 0), other.getSquare());
+	}
+
+	/**
+	 * Verifies NPCs whose interval has not passed yet sit the tick out.
+	 */
+	@Test
+	public void testWaitsForInterval() {
+		Walker slow = new Walker(Direction.EAST, NEVER);
+		slow.occupy(board.squareAt(0, 0));
+		Level level = start(slow);
+
+		level.tick(System.currentTimeMillis());
+		level.stop();
+
+		assertNull(slow.decider);
+		assertEquals(board.squareAt(0, 0), slow.getSquare());
+	}
+
+	/**
+	 * Verifies the NPCs keep moving after one of them failed to decide.
+	 *
+	 * @throws InterruptedException
+	 *             If the test is interrupted while waiting for ticks.
+	 */
+	@Test
+	public void testKeepsTickingAfterFailure() throws InterruptedException {
+		Walker broken = new Walker(Direction.NORTH, 0L);
+		Walker walker = new Walker(null, 0L);
+		broken.occupy(board.squareAt(0, 0));
+		walker.occupy(board.squareAt(1, 0));
+		broken.fail = true;
+		Level level = start(1L, broken, walker);
+
+		long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+		while (walker.decisions < 3 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(1L);
+		}
+		level.stop();
+
+		assertTrue(walker.decisions >= 3);
+		assertEquals(board.squareAt(0, 0), broken.getSquare());
+	}
+
+	private Level start(NPC... npcs) {
+		return start(NEVER, npcs);
+	}
+
+	private Level start(long tickLength, NPC... npcs) {
+		Level level = new Level(board, Lists.newArrayList(npcs),
+				Lists.<Square>newArrayList(), collisions);
+		level.setTickMode(pool, tickLength);
+		level.start();
+		return level;
+	}
+
+	/**
+	 * An NPC that always moves in the same direction.
+	 */
+	private static final class Walker extends NPC {
+
+		/**
+		 * The direction to move in.
+		 */
+		private final Direction heading;
+
+		/**
+		 * The time between two moves.
+		 */
+		private final long interval;
+
+		/**
+		 * The thread the last decision was made on.
+		 */
+		private volatile Thread decider;
+
+		/**
+		 * The number of decisions made.
+		 */
+		private volatile int decisions;
+
+		/**
+		 * Whether deciding throws an exception.
+		 */
+		private volatile boolean fail;
+
+		/**
+		 * What happens while deciding, if anything.
+		 */
+		private volatile Runnable meanwhile;
+
+		Walker(Direction direction, long delay) {
+			this.heading = direction;
+			this.interval = delay;
+		}
+
+		@Override
+		public long getInterval() {
+			return interval;
+		}
+
+		@Override
+		public Direction nextMove() {
+			decider = Thread.currentThread();
+			decisions++;
+			if (fail) {
+				throw new IllegalStateException("Cannot decide.");
+			}
+			if (meanwhile != null) {
+				meanwhile.run();
+			}
+			return heading;
+		}
+
+		@Override
+		public Sprite getSprite() {
+			return null;
+		}
+	}
+}
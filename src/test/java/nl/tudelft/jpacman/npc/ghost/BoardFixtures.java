@@ -0,0 +1,97 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import java.util.List;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.BoardFactory;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+import nl.tudelft.jpacman.level.Level;
+import nl.tudelft.jpacman.level.LevelFactory;
+import nl.tudelft.jpacman.level.MapParser;
+import nl.tudelft.jpacman.sprite.PacManSprites;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Helpers shared by the tests of the navigation structures and the boards
+ * they run on.
+ */
+public final class BoardFixtures {
+
+	private BoardFixtures() {
+	}
+
+	/**
+	 * Parses a level from a map.
+	 * 
+	 * @param boards
+	 *            The factory creating the board of the level.
+	 * @param rows
+	 *            The rows of the map.
+	 * @return The level.
+	 */
+	public static Level parseLevel(BoardFactory boards, List<String> rows) {
+		PacManSprites sprites = new PacManSprites();
+		MapParser parser = new MapParser(new LevelFactory(sprites,
+				new GhostFactory(sprites)), boards);
+		return parser.parseMap(rows);
+	}
+
+	/**
+	 * Parses a level from a map.
+	 * 
+	 * @param boards
+	 *            The factory creating the board of the level.
+	 * @param rows
+	 *            The rows of the map.
+	 * @return The level.
+	 */
+	public static Level parseLevel(BoardFactory boards, String... rows) {
+		return parseLevel(boards, Lists.newArrayList(rows));
+	}
+
+	/**
+	 * Parses the board of a map.
+	 * 
+	 * @param rows
+	 *            The rows of the map.
+	 * @return The board.
+	 */
+	public static Board parse(List<String> rows) {
+		return parseLevel(new BoardFactory(new PacManSprites()), rows)
+				.getBoard();
+	}
+
+	/**
+	 * Parses the board of a map.
+	 * 
+	 * @param rows
+	 *            The rows of the map.
+	 * @return The board.
+	 */
+	public static Board parse(String... rows) {
+		return parse(Lists.newArrayList(rows));
+	}
+
+	/**
+	 * Lists the squares of a board a unit is allowed to occupy.
+	 * 
+	 * @param board
+	 *            The board.
+	 * @param traveller
+	 *            The unit.
+	 * @return The squares accessible to the unit, column by column.
+	 */
+	static List<Square> accessibleSquares(Board board, Unit traveller) {
+		List<Square> squares = Lists.newArrayList();
+		for (int x = 0; x < board.getWidth(); x++) {
+			for (int y = 0; y < board.getHeight(); y++) {
+				if (board.squareAt(x, y).isAccessibleTo(traveller)) {
+					squares.add(board.squareAt(x, y));
+				}
+			}
+		}
+		return squares;
+	}
+}
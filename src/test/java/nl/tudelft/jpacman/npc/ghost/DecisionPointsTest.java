@@ -0,0 +1,132 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Unit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link DecisionPoints} of a T-shaped corridor and a ghost
+ * following it.
+ */
+@SuppressWarnings({"magicnumber", "PMD.TooManyStaticImports"})
+public class DecisionPointsTest {
+
+	/**
+	 * The unit being chased.
+	 */
+	private final Unit target = mock(Unit.class);
+
+	/**
+	 * The board under test.
+	 */
+	private Board board;
+
+	/**
+	 * The ghost following the corridors.
+	 */
+	private PlanningGhost ghost;
+
+	/**
+	 * The decision points under test.
+	 */
+	private DecisionPoints points;
+
+	/**
+	 * Sets up a corridor with a single junction and two dead ends, and a
+	 * ghost at the western end.
+	 */
+	@Before
+	public void setUp() {
+		board = BoardFixtures.parse("#######", "#     #",
+				"### ###", "### ###", "#######");
+		ghost = new PlanningGhost(target, null);
+		ghost.occupy(board.squareAt(1, 1));
+		points = DecisionPoints.create(board, ghost);
+		ghost.setDecisionPoints(points);
+	}
+
+	/**
+	 * Verifies only the junction is flagged, until the board changes.
+	 */
+	@Test
+	public void testFlagsJunction() {
+		assertEquals(1, points.count());
+		assertTrue(points.isDecisionPoint(board.squareAt(3, 1)));
+		assertFalse(points.isDecisionPoint(board.squareAt(1, 1)));
+		assertFalse(points.isDecisionPoint(board.squareAt(3, 2)));
+
+		board.topologyChanged();
+		assertTrue(points.isDecisionPoint(board.squareAt(1, 1)));
+	}
+
+	/**
+	 * Verifies the ghost follows the corridor, only deciding at the junction
+	 * and turning back at the dead end.
+	 */
+	@Test
+	public void testFollowsCorridor() {
+		ghost.setPlan(Direction.EAST);
+		assertEquals(Direction.EAST, ghost.walk());
+		assertEquals(Direction.EAST, ghost.walk());
+		assertEquals(1, ghost.getPlans());
+
+		ghost.setPlan(Direction.SOUTH);
+		assertEquals(Direction.SOUTH, ghost.walk());
+		assertEquals(Direction.SOUTH, ghost.walk());
+		assertEquals(Direction.NORTH, ghost.walk());
+		assertEquals(2, ghost.getPlans());
+	}
+
+	/**
+	 * Verifies the ghost decides anew when it chases another unit or did not
+	 * end up where it was heading, and on every move without the flags.
+	 */
+	@Test
+	public void testDecidesAgain() {
+		ghost.setPlan(Direction.EAST);
+		ghost.walk();
+		ghost.setChased(mock(Unit.class));
+		ghost.walk();
+		assertEquals(2, ghost.getPlans());
+
+		ghost.occupy(board.squareAt(5, 1));
+		ghost.nextMove();
+		assertEquals(3, ghost.getPlans());
+
+		ghost.setDecisionPoints(null);
+		ghost.nextMove();
+		ghost.nextMove();
+		assertEquals(5, ghost.getPlans());
+		assertNull(ghost.committedMove(target));
+	}
+
+	/**
+	 * Verifies the ghost keeps its heading while the unit it chases stays
+	 * close to where it was, and decides anew once that unit got away.
+	 */
+	@Test
+	public void testDecidesWhenTargetMoved() {
+		when(target.getSquare()).thenReturn(board.squareAt(5, 1));
+		ghost.setPlan(Direction.EAST);
+		ghost.walk();
+		when(target.getSquare()).thenReturn(board.squareAt(4, 1));
+		ghost.walk();
+		assertEquals(1, ghost.getPlans());
+
+		ghost.occupy(board.squareAt(1, 1));
+		ghost.walk();
+		when(target.getSquare()).thenReturn(board.squareAt(3, 3));
+		ghost.walk();
+		assertEquals(3, ghost.getPlans());
+	}
+}
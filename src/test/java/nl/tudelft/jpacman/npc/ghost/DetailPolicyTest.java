@@ -0,0 +1,103 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Unit;
+import nl.tudelft.jpacman.npc.ghost.DetailPolicy.Tier;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link DetailPolicy} of a ghost in a long corridor.
+ */
+@SuppressWarnings({"magicnumber", "PMD.TooManyStaticImports"})
+public class DetailPolicyTest {
+
+	/**
+	 * The unit being chased.
+	 */
+	private final Unit target = mock(Unit.class);
+
+	/**
+	 * The board under test.
+	 */
+	private Board board;
+
+	/**
+	 * The ghost under test, at the western end of the corridor.
+	 */
+	private PlanningGhost ghost;
+
+	/**
+	 * Sets up a corridor with a ghost at its western end.
+	 */
+	@Before
+	public void setUp() {
+		board = BoardFixtures.parse("#####################",
+				"#                   #", "#####################");
+		ghost = new PlanningGhost(target, Direction.EAST);
+		ghost.occupy(board.squareAt(1, 1));
+	}
+
+	/**
+	 * Verifies decisions fall in the tier of their distance and are counted.
+	 */
+	@Test
+	public void testTiers() {
+		DetailPolicy policy = DetailPolicy.of(2, 4, 3);
+		assertEquals(Tier.NEAR,
+				policy.decide(board.squareAt(1, 1), board.squareAt(3, 1)));
+		assertEquals(Tier.MID,
+				policy.decide(board.squareAt(1, 1), board.squareAt(5, 1)));
+		assertEquals(Tier.FAR,
+				policy.decide(board.squareAt(1, 1), board.squareAt(6, 1)));
+		assertEquals(Tier.NEAR, policy.decide(board.squareAt(1, 1), null));
+		assertEquals(2L, policy.getDecisions(Tier.NEAR));
+		assertEquals(1L, policy.getDecisions(Tier.MID));
+		assertEquals(1L, policy.getDecisions(Tier.FAR));
+
+		policy.resetStatistics();
+		assertEquals(0L, policy.getDecisions(Tier.NEAR));
+	}
+
+	/**
+	 * Verifies a ghost at mid range only plans every few moves, and keeps
+	 * going in the planned direction in between.
+	 */
+	@Test
+	public void testMidRangeReplans() {
+		ghost.setDetailPolicy(DetailPolicy.of(1, 10, 3));
+		when(target.getSquare()).thenReturn(board.squareAt(9, 1));
+		for (int i = 0; i < 4; i++) {
+			assertEquals(Direction.EAST, ghost.walk());
+		}
+		assertEquals(2, ghost.getPlans());
+	}
+
+	/**
+	 * Verifies a ghost far away wanders without planning, and plans on every
+	 * move once near.
+	 */
+	@Test
+	public void testFarWanders() {
+		DetailPolicy policy = DetailPolicy.of(1, 2, 3);
+		ghost.setDetailPolicy(policy);
+		when(target.getSquare()).thenReturn(board.squareAt(9, 1));
+		for (int i = 0; i < 3; i++) {
+			assertNotNull(ghost.walk());
+		}
+		assertEquals(0, ghost.getPlans());
+		assertEquals(3L, policy.getDecisions(Tier.FAR));
+
+		when(target.getSquare()).thenReturn(ghost.getSquare());
+		ghost.walk();
+		ghost.walk();
+		assertEquals(2, ghost.getPlans());
+	}
+}
@@ -0,0 +1,99 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the answers of the {@link DistanceOracle} against {@link Navigation}.
+ */
+@SuppressWarnings({"magicnumber", "PMD.TooManyStaticImports"})
+public class DistanceOracleTest {
+
+	/**
+	 * The traveller the distances are computed for.
+	 */
+	private final Unit traveller = mock(Unit.class);
+
+	/**
+	 * The board under test.
+	 */
+	private Board board;
+
+	/**
+	 * The oracle under test.
+	 */
+	private DistanceOracle oracle;
+
+	/**
+	 * Parses a small maze with dead ends and an enclosed square.
+	 */
+	@Before
+	public void setUp() {
+		board = BoardFixtures.parse(
+				"#######",
+				"#     #",
+				"# ### #",
+				"# # # #",
+				"# #####",
+				"#######");
+		oracle = DistanceOracle.create(board, traveller);
+	}
+
+	/**
+	 * Verifies the distance between every pair of squares equals the length
+	 * of the path found by a breadth first search.
+	 */
+	@Test
+	public void testDistancesMatchSearch() {
+		for (Square from : BoardFixtures.accessibleSquares(board, traveller)) {
+			for (Square to : BoardFixtures.accessibleSquares(board, traveller)) {
+				List<Direction> path = Navigation.shortestPath(from, to,
+						traveller);
+				int expected = -1;
+				if (path != null) {
+					expected = path.size();
+				}
+				assertEquals(expected, oracle.distance(from, to));
+			}
+		}
+	}
+
+	/**
+	 * Verifies the first step brings the traveller one step closer whenever
+	 * it can get there.
+	 */
+	@Test
+	public void testFirstStepGetsCloser() {
+		Square to = board.squareAt(5, 3);
+		for (Square from : BoardFixtures.accessibleSquares(board, traveller)) {
+			Direction step = oracle.firstStep(from, to);
+			if (oracle.distance(from, to) > 0) {
+				assertEquals(oracle.distance(from, to) - 1,
+						oracle.distance(from.getSquareAt(step), to));
+			}
+		}
+	}
+
+	/**
+	 * Verifies walls and enclosed squares cannot be reached.
+	 */
+	@Test
+	public void testUnreachable() {
+		Square from = board.squareAt(1, 1);
+		assertEquals(-1, oracle.distance(from, board.squareAt(3, 3)));
+		assertNull(oracle.firstStep(from, board.squareAt(0, 0)));
+		assertFalse(oracle.covers(board.squareAt(0, 0)));
+	}
+}
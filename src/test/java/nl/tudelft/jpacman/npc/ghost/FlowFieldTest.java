@@ -0,0 +1,168 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link FlowField} as a unit moves around a corridor.
+ */
+@SuppressWarnings({"magicnumber", "PMD.TooManyStaticImports"})
+public class FlowFieldTest {
+
+	/**
+	 * The unit being chased.
+	 */
+	private final Unit target = mock(Unit.class);
+
+	/**
+	 * The units consulting the field.
+	 */
+	private final Unit traveller = mock(Unit.class);
+
+	/**
+	 * The board under test.
+	 */
+	private Board board;
+
+	/**
+	 * The flow field under test.
+	 */
+	private FlowField field;
+
+	/**
+	 * Sets up a corridor with a flow field that tracks nobody yet.
+	 */
+	@Before
+	public void setUp() {
+		board = BoardFixtures.parse("#######", "#     #",
+				"#######");
+		field = FlowField.create(board, traveller);
+	}
+
+	/**
+	 * Verifies an untracked unit cannot be chased.
+	 */
+	@Test
+	public void testUntracked() {
+		assertFalse(field.covers(board.squareAt(1, 1), target));
+		assertNull(field.stepTowards(board.squareAt(1, 1), target));
+	}
+
+	/**
+	 * Verifies the distances follow the unit after an update.
+	 */
+	@Test
+	public void testFollowsTarget() {
+		when(target.getSquare()).thenReturn(board.squareAt(5, 1));
+		field.update(target);
+		assertEquals(4, field.distance(board.squareAt(1, 1), target));
+		assertEquals(Direction.EAST,
+				field.stepTowards(board.squareAt(3, 1), target));
+
+		when(target.getSquare()).thenReturn(board.squareAt(1, 1));
+		field.update(target);
+		assertEquals(0, field.distance(board.squareAt(1, 1), target));
+		assertEquals(Direction.WEST,
+				field.stepTowards(board.squareAt(3, 1), target));
+	}
+
+	/**
+	 * Verifies the distances repaired after every step equal those computed
+	 * from scratch, as the unit walks into a dead end, back out and around
+	 * both edges of a board with an odd width and height.
+	 */
+	@Test
+	public void testRepairsMatchRebuild() {
+		board = BoardFixtures.parse("               ",
+				" ##############", "             ##", " ##############",
+				"           ####", " ##############", "         ######",
+				" ##############", " ##############");
+		field = FlowField.create(board, traveller);
+		int[][] walk = {{0, 2}, {12, 2}, {0, 2}, {0, -2}, {-16, 0}, {0, -10}};
+		int x = 0;
+		int y = 0;
+		for (int[] leg : walk) {
+			Direction direction = direction(leg);
+			for (int i = Math.abs(leg[0] + leg[1]); i > 0; i--) {
+				x = Math.floorMod(x + direction.getDeltaX(), board.getWidth());
+				y = Math.floorMod(y + direction.getDeltaY(), board.getHeight());
+				when(target.getSquare()).thenReturn(board.squareAt(x, y));
+				field.update(target);
+				assertMatchesRebuild();
+			}
+		}
+		assertTrue(field.repairs() > 0);
+		assertTrue(field.rebuilds() > 0);
+	}
+
+	/**
+	 * Verifies a read that one update passes keeps the map it read, which
+	 * that update does not touch, and a read that two updates pass, the
+	 * second rewriting the map that was read, is read again.
+	 */
+	@Test
+	public void testUpdatesDuringRead() {
+		when(target.getSquare()).thenReturn(board.squareAt(5, 1));
+		field.update(target);
+		Square from = board.squareAt(1, 1);
+		assertEquals(4, field.read(from, target, false, moves(1)));
+		assertEquals(1, field.read(from, target, false, moves(3, 2)));
+		assertEquals(Direction.WEST.ordinal(),
+				field.read(board.squareAt(4, 1), target, true, moves(5, 1)));
+	}
+
+	/**
+	 * @return An action that moves the target along the corridor and updates
+	 *         the field after every move.
+	 */
+	private Runnable moves(final int... columns) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				for (int x : columns) {
+					when(target.getSquare()).thenReturn(board.squareAt(x, 1));
+					field.update(target);
+				}
+			}
+		};
+	}
+
+	private static Direction direction(int[] leg) {
+		if (leg[0] > 0) {
+			return Direction.EAST;
+		}
+		if (leg[0] < 0) {
+			return Direction.WEST;
+		}
+		if (leg[1] > 0) {
+			return Direction.SOUTH;
+		}
+		return Direction.NORTH;
+	}
+
+	private void assertMatchesRebuild() {
+		FlowField fresh = FlowField.create(board, traveller);
+		fresh.update(target);
+		for (int x = 0; x < board.getWidth(); x++) {
+			for (int y = 0; y < board.getHeight(); y++) {
+				Square square = board.squareAt(x, y);
+				assertEquals(fresh.distance(square, target),
+						field.distance(square, target));
+				assertEquals(fresh.stepTowards(square, target),
+						field.stepTowards(square, target));
+			}
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+
+import org.junit.Test;
+
+/**
+ * Tests the answers of the {@link JunctionGraph} against {@link Navigation}.
+ */
+@SuppressWarnings({"magicnumber", "PMD.TooManyStaticImports"})
+public class JunctionGraphTest {
+
+	/**
+	 * The traveller the graph is built for.
+	 */
+	private final Unit traveller = mock(Unit.class);
+
+	/**
+	 * Verifies distances and first steps on a maze with corridors, dead ends,
+	 * a tunnel that wraps around and an enclosed square.
+	 */
+	@Test
+	public void testMaze() {
+		Board board = BoardFixtures.parse(
+				"#########",
+				"#   #   #",
+				"# # # # #",
+				"#       #",
+				"### #####",
+				"    #    ",
+				"### #####",
+				"# #     #",
+				"#########");
+		JunctionGraph graph = JunctionGraph.create(board, traveller);
+		List<Square> squares = BoardFixtures.accessibleSquares(board, traveller);
+		assertTrue(graph.junctionCount() < squares.size());
+		assertMatchesSearch(graph, squares);
+		assertEquals(-1, graph.distance(board.squareAt(1, 1),
+				board.squareAt(1, 7)));
+		assertNull(graph.firstStep(board.squareAt(1, 1), board.squareAt(0, 0)));
+		assertFalse(graph.covers(board.squareAt(0, 0)));
+	}
+
+	/**
+	 * Verifies a loop without any junctions can be navigated in both
+	 * directions.
+	 */
+	@Test
+	public void testLoopWithoutJunctions() {
+		Board board = BoardFixtures.parse(
+				"#####",
+				"#   #",
+				"# # #",
+				"#   #",
+				"#####");
+		JunctionGraph graph = JunctionGraph.create(board, traveller);
+		assertEquals(1, graph.junctionCount());
+		assertMatchesSearch(graph, BoardFixtures.accessibleSquares(board, traveller));
+	}
+
+	/**
+	 * Verifies the distance between every pair of squares equals the length
+	 * of the path found by a breadth first search, and that every first step
+	 * brings the traveller one step closer.
+	 */
+	private void assertMatchesSearch(JunctionGraph graph, List<Square> squares) {
+		for (Square from : squares) {
+			for (Square to : squares) {
+				List<Direction> path = Navigation.shortestPath(from, to,
+						traveller);
+				int expected = -1;
+				if (path != null) {
+					expected = path.size();
+				}
+				assertEquals(expected, graph.distance(from, to));
+				if (expected > 0) {
+					Direction step = graph.firstStep(from, to);
+					assertEquals(expected - 1,
+							graph.distance(from.getSquareAt(step), to));
+				}
+				int[] length = new int[1];
+				assertEquals(graph.firstStep(from, to),
+						graph.firstStep(from, to, length));
+				assertEquals(expected, length[0]);
+			}
+		}
+	}
+}
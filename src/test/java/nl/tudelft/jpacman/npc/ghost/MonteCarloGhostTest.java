@@ -0,0 +1,115 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import nl.tudelft.jpacman.board.BoardFactory;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.level.Level;
+import nl.tudelft.jpacman.level.LevelFactory;
+import nl.tudelft.jpacman.level.MapParser;
+import nl.tudelft.jpacman.level.PlayerFactory;
+import nl.tudelft.jpacman.sprite.PacManSprites;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Tests a {@link MonteCarloGhost} hunting a player down a corridor.
+ */
+@SuppressWarnings({"magicnumber", "PMD.TooManyStaticImports"})
+public class MonteCarloGhostTest {
+
+	/**
+	 * The pool the ghost searches on.
+	 */
+	private final ForkJoinPool pool = new ForkJoinPool(2);
+
+	/**
+	 * The ghost under test.
+	 */
+	private MonteCarloGhost ghost;
+
+	/**
+	 * Sets up a corridor with a player at its western end and the ghost near
+	 * its eastern end.
+	 */
+	@Before
+	public void setUp() {
+		PacManSprites sprites = new PacManSprites();
+		LevelFactory factory = new LevelFactory(sprites, new GhostFactory(
+				sprites)).withMonteCarloGhosts(true);
+		Level level = new MapParser(factory, new BoardFactory(sprites))
+				.parseMap(Lists.newArrayList("##########", "#P     G #",
+						"##########"));
+		level.registerPlayer(new PlayerFactory(sprites).createPacMan());
+		ghost = (MonteCarloGhost) level.getBoard()
+				.unitsOf(MonteCarloGhost.class).iterator().next();
+		ghost.setWorkerPool(pool, 2);
+		ghost.setThinkingTime(5L, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Shuts the pool down.
+	 */
+	@After
+	public void tearDown() {
+		pool.shutdownNow();
+	}
+
+	/**
+	 * Verifies the ghost heads for the player rather than into the dead end,
+	 * taking the move its search found once it got where it searched from.
+	 */
+	@Test
+	public void testHunts() {
+		assertEquals(Direction.WEST, walk());
+		assertEquals(0L, ghost.getIterations());
+		assertEquals(Direction.WEST, walk());
+		assertTrue(ghost.getIterations() > 0);
+	}
+
+	/**
+	 * Verifies the ghost still finds its way with the smallest table, in
+	 * which every state evicts the one before.
+	 */
+	@Test
+	public void testSmallTable() {
+		ghost.setTableSize(1);
+		ghost.setHorizon(8);
+		walk();
+		assertEquals(Direction.WEST, walk());
+		assertTrue(ghost.getIterations() > 0);
+	}
+
+	/**
+	 * Verifies the ghost decides without waiting for its search to think.
+	 */
+	@Test
+	public void testDecidesWhileThinking() {
+		ghost.setThinkingTime(1L, TimeUnit.SECONDS);
+		long start = System.nanoTime();
+		assertEquals(Direction.WEST, ghost.nextMove());
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1L));
+		ghost.awaitSearch();
+	}
+
+	/**
+	 * Lets the ghost decide once its last search finished, and makes the
+	 * move.
+	 *
+	 * @return The move made.
+	 */
+	private Direction walk() {
+		ghost.awaitSearch();
+		Direction move = ghost.nextMove();
+		ghost.occupy(ghost.getSquare().getSquareAt(move));
+		return move;
+	}
+}
@@ -4,11 +4,14 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.ref.WeakReference;
 import java.util.List;
+import java.util.Set;
 
 import nl.tudelft.jpacman.board.Board;
 import nl.tudelft.jpacman.board.BoardFactory;
@@ -24,6 +27,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 /**
  * Tests the various methods provided by the {@link Navigation} class.
@@ -122,6 +126,283 @@ public class NavigationTest {
 				path.toArray(new Direction[] {}));
 	}
 
+	/**
+	 * Verifies that paths regardless of terrain lead to the destination the
+	 * shortest way around the board, between every pair of squares.
+	 */
+	@Test
+	public void testNoTravellerWraps() {
+		Board b = parser.parseMap(Lists.newArrayList("## ###", "#    #",
+				"# ## #", "   # #", "## ###")).getBoard();
+		int size = b.getWidth() * b.getHeight();
+		for (int i = 0; i < size * size; i++) {
+			Square from = b.squareAt(i / size % b.getWidth(),
+					i / size / b.getWidth());
+			Square to = b.squareAt(i % size % b.getWidth(),
+					i % size / b.getWidth());
+			List<Direction> path = Navigation.shortestPath(from, to, null);
+			assertEquals(Navigation.estimate(from, to), path.size());
+			assertEquals(to, walk(from, path, null));
+		}
+		assertArrayEquals(new Direction[] {Direction.NORTH, Direction.WEST},
+				Navigation.shortestPath(b.squareAt(0, 0), b.squareAt(5, 4), null)
+						.toArray(new Direction[] {}));
+	}
+
+	/**
+	 * Verifies that paths regardless of terrain are the ones the original
+	 * breadth first search found, on boards of odd and even sizes, and so
+	 * lead Inky to the same target.
+	 */
+	@Test
+	public void testNoTravellerMatchesOriginalSearch() {
+		List<List<String>> maps = Lists.newArrayList(
+				Lists.newArrayList("    ", "    ", "    ", "    "),
+				Lists.newArrayList("     ", "     ", "     "),
+				Lists.newArrayList("      ", "      ", "      ", "      "));
+		for (List<String> map : maps) {
+			Board b = parser.parseMap(map).getBoard();
+			for (int i = 0; i < b.getWidth() * b.getHeight(); i++) {
+				for (int j = 0; j < b.getWidth() * b.getHeight(); j++) {
+					Square from = b.squareAt(i % b.getWidth(), i / b.getWidth());
+					Square to = b.squareAt(j % b.getWidth(), j / b.getWidth());
+					List<Direction> expected = originalPath(from, to);
+					List<Direction> path = Navigation.straightPath(from, to);
+					assertEquals(expected, path);
+					if (!path.isEmpty()) {
+						Direction last = path.get(path.size() - 1);
+						assertEquals(to.getSquareAt(
+								expected.get(expected.size() - 1)),
+								to.getSquareAt(last));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * The breadth first search regardless of terrain that
+	 * {@link Navigation#shortestPath(Square, Square, Unit)} originally ran.
+	 */
+	private static List<Direction> originalPath(Square from, Square to) {
+		List<List<Direction>> paths = Lists.newArrayList();
+		List<Square> targets = Lists.newArrayList(from);
+		paths.add(Lists.<Direction>newArrayList());
+		Set<Square> visited = Sets.newHashSet();
+		while (!targets.isEmpty()) {
+			Square s = targets.remove(0);
+			List<Direction> path = paths.remove(0);
+			if (s.equals(to)) {
+				return path;
+			}
+			visited.add(s);
+			for (Direction d : Direction.values()) {
+				Square target = s.getSquareAt(d);
+				if (!visited.contains(target)) {
+					List<Direction> longer = Lists.newArrayList(path);
+					longer.add(d);
+					targets.add(target);
+					paths.add(longer);
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Verifies that the search wraps around the edges of the board and that
+	 * searches reusing the same search context do not see each other's
+	 * visited squares.
+	 */
+	@Test
+	public void testRepeatedWrappingPath() {
+		Board b = parser.parseMap(Lists.newArrayList("#####", "   # ", "#####"))
+				.getBoard();
+		Square s1 = b.squareAt(2, 1);
+		Square s2 = b.squareAt(4, 1);
+		Unit traveller = mock(Unit.class);
+		Direction[] expected = { Direction.WEST, Direction.WEST, Direction.WEST };
+		assertArrayEquals(expected, Navigation.shortestPath(s1, s2, traveller)
+				.toArray(new Direction[] {}));
+		assertArrayEquals(expected, Navigation.shortestPath(s1, s2, traveller)
+				.toArray(new Direction[] {}));
+	}
+
+	/**
+	 * Verifies that A* finds paths as short as breadth first search between
+	 * every pair of squares, including paths that wrap around the board.
+	 */
+	@Test
+	public void testAStarMatchesBreadthFirst() {
+		Board b = parser.parseMap(Lists.newArrayList("## ###", "#    #",
+				"# ## #", "   # #", "## ###")).getBoard();
+		Unit traveller = mock(Unit.class);
+		for (int i = 0; i < b.getWidth() * b.getHeight(); i++) {
+			Square from = b.squareAt(i % b.getWidth(), i / b.getWidth());
+			for (int j = 0; j < b.getWidth() * b.getHeight(); j++) {
+				Square to = b.squareAt(j % b.getWidth(), j / b.getWidth());
+				List<Direction> bfs = Navigation.shortestPath(from, to,
+						traveller, SearchStrategy.BREADTH_FIRST);
+				List<Direction> aStar = Navigation.shortestPath(from, to,
+						traveller, SearchStrategy.A_STAR);
+				if (bfs == null) {
+					assertNull(aStar);
+				} else {
+					assertEquals(bfs.size(), aStar.size());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Verifies that searching from both ends finds valid paths as short as
+	 * searching from the start only, between every pair of squares including
+	 * walls, with and without a traveller.
+	 */
+	@Test
+	public void testBidirectionalMatchesBreadthFirst() {
+		Board b = parser.parseMap(Lists.newArrayList("## ###", "#    #",
+				"# ## #", "   # #", "## ###")).getBoard();
+		Unit traveller = mock(Unit.class);
+		Navigation.setPathCacheCapacity(0);
+		int size = b.getWidth() * b.getHeight();
+		for (int i = 0; i < size * size; i++) {
+			Square from = b.squareAt(i / size % b.getWidth(),
+					i / size / b.getWidth());
+			Square to = b.squareAt(i % size % b.getWidth(),
+					i % size / b.getWidth());
+			for (Unit unit : Lists.newArrayList(traveller, null)) {
+				Navigation.setBidirectionalThreshold(Integer.MAX_VALUE);
+				List<Direction> bfs = Navigation.shortestPath(from, to, unit);
+				Navigation.setBidirectionalThreshold(0);
+				List<Direction> both = Navigation.shortestPath(from, to, unit);
+				Navigation.setBidirectionalThreshold(
+						Navigation.DEFAULT_BIDIRECTIONAL_THRESHOLD);
+				if (bfs == null) {
+					assertNull(both);
+				} else {
+					assertEquals(bfs.size(), both.size());
+					assertEquals(to, walk(from, both, unit));
+				}
+			}
+		}
+		Navigation.setPathCacheCapacity(Navigation.DEFAULT_PATH_CACHE_CAPACITY);
+	}
+
+	/**
+	 * Verifies that repeated queries are answered from the path cache until
+	 * the topology of the board changes.
+	 */
+	@Test
+	public void testPathCache() {
+		Board b = parser.parseMap(Lists.newArrayList("#####", "#   #",
+				"#####")).getBoard();
+		Unit traveller = mock(Unit.class);
+		Square s1 = b.squareAt(1, 1);
+		Square s2 = b.squareAt(3, 1);
+		Navigation.clearPathCache();
+		Navigation.resetPathCacheStatistics();
+
+		List<Direction> first = Navigation.shortestPath(s1, s2, traveller);
+		first.clear();
+		assertEquals(2, Navigation.shortestPath(s1, s2, traveller).size());
+		assertEquals(1, Navigation.getPathCacheHits());
+		assertEquals(1, Navigation.getPathCacheMisses());
+
+		b.topologyChanged();
+		assertEquals(2, Navigation.shortestPath(s1, s2, traveller).size());
+		assertEquals(1, Navigation.getPathCacheHits());
+		assertEquals(2, Navigation.getPathCacheMisses());
+	}
+
+	/**
+	 * Verifies that the path cache does not keep boards alive.
+	 */
+	@Test
+	public void testPathCacheLetsGoOfBoards() {
+		Unit traveller = mock(Unit.class);
+		Board b = parser.parseMap(Lists.newArrayList("#   #")).getBoard();
+		Navigation.shortestPath(b.squareAt(1, 0), b.squareAt(3, 0), traveller);
+		WeakReference<Board> reference = new WeakReference<>(b);
+		b = null;
+		Board other = parser.parseMap(Lists.newArrayList("#  #")).getBoard();
+		Navigation.shortestPath(other.squareAt(1, 0), other.squareAt(2, 0),
+				traveller);
+
+		for (int i = 0; i < 50 && reference.get() != null; i++) {
+			System.gc();
+		}
+		assertNull(reference.get());
+	}
+
+	/**
+	 * Verifies that the search context of a thread holds on to squares that
+	 * are not on a board until it searches on a board, and never holds on to
+	 * the board it searched last.
+	 */
+	@Test
+	public void testSearchContextLetsGoOfSquares() {
+		Unit traveller = mock(Unit.class);
+		BoardFactory factory = new BoardFactory(new PacManSprites());
+		Square from = factory.createGround();
+		Square to = factory.createGround();
+		from.link(to, Direction.EAST);
+		Navigation.shortestPath(from, to, traveller);
+		assertEquals(2, SearchContext.current().heldSquares());
+
+		Board b = parser.parseMap(Lists.newArrayList("##########",
+				"#        #", "##########")).getBoard();
+		Navigation.shortestPath(b.squareAt(1, 1), b.squareAt(8, 1), traveller);
+		assertEquals(0, SearchContext.current().heldSquares());
+
+		WeakReference<Board> reference = new WeakReference<>(b);
+		b = null;
+		for (int i = 0; i < 50 && reference.get() != null; i++) {
+			System.gc();
+		}
+		assertNull(reference.get());
+	}
+
+	/**
+	 * Verifies searches on a board too large to index by position directly
+	 * find the shortest path around its edges.
+	 */
+	@Test
+	public void testSearchOnLargeBoard() {
+		Board large = new BoardFactory(new PacManSprites())
+				.createChunkedBoard(new boolean[300][300]);
+		assertTrue(large.getWidth() * large.getHeight()
+				> SearchContext.DIRECT_LIMIT);
+		List<Direction> path = Navigation.shortestPath(large.squareAt(1, 1),
+				large.squareAt(297, 4), mock(Unit.class));
+		assertEquals(7, path.size());
+		assertEquals(0, SearchContext.current().heldSquares());
+	}
+
+	/**
+	 * Walks a path, checking every square on the way is accessible.
+	 */
+	private static Square walk(Square from, List<Direction> path, Unit unit) {
+		Square square = from;
+		for (Direction d : path) {
+			square = square.getSquareAt(d);
+			assertTrue(unit == null || square.isAccessibleTo(unit));
+		}
+		return square;
+	}
+
+	/**
+	 * Verifies that the A* estimate takes the shorter way around the board.
+	 */
+	@Test
+	public void testEstimateWraps() {
+		Board b = parser.parseMap(Lists.newArrayList("      ", "      ",
+				"      ")).getBoard();
+		assertEquals(1, Navigation.estimate(b.squareAt(0, 0), b.squareAt(5, 0)));
+		assertEquals(2, Navigation.estimate(b.squareAt(0, 0), b.squareAt(5, 1)));
+		assertEquals(3, Navigation.estimate(b.squareAt(0, 0), b.squareAt(3, 0)));
+	}
+
 	/**
 	 * Verifies that the nearest object is detected.
 	 */
@@ -136,6 +417,77 @@ public class NavigationTest {
 		assertEquals(s2, result);
 	}
 
+	/**
+	 * Verifies that of the units at the same distance, the one on the
+	 * topmost row and then the leftmost column is found.
+	 */
+	@Test
+	public void testNearestUnitTies() {
+		Board b = parser.parseMap(Lists.newArrayList("#. .#", "#   #",
+				"#. .#")).getBoard();
+		Square s1 = b.squareAt(2, 0);
+		assertEquals(b.squareAt(1, 0),
+				Navigation.findNearest(Pellet.class, s1).getSquare());
+		Square s2 = b.squareAt(3, 1);
+		assertEquals(b.squareAt(3, 0),
+				Navigation.findNearest(Pellet.class, s2).getSquare());
+	}
+
+	/**
+	 * Verifies that the nearest object is found when there are too many to
+	 * compare them all.
+	 */
+	@Test
+	public void testNearestUnitAmongMany() {
+		String pellets = "....................";
+		Board b = parser.parseMap(Lists.newArrayList(pellets,
+				"#    ###            ", pellets)).getBoard();
+		Square s1 = b.squareAt(2, 1);
+		assertEquals(1, Navigation.estimate(s1,
+				Navigation.findNearest(Pellet.class, s1).getSquare()));
+		Square s2 = b.squareAt(10, 1);
+		assertEquals(1, Navigation.estimate(s2,
+				Navigation.findNearest(Pellet.class, s2).getSquare()));
+	}
+
+	/**
+	 * Verifies that the nearest unit of each of several types is found in
+	 * one go, with <code>null</code> for types without units.
+	 */
+	@Test
+	public void testNearestOfEachType() {
+		String pellets = "....................";
+		Board b = parser.parseMap(Lists.newArrayList(pellets,
+				"#    ###            ", pellets)).getBoard();
+		Square s1 = b.squareAt(2, 1);
+		List<Class<? extends Unit>> types = Lists.newArrayList();
+		types.add(Ghost.class);
+		types.add(Pellet.class);
+		types.add(Unit.class);
+		List<Unit> nearest = Navigation.findNearest(types, s1);
+		assertNull(nearest.get(0));
+		assertEquals(1, Navigation.estimate(s1, nearest.get(1).getSquare()));
+		assertEquals(1, Navigation.estimate(s1, nearest.get(2).getSquare()));
+	}
+
+	/**
+	 * Verifies that the path to the nearest of several destinations is found.
+	 */
+	@Test
+	public void testShortestPathToAny() {
+		Board b = parser.parseMap(Lists.newArrayList("#######", "#     #",
+				"#######")).getBoard();
+		Set<Square> goals = Sets.newHashSet(b.squareAt(1, 1), b.squareAt(4, 1));
+		Unit traveller = mock(Unit.class);
+		assertArrayEquals(new Direction[] {Direction.EAST},
+				Navigation.shortestPathToAny(b.squareAt(3, 1), goals, traveller)
+						.toArray(new Direction[] {}));
+		assertEquals(0, Navigation.shortestPathToAny(b.squareAt(4, 1), goals,
+				traveller).size());
+		assertNull(Navigation.shortestPathToAny(b.squareAt(3, 1),
+				Sets.newHashSet(b.squareAt(0, 0)), traveller));
+	}
+
 	/**
 	 * Verifies that there is no such location if there is no nearest object.
 	 */
@@ -0,0 +1,127 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumMap;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.npc.ghost.PatrolRoute.Corner;
+import nl.tudelft.jpacman.sprite.Sprite;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link PatrolRoute}s of a board with a loop in the top-left
+ * corner and a dead end in the bottom-right corner, and a ghost scattering to
+ * them on a {@link ScatterSchedule}.
+ */
+@SuppressWarnings({"magicnumber", "PMD.TooManyStaticImports"})
+public class PatrolRouteTest {
+
+	/**
+	 * The board under test.
+	 */
+	private Board board;
+
+	/**
+	 * The ghost patrolling the board.
+	 */
+	private Patroller ghost;
+
+	/**
+	 * Sets up the board with a ghost in the top-left loop.
+	 */
+	@Before
+	public void setUp() {
+		board = BoardFixtures.parse("#######", "#   ###",
+				"# # ###", "#   # #", "##### #");
+		ghost = new Patroller();
+		ghost.occupy(board.squareAt(3, 3));
+	}
+
+	/**
+	 * Verifies the route in the top-left corner goes around the wall block
+	 * and ends where it started.
+	 */
+	@Test
+	public void testLoop() {
+		PatrolRoute route = PatrolRoute.create(board, ghost, Corner.NORTH_WEST);
+		assertEquals(board.squareAt(1, 1), route.getHome());
+		assertEquals(8, route.length());
+		Square square = route.getHome();
+		for (int i = 0; i < route.length(); i++) {
+			assertTrue(route.isAt(i, square));
+			square = square.getSquareAt(route.moveAt(i));
+		}
+		assertEquals(route.getHome(), square);
+	}
+
+	/**
+	 * Verifies the route in a dead end steps out and back, and is no longer
+	 * valid once the board changes.
+	 */
+	@Test
+	public void testOutAndBack() {
+		PatrolRoute route = PatrolRoute.create(board, ghost, Corner.SOUTH_EAST);
+		assertEquals(board.squareAt(5, 4), route.getHome());
+		assertEquals(2, route.length());
+		assertEquals(-1, route.positionOf(board.squareAt(1, 1)));
+		assertTrue(route.isValid());
+
+		board.topologyChanged();
+		assertFalse(route.isValid());
+	}
+
+	/**
+	 * Verifies the phases of a schedule.
+	 */
+	@Test
+	public void testSchedule() {
+		ScatterSchedule schedule = ScatterSchedule.of(2, 1, 0, 1, 1);
+		boolean[] scatter = {true, true, false, false, true, false, false};
+		for (int move = 0; move < scatter.length; move++) {
+			assertEquals(scatter[move], schedule.isScatter(move));
+		}
+		assertEquals(5, schedule.length());
+	}
+
+	/**
+	 * Verifies a scattering ghost replays its route from where it joins it,
+	 * and chases once the schedule says so.
+	 */
+	@Test
+	public void testScatter() {
+		ghost.setPatrol(PatrolRoute.create(board, ghost, Corner.NORTH_WEST),
+				ScatterSchedule.of(8));
+		Square start = ghost.getSquare();
+		for (int i = 0; i < 8; i++) {
+			Direction move = ghost.nextMove();
+			assertTrue(ghost.getSquare().getSquareAt(move)
+					.isAccessibleTo(ghost));
+			ghost.occupy(ghost.getSquare().getSquareAt(move));
+		}
+		assertEquals(start, ghost.getSquare());
+		assertNull(ghost.nextMove());
+	}
+
+	/**
+	 * A ghost that only ever patrols.
+	 */
+	private static final class Patroller extends Ghost {
+
+		Patroller() {
+			super(new EnumMap<Direction, Sprite>(Direction.class), 1, 1);
+		}
+
+		@Override
+		public Direction nextMove() {
+			return scatterMove();
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import java.util.EnumMap;
+
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Unit;
+import nl.tudelft.jpacman.sprite.Sprite;
+
+/**
+ * A ghost for the tests of how ghosts commit to their moves, which plans to
+ * go in a set direction and counts its plans.
+ */
+final class PlanningGhost extends Ghost {
+
+	/**
+	 * The direction to plan.
+	 */
+	private Direction plan;
+
+	/**
+	 * The unit being chased.
+	 */
+	private Unit chased;
+
+	/**
+	 * The number of plans made.
+	 */
+	private int plans;
+
+	/**
+	 * Creates a ghost that moves on every tick.
+	 *
+	 * @param target
+	 *            The unit being chased.
+	 * @param direction
+	 *            The direction to plan.
+	 */
+	PlanningGhost(Unit target, Direction direction) {
+		super(new EnumMap<Direction, Sprite>(Direction.class), 1, 1);
+		this.chased = target;
+		this.plan = direction;
+	}
+
+	/**
+	 * @param direction
+	 *            The direction to plan from now on.
+	 */
+	void setPlan(Direction direction) {
+		this.plan = direction;
+	}
+
+	/**
+	 * @param target
+	 *            The unit to chase from now on.
+	 */
+	void setChased(Unit target) {
+		this.chased = target;
+	}
+
+	/**
+	 * @return The number of plans made.
+	 */
+	int getPlans() {
+		return plans;
+	}
+
+	/**
+	 * Lets the ghost decide and makes the move.
+	 *
+	 * @return The move.
+	 */
+	Direction walk() {
+		Direction move = nextMove();
+		occupy(getSquare().getSquareAt(move));
+		return move;
+	}
+
+	@Override
+	public Direction nextMove() {
+		Direction keep = committedMove(chased);
+		if (keep != null) {
+			return keep;
+		}
+		plans++;
+		return commit(plan, chased);
+	}
+}
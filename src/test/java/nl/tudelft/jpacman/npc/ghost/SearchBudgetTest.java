@@ -0,0 +1,131 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.TimeUnit;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.BoardFactory;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+import nl.tudelft.jpacman.sprite.PacManSprites;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests path searches bounded by a {@link SearchBudget}.
+ */
+@SuppressWarnings({"magicnumber", "PMD.TooManyStaticImports"})
+public class SearchBudgetTest {
+
+	/**
+	 * The unit searching for paths.
+	 */
+	private final Unit traveller = mock(Unit.class);
+
+	/**
+	 * The board under test: a corridor along the top, with a dead end below
+	 * it that cannot be reached.
+	 */
+	private Board board;
+
+	/**
+	 * Sets up the board and keeps the path cache from answering searches.
+	 */
+	@Before
+	public void setUp() {
+		board = BoardFixtures.parse("############",
+				"#          #", "############", "#  #########", "############");
+		Navigation.setPathCacheCapacity(0);
+	}
+
+	/**
+	 * Restores the path cache.
+	 */
+	@After
+	public void tearDown() {
+		Navigation.setPathCacheCapacity(Navigation.DEFAULT_PATH_CACHE_CAPACITY);
+	}
+
+	/**
+	 * Verifies a search within its budget finds the first step of the
+	 * shortest path.
+	 */
+	@Test
+	public void testWithinBudget() {
+		SearchBudget budget = SearchBudget.of(100, 1L, TimeUnit.SECONDS);
+		Square from = board.squareAt(1, 1);
+		Square to = board.squareAt(10, 1);
+		assertEquals(Navigation.shortestPath(from, to, traveller).get(0),
+				Navigation.firstStepWithin(from, to, traveller, budget));
+		assertEquals(1L, budget.getSearches());
+		assertEquals(0L, budget.getOverruns());
+	}
+
+	/**
+	 * Verifies a search that runs out of budget heads for the square closest
+	 * to the destination it found, and is counted as an overrun.
+	 */
+	@Test
+	public void testOverrun() {
+		SearchBudget budget = SearchBudget.ofNodes(3);
+		assertEquals(Direction.EAST, Navigation.firstStepWithin(
+				board.squareAt(1, 1), board.squareAt(6, 1), traveller, budget));
+		assertEquals(1L, budget.getOverruns());
+
+		budget.resetStatistics();
+		assertEquals(0L, budget.getSearches());
+		assertEquals(0L, budget.getOverruns());
+	}
+
+	/**
+	 * Verifies the length of a path found within budget is the number of
+	 * steps around the walls, while one that ran out of budget has none.
+	 */
+	@Test
+	public void testPathLength() {
+		Square from = board.squareAt(1, 1);
+		Square to = board.squareAt(10, 1);
+		assertEquals(3, Navigation.estimate(from, to));
+		assertEquals(9, Navigation.pathWithin(from, to, traveller,
+				SearchBudget.ofNodes(100)).length());
+
+		Navigation.BudgetedPath partial = Navigation.pathWithin(from,
+				board.squareAt(6, 1), traveller, SearchBudget.ofNodes(3));
+		assertEquals(Direction.EAST, partial.firstStep());
+		assertEquals(-1, partial.length());
+	}
+
+	/**
+	 * Verifies a search that cannot reach its destination within its budget
+	 * yields no step.
+	 */
+	@Test
+	public void testUnreachable() {
+		SearchBudget budget = SearchBudget.ofNodes(100);
+		assertNull(Navigation.firstStepWithin(board.squareAt(1, 1),
+				board.squareAt(1, 3), traveller, budget));
+		assertEquals(0L, budget.getOverruns());
+	}
+
+	/**
+	 * Verifies squares that are not on a board can be searched, even though
+	 * their paths cannot be cached.
+	 */
+	@Test
+	public void testWithoutBoard() {
+		Navigation.setPathCacheCapacity(Navigation.DEFAULT_PATH_CACHE_CAPACITY);
+		BoardFactory factory = new BoardFactory(new PacManSprites());
+		Square from = factory.createGround();
+		Square to = factory.createGround();
+		from.link(to, Direction.EAST);
+		to.link(from, Direction.WEST);
+		assertEquals(Direction.EAST, Navigation.firstStepWithin(from, to,
+				traveller, SearchBudget.ofNodes(100)));
+	}
+}
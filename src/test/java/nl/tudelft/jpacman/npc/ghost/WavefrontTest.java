@@ -0,0 +1,115 @@
+package nl.tudelft.jpacman.npc.ghost;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Random;
+
+import nl.tudelft.jpacman.board.Board;
+import nl.tudelft.jpacman.board.Direction;
+import nl.tudelft.jpacman.board.Square;
+import nl.tudelft.jpacman.board.Unit;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Tests the answers of the {@link Wavefront} search against
+ * {@link Navigation}.
+ */
+@SuppressWarnings({"magicnumber", "PMD.TooManyStaticImports"})
+public class WavefrontTest {
+
+	/**
+	 * The traveller the masks are computed for.
+	 */
+	private final Unit traveller = mock(Unit.class);
+
+	/**
+	 * Verifies distances and first steps on a board that is more than one
+	 * word wide and wraps around both axes.
+	 */
+	@Test
+	public void testMatchesSearch() {
+		Board board = randomBoard(70, 9, new Random(42));
+		Wavefront wavefront = Wavefront.create(board, traveller);
+		List<Square> squares = BoardFixtures.accessibleSquares(board, traveller);
+		for (Square to : squares.subList(0, 10)) {
+			for (Square from : squares) {
+				List<Direction> path = Navigation.shortestPath(from, to,
+						traveller);
+				int expected = -1;
+				if (path != null) {
+					expected = path.size();
+				}
+				assertEquals(expected, wavefront.distance(from, to));
+				if (expected > 0) {
+					Direction step = wavefront.firstStep(from, to);
+					assertEquals(expected - 1,
+							wavefront.distance(from.getSquareAt(step), to));
+				}
+				int[] length = new int[1];
+				assertEquals(wavefront.firstStep(from, to),
+						wavefront.firstStep(from, to, length));
+				assertEquals(expected, length[0]);
+			}
+		}
+	}
+
+	/**
+	 * Verifies walls and enclosed squares cannot be reached.
+	 */
+	@Test
+	public void testUnreachable() {
+		Board board = BoardFixtures.parse("#####", "# # #",
+				"#####");
+		Wavefront wavefront = Wavefront.create(board, traveller);
+		assertEquals(-1, wavefront.distance(board.squareAt(1, 1),
+				board.squareAt(3, 1)));
+		assertNull(wavefront.firstStep(board.squareAt(1, 1),
+				board.squareAt(0, 0)));
+		assertFalse(wavefront.covers(board.squareAt(0, 0)));
+	}
+
+	/**
+	 * Verifies a flow field computed with the wavefront search has the same
+	 * distances as one computed square by square.
+	 */
+	@Test
+	public void testFlowField() {
+		Board board = randomBoard(100, 20, new Random(7));
+		FlowField plain = FlowField.create(board, traveller);
+		FlowField packed = FlowField.create(board, traveller,
+				Wavefront.create(board, traveller));
+		List<Square> squares = BoardFixtures.accessibleSquares(board, traveller);
+		Unit target = mock(Unit.class);
+		when(target.getSquare()).thenReturn(squares.get(squares.size() / 2));
+		plain.update(target);
+		packed.update(target);
+		for (Square square : squares) {
+			assertEquals(plain.distance(square, target),
+					packed.distance(square, target));
+		}
+	}
+
+	private Board randomBoard(int width, int height, Random random) {
+		List<String> rows = Lists.newArrayList();
+		for (int y = 0; y < height; y++) {
+			StringBuilder row = new StringBuilder();
+			for (int x = 0; x < width; x++) {
+				if (random.nextInt(3) == 0) {
+					row.append('#');
+				} else {
+					row.append(' ');
+				}
+			}
+			rows.add(row.toString());
+		}
+		return BoardFixtures.parse(rows);
+	}
+}